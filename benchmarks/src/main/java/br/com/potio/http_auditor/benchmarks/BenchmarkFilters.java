@@ -0,0 +1,92 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.time.Duration;
+
+import br.com.potio.core.dto.RequestDTO;
+import br.com.potio.core.dto.ResponseDTO;
+import br.com.potio.core.metrics.AuditMetrics;
+import br.com.potio.core.sink.AuditDispatcher;
+import br.com.potio.core.sink.AuditSink;
+import br.com.potio.core.sink.OverloadPolicy;
+import br.com.potio.http_auditor.ClientFilter;
+import br.com.potio.http_auditor.LoggingFilter;
+import br.com.potio.http_auditor.ServerFilter;
+
+/**
+ * Filters as an application would subclass them, with sinks that discard
+ * the records. Load shedding is disabled so every exchange pays for a full
+ * capture, and metrics stay out of JMX since forks share names.
+ */
+final class BenchmarkFilters {
+
+	private static final Duration NEVER = Duration.ofDays( 1 );
+
+	private BenchmarkFilters() {
+	}
+
+	static ClientFilter client() {
+		return new ClientFilter() {
+
+			@Override
+			protected AuditDispatcher createDispatcher() {
+				return BenchmarkFilters.dispatcher( "client", this::deliver );
+			}
+
+			@Override
+			protected AuditMetrics createMetrics() {
+				return BenchmarkFilters.metrics( "client" );
+			}
+
+			@Override
+			public void auditRequestResponse( RequestDTO request, ResponseDTO response ) {
+				// discarded
+			}
+		};
+	}
+
+	static ServerFilter server() {
+		return new ServerFilter() {
+
+			@Override
+			protected AuditDispatcher createDispatcher() {
+				return BenchmarkFilters.dispatcher( "server", this::deliver );
+			}
+
+			@Override
+			protected AuditMetrics createMetrics() {
+				return BenchmarkFilters.metrics( "server" );
+			}
+
+			@Override
+			public void auditRequestResponse( RequestDTO request, ResponseDTO response ) {
+				// discarded
+			}
+		};
+	}
+
+	static LoggingFilter logging() {
+		return new LoggingFilter( message -> {
+			// discarded
+		} ) {
+		};
+	}
+
+	private static AuditDispatcher dispatcher( String name, AuditSink sink ) {
+		return AuditDispatcher.builder()
+				.withName( "benchmark-" + name )
+				.withSink( sink )
+				.withOverloadPolicy( OverloadPolicy.builder()
+						.withMetadataOnlyAt( 2, NEVER )
+						.withCountersOnlyAt( 2, NEVER )
+						.build() )
+				.build();
+	}
+
+	private static AuditMetrics metrics( String name ) {
+		return AuditMetrics.builder()
+				.withName( "benchmark-" + name )
+				.withJmx( false )
+				.build();
+	}
+
+}
@@ -0,0 +1,55 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.potio.http_auditor.ClientFilter;
+
+/**
+ * Cost of {@link ClientFilter} on the calling thread, from the request filter
+ * to the application reading the response entity.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ClientFilterBenchmark {
+
+	private ClientFilter filter;
+
+	@Setup( Level.Trial )
+	public void setUp() {
+		this.filter = BenchmarkFilters.client();
+	}
+
+	@TearDown( Level.Trial )
+	public void tearDown() {
+		this.filter.shutdown();
+	}
+
+	@Benchmark
+	public long noFilter( Traffic traffic ) throws IOException {
+		return Exchanges.client( null, null, null, traffic );
+	}
+
+	@Benchmark
+	public long clientFilter( Traffic traffic ) throws IOException {
+		return Exchanges.client( this.filter, this.filter, this.filter, traffic );
+	}
+
+}
@@ -0,0 +1,26 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.OutputStream;
+
+/**
+ * Stands for the network: counts what is written and keeps nothing.
+ */
+final class DiscardOutputStream extends OutputStream {
+
+	private long count;
+
+	@Override
+	public void write( int b ) {
+		this.count++;
+	}
+
+	@Override
+	public void write( byte[] b, int off, int len ) {
+		this.count += len;
+	}
+
+	long getCount() {
+		return this.count;
+	}
+
+}
@@ -0,0 +1,88 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.IOException;
+
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.WriterInterceptor;
+
+/**
+ * Drives one exchange through the filters in the order a JAX-RS runtime
+ * calls them. A {@code null} filter runs the same exchange unfiltered, which
+ * is the baseline every benchmark is compared to.
+ */
+final class Exchanges {
+
+	private Exchanges() {
+	}
+
+	/**
+	 * Request filter, entity write through the interceptor, response filter,
+	 * then the application reading the response entity.
+	 *
+	 * @return bytes moved, to keep the work observable
+	 */
+	static long client( ClientRequestFilter requestFilter, ClientResponseFilter responseFilter,
+			WriterInterceptor interceptor, Traffic traffic ) throws IOException {
+		var sent = new DiscardOutputStream();
+		var request = new FakeClientRequestContext( "POST", Traffic.CLIENT_URI,
+				Payloads.copy( traffic.objectHeaders ), traffic.entity, sent );
+		if ( requestFilter != null ) {
+			requestFilter.filter( request );
+		}
+		if ( request.hasEntity() ) {
+			var writer = new FakeWriterInterceptorContext( request.properties(), request.getHeaders(),
+					request.getEntity(), traffic.body, request.getEntityStream() );
+			if ( interceptor != null ) {
+				interceptor.aroundWriteTo( writer );
+			} else {
+				writer.proceed();
+			}
+		}
+		var response = new FakeClientResponseContext( 200, Payloads.copy( traffic.stringHeaders ), traffic.body );
+		if ( responseFilter != null ) {
+			responseFilter.filter( request, response );
+		}
+		var received = new DiscardOutputStream();
+		try ( var entity = response.getEntityStream() ) {
+			entity.transferTo( received );
+		}
+		return sent.getCount() + received.getCount();
+	}
+
+	/**
+	 * Request filter, the resource reading the request entity, response
+	 * filter, then the entity write through the interceptor.
+	 *
+	 * @return bytes moved, to keep the work observable
+	 */
+	static long server( ContainerRequestFilter requestFilter, ContainerResponseFilter responseFilter,
+			WriterInterceptor interceptor, Traffic traffic ) throws IOException {
+		var request = new FakeContainerRequestContext( "POST", Traffic.SERVER_URI,
+				Payloads.copy( traffic.stringHeaders ), traffic.body );
+		if ( requestFilter != null ) {
+			requestFilter.filter( request );
+		}
+		var received = new DiscardOutputStream();
+		request.getEntityStream().transferTo( received );
+		var sent = new DiscardOutputStream();
+		var response = new FakeContainerResponseContext( 200, Payloads.copy( traffic.objectHeaders ),
+				traffic.entity, sent );
+		if ( responseFilter != null ) {
+			responseFilter.filter( request, response );
+		}
+		if ( response.hasEntity() ) {
+			var writer = new FakeWriterInterceptorContext( request.properties(), response.getHeaders(),
+					response.getEntity(), traffic.body, response.getEntityStream() );
+			if ( interceptor != null ) {
+				interceptor.aroundWriteTo( writer );
+			} else {
+				writer.proceed();
+			}
+		}
+		return sent.getCount() + received.getCount();
+	}
+
+}
@@ -0,0 +1,198 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.core.Configuration;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Outgoing request as a client runtime hands it to the filters; the entity
+ * is written by {@link FakeWriterInterceptorContext}.
+ */
+final class FakeClientRequestContext implements ClientRequestContext {
+
+	private final Map< String, Object > properties = new HashMap<>();
+	private final MultivaluedMap< String, Object > headers;
+	private URI uri;
+	private String method;
+	private Object entity;
+	private OutputStream entityStream;
+
+	FakeClientRequestContext( String method, URI uri, MultivaluedMap< String, Object > headers, Object entity,
+			OutputStream entityStream ) {
+		this.method = method;
+		this.uri = uri;
+		this.headers = headers;
+		this.entity = entity;
+		this.entityStream = entityStream;
+	}
+
+	Map< String, Object > properties() {
+		return this.properties;
+	}
+
+	@Override
+	public Object getProperty( String name ) {
+		return this.properties.get( name );
+	}
+
+	@Override
+	public Collection< String > getPropertyNames() {
+		return this.properties.keySet();
+	}
+
+	@Override
+	public void setProperty( String name, Object object ) {
+		this.properties.put( name, object );
+	}
+
+	@Override
+	public void removeProperty( String name ) {
+		this.properties.remove( name );
+	}
+
+	@Override
+	public URI getUri() {
+		return this.uri;
+	}
+
+	@Override
+	public void setUri( URI uri ) {
+		this.uri = uri;
+	}
+
+	@Override
+	public String getMethod() {
+		return this.method;
+	}
+
+	@Override
+	public void setMethod( String method ) {
+		this.method = method;
+	}
+
+	@Override
+	public MultivaluedMap< String, Object > getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public MultivaluedMap< String, String > getStringHeaders() {
+		// runtimes build this view on every call as well
+		MultivaluedMap< String, String > strings = new MultivaluedHashMap<>();
+		this.headers.forEach( ( name, values ) -> values.forEach( value -> strings.add( name, String.valueOf( value ) ) ) );
+		return strings;
+	}
+
+	@Override
+	public String getHeaderString( String name ) {
+		var values = this.headers.get( name );
+		return values == null || values.isEmpty() ? null : String.valueOf( values.get( 0 ) );
+	}
+
+	@Override
+	public Date getDate() {
+		return null;
+	}
+
+	@Override
+	public Locale getLanguage() {
+		return null;
+	}
+
+	@Override
+	public MediaType getMediaType() {
+		return Payloads.JSON;
+	}
+
+	@Override
+	public List< MediaType > getAcceptableMediaTypes() {
+		return List.of( Payloads.JSON );
+	}
+
+	@Override
+	public List< Locale > getAcceptableLanguages() {
+		return List.of();
+	}
+
+	@Override
+	public Map< String, Cookie > getCookies() {
+		return Map.of();
+	}
+
+	@Override
+	public boolean hasEntity() {
+		return this.entity != null;
+	}
+
+	@Override
+	public Object getEntity() {
+		return this.entity;
+	}
+
+	@Override
+	public Class< ? > getEntityClass() {
+		return this.entity == null ? null : this.entity.getClass();
+	}
+
+	@Override
+	public Type getEntityType() {
+		return this.getEntityClass();
+	}
+
+	@Override
+	public void setEntity( Object entity ) {
+		this.entity = entity;
+	}
+
+	@Override
+	public void setEntity( Object entity, Annotation[] annotations, MediaType mediaType ) {
+		this.entity = entity;
+	}
+
+	@Override
+	public Annotation[] getEntityAnnotations() {
+		return new Annotation[ 0 ];
+	}
+
+	@Override
+	public OutputStream getEntityStream() {
+		return this.entityStream;
+	}
+
+	@Override
+	public void setEntityStream( OutputStream outputStream ) {
+		this.entityStream = outputStream;
+	}
+
+	@Override
+	public Client getClient() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Configuration getConfiguration() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void abortWith( Response response ) {
+		throw new UnsupportedOperationException();
+	}
+
+}
@@ -0,0 +1,147 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Link;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.StatusType;
+
+/**
+ * Incoming response whose entity is read from memory.
+ */
+final class FakeClientResponseContext implements ClientResponseContext {
+
+	private final MultivaluedMap< String, String > headers;
+	private final byte[] body;
+	private int status;
+	private InputStream entityStream;
+
+	FakeClientResponseContext( int status, MultivaluedMap< String, String > headers, byte[] body ) {
+		this.status = status;
+		this.headers = headers;
+		this.body = body;
+		this.entityStream = new ByteArrayInputStream( body );
+	}
+
+	@Override
+	public int getStatus() {
+		return this.status;
+	}
+
+	@Override
+	public void setStatus( int code ) {
+		this.status = code;
+	}
+
+	@Override
+	public StatusType getStatusInfo() {
+		return Response.Status.fromStatusCode( this.status );
+	}
+
+	@Override
+	public void setStatusInfo( StatusType statusInfo ) {
+		this.status = statusInfo.getStatusCode();
+	}
+
+	@Override
+	public MultivaluedMap< String, String > getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public String getHeaderString( String name ) {
+		return this.headers.getFirst( name );
+	}
+
+	@Override
+	public Set< String > getAllowedMethods() {
+		return Set.of();
+	}
+
+	@Override
+	public Date getDate() {
+		return null;
+	}
+
+	@Override
+	public Locale getLanguage() {
+		return null;
+	}
+
+	@Override
+	public int getLength() {
+		return this.body.length;
+	}
+
+	@Override
+	public MediaType getMediaType() {
+		return Payloads.JSON;
+	}
+
+	@Override
+	public Map< String, NewCookie > getCookies() {
+		return Map.of();
+	}
+
+	@Override
+	public EntityTag getEntityTag() {
+		return null;
+	}
+
+	@Override
+	public Date getLastModified() {
+		return null;
+	}
+
+	@Override
+	public URI getLocation() {
+		return null;
+	}
+
+	@Override
+	public Set< Link > getLinks() {
+		return Set.of();
+	}
+
+	@Override
+	public boolean hasLink( String relation ) {
+		return false;
+	}
+
+	@Override
+	public Link getLink( String relation ) {
+		return null;
+	}
+
+	@Override
+	public Link.Builder getLinkBuilder( String relation ) {
+		return null;
+	}
+
+	@Override
+	public boolean hasEntity() {
+		return this.body.length > 0;
+	}
+
+	@Override
+	public InputStream getEntityStream() {
+		return this.entityStream;
+	}
+
+	@Override
+	public void setEntityStream( InputStream input ) {
+		this.entityStream = input;
+	}
+
+}
@@ -0,0 +1,173 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.SecurityContext;
+import jakarta.ws.rs.core.UriInfo;
+
+/**
+ * Incoming server request whose entity is read from memory.
+ */
+final class FakeContainerRequestContext implements ContainerRequestContext {
+
+	private final Map< String, Object > properties = new HashMap<>();
+	private final MultivaluedMap< String, String > headers;
+	private final byte[] body;
+	private UriInfo uriInfo;
+	private String method;
+	private InputStream entityStream;
+	private SecurityContext securityContext;
+
+	FakeContainerRequestContext( String method, URI requestUri, MultivaluedMap< String, String > headers,
+			byte[] body ) {
+		this.method = method;
+		this.uriInfo = new FakeUriInfo( requestUri );
+		this.headers = headers;
+		this.body = body;
+		this.entityStream = new ByteArrayInputStream( body );
+	}
+
+	Map< String, Object > properties() {
+		return this.properties;
+	}
+
+	@Override
+	public Object getProperty( String name ) {
+		return this.properties.get( name );
+	}
+
+	@Override
+	public Collection< String > getPropertyNames() {
+		return this.properties.keySet();
+	}
+
+	@Override
+	public void setProperty( String name, Object object ) {
+		this.properties.put( name, object );
+	}
+
+	@Override
+	public void removeProperty( String name ) {
+		this.properties.remove( name );
+	}
+
+	@Override
+	public UriInfo getUriInfo() {
+		return this.uriInfo;
+	}
+
+	@Override
+	public void setRequestUri( URI requestUri ) {
+		this.uriInfo = new FakeUriInfo( requestUri );
+	}
+
+	@Override
+	public void setRequestUri( URI baseUri, URI requestUri ) {
+		this.uriInfo = new FakeUriInfo( baseUri.resolve( requestUri ) );
+	}
+
+	@Override
+	public Request getRequest() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public String getMethod() {
+		return this.method;
+	}
+
+	@Override
+	public void setMethod( String method ) {
+		this.method = method;
+	}
+
+	@Override
+	public MultivaluedMap< String, String > getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public String getHeaderString( String name ) {
+		return this.headers.getFirst( name );
+	}
+
+	@Override
+	public Date getDate() {
+		return null;
+	}
+
+	@Override
+	public Locale getLanguage() {
+		return null;
+	}
+
+	@Override
+	public int getLength() {
+		return this.body.length;
+	}
+
+	@Override
+	public MediaType getMediaType() {
+		return Payloads.JSON;
+	}
+
+	@Override
+	public List< MediaType > getAcceptableMediaTypes() {
+		return List.of( Payloads.JSON );
+	}
+
+	@Override
+	public List< Locale > getAcceptableLanguages() {
+		return List.of();
+	}
+
+	@Override
+	public Map< String, Cookie > getCookies() {
+		return Map.of();
+	}
+
+	@Override
+	public boolean hasEntity() {
+		return this.body.length > 0;
+	}
+
+	@Override
+	public InputStream getEntityStream() {
+		return this.entityStream;
+	}
+
+	@Override
+	public void setEntityStream( InputStream input ) {
+		this.entityStream = input;
+	}
+
+	@Override
+	public SecurityContext getSecurityContext() {
+		return this.securityContext;
+	}
+
+	@Override
+	public void setSecurityContext( SecurityContext context ) {
+		this.securityContext = context;
+	}
+
+	@Override
+	public void abortWith( Response response ) {
+		throw new UnsupportedOperationException();
+	}
+
+}
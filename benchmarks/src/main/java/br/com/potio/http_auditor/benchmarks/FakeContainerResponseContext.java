@@ -0,0 +1,190 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Link;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.StatusType;
+
+/**
+ * Server response as returned by a resource method; the entity is written
+ * by {@link FakeWriterInterceptorContext}.
+ */
+final class FakeContainerResponseContext implements ContainerResponseContext {
+
+	private final MultivaluedMap< String, Object > headers;
+	private int status;
+	private Object entity;
+	private OutputStream entityStream;
+
+	FakeContainerResponseContext( int status, MultivaluedMap< String, Object > headers, Object entity,
+			OutputStream entityStream ) {
+		this.status = status;
+		this.headers = headers;
+		this.entity = entity;
+		this.entityStream = entityStream;
+	}
+
+	@Override
+	public int getStatus() {
+		return this.status;
+	}
+
+	@Override
+	public void setStatus( int code ) {
+		this.status = code;
+	}
+
+	@Override
+	public StatusType getStatusInfo() {
+		return Response.Status.fromStatusCode( this.status );
+	}
+
+	@Override
+	public void setStatusInfo( StatusType statusInfo ) {
+		this.status = statusInfo.getStatusCode();
+	}
+
+	@Override
+	public MultivaluedMap< String, Object > getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public MultivaluedMap< String, String > getStringHeaders() {
+		// runtimes build this view on every call as well
+		MultivaluedMap< String, String > strings = new MultivaluedHashMap<>();
+		this.headers.forEach( ( name, values ) -> values.forEach( value -> strings.add( name, String.valueOf( value ) ) ) );
+		return strings;
+	}
+
+	@Override
+	public String getHeaderString( String name ) {
+		var values = this.headers.get( name );
+		return values == null || values.isEmpty() ? null : String.valueOf( values.get( 0 ) );
+	}
+
+	@Override
+	public Set< String > getAllowedMethods() {
+		return Set.of();
+	}
+
+	@Override
+	public Date getDate() {
+		return null;
+	}
+
+	@Override
+	public Locale getLanguage() {
+		return null;
+	}
+
+	@Override
+	public int getLength() {
+		return -1;
+	}
+
+	@Override
+	public MediaType getMediaType() {
+		return Payloads.JSON;
+	}
+
+	@Override
+	public Map< String, NewCookie > getCookies() {
+		return Map.of();
+	}
+
+	@Override
+	public EntityTag getEntityTag() {
+		return null;
+	}
+
+	@Override
+	public Date getLastModified() {
+		return null;
+	}
+
+	@Override
+	public URI getLocation() {
+		return null;
+	}
+
+	@Override
+	public Set< Link > getLinks() {
+		return Set.of();
+	}
+
+	@Override
+	public boolean hasLink( String relation ) {
+		return false;
+	}
+
+	@Override
+	public Link getLink( String relation ) {
+		return null;
+	}
+
+	@Override
+	public Link.Builder getLinkBuilder( String relation ) {
+		return null;
+	}
+
+	@Override
+	public boolean hasEntity() {
+		return this.entity != null;
+	}
+
+	@Override
+	public Object getEntity() {
+		return this.entity;
+	}
+
+	@Override
+	public Class< ? > getEntityClass() {
+		return this.entity == null ? null : this.entity.getClass();
+	}
+
+	@Override
+	public Type getEntityType() {
+		return this.getEntityClass();
+	}
+
+	@Override
+	public void setEntity( Object entity ) {
+		this.entity = entity;
+	}
+
+	@Override
+	public void setEntity( Object entity, Annotation[] annotations, MediaType mediaType ) {
+		this.entity = entity;
+	}
+
+	@Override
+	public Annotation[] getEntityAnnotations() {
+		return new Annotation[ 0 ];
+	}
+
+	@Override
+	public OutputStream getEntityStream() {
+		return this.entityStream;
+	}
+
+	@Override
+	public void setEntityStream( OutputStream outputStream ) {
+		this.entityStream = outputStream;
+	}
+
+}
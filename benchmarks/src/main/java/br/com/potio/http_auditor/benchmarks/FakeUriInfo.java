@@ -0,0 +1,119 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.net.URI;
+import java.util.List;
+
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.PathSegment;
+import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
+
+/**
+ * Only the request URI is meaningful; builders need a runtime and are not
+ * supported.
+ */
+final class FakeUriInfo implements UriInfo {
+
+	private final URI requestUri;
+
+	FakeUriInfo( URI requestUri ) {
+		this.requestUri = requestUri;
+	}
+
+	@Override
+	public String getPath() {
+		return this.requestUri.getPath();
+	}
+
+	@Override
+	public String getPath( boolean decode ) {
+		return decode ? this.requestUri.getPath() : this.requestUri.getRawPath();
+	}
+
+	@Override
+	public List< PathSegment > getPathSegments() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public List< PathSegment > getPathSegments( boolean decode ) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public URI getRequestUri() {
+		return this.requestUri;
+	}
+
+	@Override
+	public UriBuilder getRequestUriBuilder() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public URI getAbsolutePath() {
+		return this.requestUri.resolve( this.requestUri.getRawPath() );
+	}
+
+	@Override
+	public UriBuilder getAbsolutePathBuilder() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public URI getBaseUri() {
+		return this.requestUri.resolve( "/" );
+	}
+
+	@Override
+	public UriBuilder getBaseUriBuilder() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public MultivaluedMap< String, String > getPathParameters() {
+		return new MultivaluedHashMap<>();
+	}
+
+	@Override
+	public MultivaluedMap< String, String > getPathParameters( boolean decode ) {
+		return new MultivaluedHashMap<>();
+	}
+
+	@Override
+	public MultivaluedMap< String, String > getQueryParameters() {
+		return new MultivaluedHashMap<>();
+	}
+
+	@Override
+	public MultivaluedMap< String, String > getQueryParameters( boolean decode ) {
+		return new MultivaluedHashMap<>();
+	}
+
+	@Override
+	public List< String > getMatchedURIs() {
+		return List.of();
+	}
+
+	@Override
+	public List< String > getMatchedURIs( boolean decode ) {
+		return List.of();
+	}
+
+	@Override
+	public List< Object > getMatchedResources() {
+		return List.of();
+	}
+
+	@Override
+	public URI resolve( URI uri ) {
+		return this.getBaseUri().resolve( uri );
+	}
+
+	@Override
+	public URI relativize( URI uri ) {
+		return this.requestUri.relativize( uri );
+	}
+
+}
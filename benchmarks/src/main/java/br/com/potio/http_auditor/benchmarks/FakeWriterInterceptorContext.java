@@ -0,0 +1,136 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Last link of the interceptor chain: {@link #proceed()} writes the encoded
+ * entity to the current output stream, like a message body writer.
+ * Properties are shared with the request context, as runtimes do.
+ */
+final class FakeWriterInterceptorContext implements WriterInterceptorContext {
+
+	private final Map< String, Object > properties;
+	private final MultivaluedMap< String, Object > headers;
+	private final byte[] encoded;
+	private Object entity;
+	private OutputStream outputStream;
+	private Annotation[] annotations = new Annotation[ 0 ];
+	private Class< ? > type;
+	private Type genericType;
+	private MediaType mediaType = Payloads.JSON;
+
+	FakeWriterInterceptorContext( Map< String, Object > properties, MultivaluedMap< String, Object > headers,
+			Object entity, byte[] encoded, OutputStream outputStream ) {
+		this.properties = properties;
+		this.headers = headers;
+		this.entity = entity;
+		this.encoded = encoded;
+		this.outputStream = outputStream;
+		this.type = entity.getClass();
+		this.genericType = this.type;
+	}
+
+	@Override
+	public void proceed() throws IOException {
+		// message body writers emit in chunks
+		for ( int offset = 0; offset < this.encoded.length; offset += 8192 ) {
+			this.outputStream.write( this.encoded, offset, Math.min( 8192, this.encoded.length - offset ) );
+		}
+		this.outputStream.flush();
+	}
+
+	@Override
+	public Object getEntity() {
+		return this.entity;
+	}
+
+	@Override
+	public void setEntity( Object entity ) {
+		this.entity = entity;
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return this.outputStream;
+	}
+
+	@Override
+	public void setOutputStream( OutputStream os ) {
+		this.outputStream = os;
+	}
+
+	@Override
+	public MultivaluedMap< String, Object > getHeaders() {
+		return this.headers;
+	}
+
+	@Override
+	public Object getProperty( String name ) {
+		return this.properties.get( name );
+	}
+
+	@Override
+	public Collection< String > getPropertyNames() {
+		return this.properties.keySet();
+	}
+
+	@Override
+	public void setProperty( String name, Object object ) {
+		this.properties.put( name, object );
+	}
+
+	@Override
+	public void removeProperty( String name ) {
+		this.properties.remove( name );
+	}
+
+	@Override
+	public Annotation[] getAnnotations() {
+		return this.annotations;
+	}
+
+	@Override
+	public void setAnnotations( Annotation[] annotations ) {
+		this.annotations = annotations;
+	}
+
+	@Override
+	public Class< ? > getType() {
+		return this.type;
+	}
+
+	@Override
+	public void setType( Class< ? > type ) {
+		this.type = type;
+	}
+
+	@Override
+	public Type getGenericType() {
+		return this.genericType;
+	}
+
+	@Override
+	public void setGenericType( Type genericType ) {
+		this.genericType = genericType;
+	}
+
+	@Override
+	public MediaType getMediaType() {
+		return this.mediaType;
+	}
+
+	@Override
+	public void setMediaType( MediaType mediaType ) {
+		this.mediaType = mediaType;
+	}
+
+}
@@ -0,0 +1,59 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.potio.http_auditor.LoggingFilter;
+
+/**
+ * Cost of {@link LoggingFilter} in both registrations, rendering every
+ * message into an output that discards it.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class LoggingFilterBenchmark {
+
+	private LoggingFilter filter;
+
+	@Setup( Level.Trial )
+	public void setUp() {
+		this.filter = BenchmarkFilters.logging();
+	}
+
+	@Benchmark
+	public long clientNoFilter( Traffic traffic ) throws IOException {
+		return Exchanges.client( null, null, null, traffic );
+	}
+
+	@Benchmark
+	public long clientLogging( Traffic traffic ) throws IOException {
+		return Exchanges.client( this.filter, this.filter, this.filter, traffic );
+	}
+
+	@Benchmark
+	public long serverNoFilter( Traffic traffic ) throws IOException {
+		return Exchanges.server( null, null, null, traffic );
+	}
+
+	@Benchmark
+	public long serverLogging( Traffic traffic ) throws IOException {
+		return Exchanges.server( this.filter, this.filter, this.filter, traffic );
+	}
+
+}
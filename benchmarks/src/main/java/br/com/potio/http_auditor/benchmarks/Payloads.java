@@ -0,0 +1,55 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+
+/**
+ * Deterministic bodies and headers shaped like the traffic the filters see.
+ */
+final class Payloads {
+
+	static final MediaType JSON = new MediaType( "application", "json", "UTF-8" );
+
+	private static final String[] COMMON_HEADERS = { "Accept", "User-Agent", "Authorization",
+			"Content-Type", "Accept-Encoding", "X-Request-Id", "Cache-Control", "Connection" };
+
+	private Payloads() {
+	}
+
+	/**
+	 * JSON array of small objects, cut at exactly {@code size} bytes.
+	 */
+	static byte[] body( int size ) {
+		var json = new StringBuilder( size + 128 ).append( '[' );
+		for ( int i = 0; json.length() < size; i++ ) {
+			json.append( "{\"id\":" ).append( i )
+					.append( ",\"name\":\"item-" ).append( i )
+					.append( "\",\"price\":" ).append( i * 7 % 1000 ).append( ".90" )
+					.append( ",\"tags\":[\"a\",\"b\"]}," );
+		}
+		json.setLength( size );
+		return json.toString().getBytes( StandardCharsets.UTF_8 );
+	}
+
+	static < V > MultivaluedMap< String, V > headers( int count, Class< V > valueType ) {
+		MultivaluedMap< String, V > headers = new MultivaluedHashMap<>();
+		for ( int i = 0; i < count; i++ ) {
+			var name = i < COMMON_HEADERS.length ? COMMON_HEADERS[ i ] : "X-Custom-" + i;
+			headers.add( name, valueType.cast( "value-" + i + "-0123456789abcdef" ) );
+		}
+		return headers;
+	}
+
+	/**
+	 * Independent copy, since filters and runtimes may mutate headers.
+	 */
+	static < V > MultivaluedMap< String, V > copy( MultivaluedMap< String, V > headers ) {
+		MultivaluedMap< String, V > copy = new MultivaluedHashMap<>();
+		headers.forEach( ( name, values ) -> copy.addAll( name, values ) );
+		return copy;
+	}
+
+}
@@ -0,0 +1,55 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.potio.http_auditor.ServerFilter;
+
+/**
+ * Cost of {@link ServerFilter} on the request thread, from the request filter
+ * to the response entity being written.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ServerFilterBenchmark {
+
+	private ServerFilter filter;
+
+	@Setup( Level.Trial )
+	public void setUp() {
+		this.filter = BenchmarkFilters.server();
+	}
+
+	@TearDown( Level.Trial )
+	public void tearDown() {
+		this.filter.shutdown();
+	}
+
+	@Benchmark
+	public long noFilter( Traffic traffic ) throws IOException {
+		return Exchanges.server( null, null, null, traffic );
+	}
+
+	@Benchmark
+	public long serverFilter( Traffic traffic ) throws IOException {
+		return Exchanges.server( this.filter, this.filter, this.filter, traffic );
+	}
+
+}
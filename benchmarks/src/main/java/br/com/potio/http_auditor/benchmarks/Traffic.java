@@ -0,0 +1,43 @@
+package br.com.potio.http_auditor.benchmarks;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import jakarta.ws.rs.core.MultivaluedMap;
+
+/**
+ * Shape of the exchanges, the same in both directions: a JSON body of
+ * {@link #bodySize} bytes each way and {@link #headerCount} headers.
+ */
+@State( Scope.Benchmark )
+public class Traffic {
+
+	static final URI CLIENT_URI = URI.create( "http://catalog.internal:8080/orders/1234/items?expand=true" );
+	static final URI SERVER_URI = URI.create( "http://localhost:8080/orders/1234/items?expand=true" );
+
+	@Param( { "0", "1024", "65536", "1048576" } )
+	public int bodySize;
+
+	@Param( { "4", "32" } )
+	public int headerCount;
+
+	byte[] body;
+	String entity;
+	MultivaluedMap< String, Object > objectHeaders;
+	MultivaluedMap< String, String > stringHeaders;
+
+	@Setup( Level.Trial )
+	public void setUp() {
+		this.body = Payloads.body( this.bodySize );
+		this.entity = this.bodySize == 0 ? null : new String( this.body, StandardCharsets.UTF_8 );
+		this.objectHeaders = Payloads.headers( this.headerCount, Object.class );
+		this.stringHeaders = Payloads.headers( this.headerCount, String.class );
+	}
+
+}
@@ -0,0 +1,72 @@
+package br.com.potio.core.capture;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Pool of heap slabs in power-of-two size classes, from 512 bytes to 1 MB.
+ * Each class keeps a bounded free list, so the pool never retains more than
+ * its byte budget; requests above the largest class are plain allocations.
+ * Releasing a slab that did not come from a size class is a no-op.
+ */
+public class BufferPool {
+
+	private static final int MIN_CLASS_SHIFT = 9;
+	private static final int MAX_CLASS_SHIFT = 20;
+	private static final int MIN_SLABS_PER_CLASS = 4;
+	private static final long DEFAULT_BUDGET_BYTES = 32L * 1024 * 1024;
+	private static final BufferPool SHARED = new BufferPool( DEFAULT_BUDGET_BYTES );
+
+	private final ArrayBlockingQueue< byte[] >[] classes;
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	public BufferPool( long budgetBytes ) {
+		int count = MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1;
+		long budgetPerClass = budgetBytes / count;
+		this.classes = new ArrayBlockingQueue[ count ];
+		for ( int i = 0; i < count; i++ ) {
+			long slabs = budgetPerClass >> ( MIN_CLASS_SHIFT + i );
+			this.classes[ i ] = new ArrayBlockingQueue<>(
+					( int ) Math.max( MIN_SLABS_PER_CLASS, Math.min( slabs, 4096 ) ) );
+		}
+	}
+
+	public static BufferPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * @return a slab of at least {@code minSize} bytes, with undefined content
+	 */
+	public byte[] acquire( int minSize ) {
+		int index = BufferPool.classIndex( minSize );
+		if ( index < 0 ) {
+			return new byte[ minSize ];
+		}
+		byte[] slab = this.classes[ index ].poll();
+		return slab != null ? slab : new byte[ 1 << ( MIN_CLASS_SHIFT + index ) ];
+	}
+
+	public void release( byte[] slab ) {
+		if ( slab == null || Integer.bitCount( slab.length ) != 1 ) {
+			return;
+		}
+		int index = BufferPool.classIndex( slab.length );
+		if ( index >= 0 && slab.length == 1 << ( MIN_CLASS_SHIFT + index ) ) {
+			this.classes[ index ].offer( slab );
+		}
+	}
+
+	public int getMaxPooledSize() {
+		return 1 << MAX_CLASS_SHIFT;
+	}
+
+	private static int classIndex( int size ) {
+		if ( size > 1 << MAX_CLASS_SHIFT ) {
+			return -1;
+		}
+		int shift = size <= 1 << MIN_CLASS_SHIFT ? MIN_CLASS_SHIFT
+				: 32 - Integer.numberOfLeadingZeros( size - 1 );
+		return shift - MIN_CLASS_SHIFT;
+	}
+
+}
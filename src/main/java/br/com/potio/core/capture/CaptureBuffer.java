@@ -0,0 +1,115 @@
+package br.com.potio.core.capture;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Byte store that keeps at most {@code limit} bytes of an entity while
+ * counting every byte that went through it. Storage is borrowed from a
+ * {@link BufferPool} and must be handed back with {@link #release()} once the
+ * captured bytes are no longer needed; later writes are only counted, as
+ * are those after {@link #seal()}.
+ */
+public class CaptureBuffer {
+
+	private static final int INITIAL_CAPACITY = 512;
+
+	private final BufferPool pool;
+	private final int limit;
+	private byte[] data;
+	private int size;
+	private long totalBytes;
+	private volatile boolean sealed;
+
+	public CaptureBuffer( int limit ) {
+		this( BufferPool.shared(), limit );
+	}
+
+	public CaptureBuffer( BufferPool pool, int limit ) {
+		this.pool = pool;
+		this.limit = Math.max( 0, limit );
+		this.data = pool.acquire( Math.min( INITIAL_CAPACITY, this.limit ) );
+	}
+
+	public void write( int b ) {
+		this.totalBytes++;
+		if ( this.size < this.limit && this.data != null && !this.sealed ) {
+			this.ensureCapacity( this.size + 1 );
+			this.data[ this.size++ ] = ( byte ) b;
+		}
+	}
+
+	public void write( byte[] bytes, int offset, int length ) {
+		this.totalBytes += length;
+		int accepted = Math.min( length, this.limit - this.size );
+		if ( accepted > 0 && this.data != null && !this.sealed ) {
+			this.ensureCapacity( this.size + accepted );
+			System.arraycopy( bytes, offset, this.data, this.size, accepted );
+			this.size += accepted;
+		}
+	}
+
+	/**
+	 * Rewinds to a previously observed {@link #getTotalBytes()}, used when
+	 * the underlying stream is reset to a mark.
+	 */
+	public void rewind( long totalBytes ) {
+		if ( totalBytes < this.totalBytes && !this.sealed ) {
+			this.totalBytes = totalBytes;
+			this.size = ( int ) Math.min( this.size, totalBytes );
+		}
+	}
+
+	private void ensureCapacity( int capacity ) {
+		if ( capacity > this.data.length ) {
+			var grown = this.pool.acquire( Math.max( capacity, Math.min( this.limit, this.data.length * 2 ) ) );
+			System.arraycopy( this.data, 0, grown, 0, this.size );
+			this.pool.release( this.data );
+			this.data = grown;
+		}
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public long getTotalBytes() {
+		return this.totalBytes;
+	}
+
+	public boolean isTruncated() {
+		return this.totalBytes > this.size;
+	}
+
+	/**
+	 * Backing slab; only the first {@link #size()} bytes are meaningful.
+	 */
+	public byte[] array() {
+		return this.data;
+	}
+
+	public byte[] toByteArray() {
+		return Arrays.copyOf( this.data, this.size );
+	}
+
+	public String toString( Charset charset ) {
+		return new String( this.data, 0, this.size, charset );
+	}
+
+	/**
+	 * Freezes the captured bytes, once another object took the slab over:
+	 * the stream feeding this buffer may still be read, e.g. by a container
+	 * draining an unread entity, but must neither write into the slab nor
+	 * swap it for a larger one.
+	 */
+	public void seal() {
+		this.sealed = true;
+	}
+
+	public void release() {
+		var slab = this.data;
+		this.data = null;
+		this.pool.release( slab );
+	}
+
+}
@@ -0,0 +1,116 @@
+package br.com.potio.core.capture;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tee over an entity stream: bytes read by the application are copied into a
+ * bounded {@link CaptureBuffer}. The completion callback runs once, on end of
+ * stream or on close, whichever comes first; bytes read after that are passed
+ * through without being recorded.
+ */
+public class CaptureInputStream extends FilterInputStream {
+
+	private static final Logger logger = Logger.getLogger( CaptureInputStream.class.getName() );
+
+	private final CaptureBuffer buffer;
+	private final Consumer< CaptureBuffer > onComplete;
+	private long markedTotal;
+	private boolean completed;
+
+	public CaptureInputStream( InputStream in, CaptureBuffer buffer ) {
+		this( in, buffer, captured -> {
+		} );
+	}
+
+	public CaptureInputStream( InputStream in, CaptureBuffer buffer, Consumer< CaptureBuffer > onComplete ) {
+		super( in );
+		this.buffer = buffer;
+		this.onComplete = onComplete;
+	}
+
+	public CaptureBuffer getBuffer() {
+		return this.buffer;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = this.in.read();
+		if ( b == -1 ) {
+			this.complete();
+		} else if ( !this.completed ) {
+			this.buffer.write( b );
+		}
+		return b;
+	}
+
+	@Override
+	public int read( byte[] bytes, int offset, int length ) throws IOException {
+		int read = this.in.read( bytes, offset, length );
+		if ( read == -1 ) {
+			this.complete();
+		} else if ( read > 0 && !this.completed ) {
+			this.buffer.write( bytes, offset, read );
+		}
+		return read;
+	}
+
+	@Override
+	public long skip( long n ) throws IOException {
+		long skipped = 0;
+		var pool = BufferPool.shared();
+		var scratch = pool.acquire( ( int ) Math.min( n, 2048 ) );
+		try {
+			while ( skipped < n ) {
+				int read = this.read( scratch, 0, ( int ) Math.min( scratch.length, n - skipped ) );
+				if ( read <= 0 ) {
+					break;
+				}
+				skipped += read;
+			}
+		} finally {
+			pool.release( scratch );
+		}
+		return skipped;
+	}
+
+	@Override
+	public synchronized void mark( int readlimit ) {
+		this.in.mark( readlimit );
+		this.markedTotal = this.buffer.getTotalBytes();
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		this.in.reset();
+		if ( !this.completed ) {
+			this.buffer.rewind( this.markedTotal );
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.in.close();
+		} finally {
+			this.complete();
+		}
+	}
+
+	private void complete() {
+		if ( this.completed ) {
+			return;
+		}
+		this.completed = true;
+		try {
+			this.onComplete.accept( this.buffer );
+		} catch ( RuntimeException e ) {
+			CaptureInputStream.logger.log( Level.SEVERE, "Error while completing entity capture", e );
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+package br.com.potio.core.capture;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Tee over an entity output stream: bytes written by the runtime go to the
+ * wire and are copied into a bounded {@link CaptureBuffer}.
+ */
+public class CaptureOutputStream extends FilterOutputStream {
+
+	private final CaptureBuffer buffer;
+
+	public CaptureOutputStream( OutputStream out, CaptureBuffer buffer ) {
+		super( out );
+		this.buffer = buffer;
+	}
+
+	public CaptureBuffer getBuffer() {
+		return this.buffer;
+	}
+
+	@Override
+	public void write( int b ) throws IOException {
+		this.buffer.write( b );
+		this.out.write( b );
+	}
+
+	@Override
+	public void write( byte[] bytes, int offset, int length ) throws IOException {
+		this.buffer.write( bytes, offset, length );
+		this.out.write( bytes, offset, length );
+	}
+
+}
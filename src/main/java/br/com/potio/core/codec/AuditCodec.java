@@ -0,0 +1,425 @@
+package br.com.potio.core.codec;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import br.com.potio.core.dto.AuditionDTO;
+import br.com.potio.core.dto.BodyContent;
+import br.com.potio.core.dto.CompactHeaders;
+import br.com.potio.core.dto.HeaderDictionary;
+import br.com.potio.core.dto.RequestDTO;
+import br.com.potio.core.dto.ResponseDTO;
+import br.com.potio.core.sink.AuditRecord;
+
+/**
+ * Compact binary layout of the audit DTOs. Every object starts with a varint
+ * bitmask of the fields present, followed by those fields in declaration
+ * order: numbers as varints, methods, header names, URL origins and route
+ * templates as {@link StringTable} symbols, bodies as raw bytes with their charset.
+ */
+public final class AuditCodec {
+
+	public static final int VERSION = 5;
+	private static final int BODY_DEFLATED = 1;
+
+	private AuditCodec() {
+	}
+
+	public static void encode( AuditRecord record, BinaryEncoder out ) {
+		var request = record.getRequest();
+		var response = record.getResponse();
+		out.writeByte( VERSION );
+		out.writeVarInt( ( request != null ? 1 : 0 ) | ( response != null ? 2 : 0 ) );
+		if ( request != null ) {
+			AuditCodec.encode( request, out );
+		}
+		if ( response != null ) {
+			AuditCodec.encode( response, request != null ? request.getDate() : null, out );
+		}
+	}
+
+	public static AuditRecord decodeRecord( BinaryDecoder in ) {
+		int version = in.readByte();
+		if ( version < 1 || version > VERSION ) {
+			throw new IllegalStateException( "Unsupported audit record version " + version );
+		}
+		int present = in.readVarInt();
+		var request = ( present & 1 ) != 0 ? AuditCodec.decodeRequest( in, version ) : null;
+		var response = ( present & 2 ) != 0
+				? AuditCodec.decodeResponse( request != null ? request.getDate() : null, in, version )
+				: null;
+		return new AuditRecord( request, response );
+	}
+
+	public static void encode( RequestDTO request, BinaryEncoder out ) {
+		var body = request.getBodyContent();
+		int present = AuditCodec.bit( 0, request.getMethodName() )
+				| AuditCodec.bit( 1, request.getUrl() )
+				| AuditCodec.bit( 2, body )
+				| AuditCodec.bit( 3, request.getBodyTypeName() )
+				| AuditCodec.bit( 4, request.getHeaders() )
+				| AuditCodec.bit( 5, request.getDate() )
+				| AuditCodec.bit( 6, request.getRouteTemplate() )
+				| AuditCodec.bit( 7, request.getBodyFingerprint() )
+				| AuditCodec.bit( 8, request.getExchangeId() )
+				| AuditCodec.bit( 9, request.getParentId() )
+				| AuditCodec.bit( 10, request.getRootId() );
+		out.writeVarInt( present );
+		if ( request.getMethodName() != null ) {
+			out.writeSymbol( request.getMethodName() );
+		}
+		if ( request.getUrl() != null ) {
+			AuditCodec.writeUrl( request.getUrl(), out );
+		}
+		if ( body != null ) {
+			AuditCodec.writeBody( body, out );
+		}
+		if ( request.getBodyTypeName() != null ) {
+			out.writeSymbol( request.getBodyTypeName() );
+		}
+		if ( request.getHeaders() != null ) {
+			AuditCodec.writeHeaders( request.getHeaders(), out );
+		}
+		if ( request.getDate() != null ) {
+			out.writeVarLong( request.getDate().getTime() );
+		}
+		if ( request.getRouteTemplate() != null ) {
+			out.writeSymbol( request.getRouteTemplate() );
+		}
+		if ( request.getBodyFingerprint() != null ) {
+			out.writeString( request.getBodyFingerprint() );
+		}
+		if ( request.getExchangeId() != null ) {
+			out.writeString( request.getExchangeId() );
+		}
+		if ( request.getParentId() != null ) {
+			out.writeString( request.getParentId() );
+		}
+		if ( request.getRootId() != null ) {
+			out.writeString( request.getRootId() );
+		}
+	}
+
+	public static RequestDTO decodeRequest( BinaryDecoder in ) {
+		return AuditCodec.decodeRequest( in, VERSION );
+	}
+
+	private static RequestDTO decodeRequest( BinaryDecoder in, int version ) {
+		int present = in.readVarInt();
+		var request = new RequestDTO();
+		if ( ( present & 1 ) != 0 ) {
+			request.setMethodName( in.readSymbol() );
+		}
+		if ( ( present & 1 << 1 ) != 0 ) {
+			request.setUrl( AuditCodec.readUrl( in ) );
+		}
+		if ( ( present & 1 << 2 ) != 0 ) {
+			request.setBodyContent( AuditCodec.readBody( in, version ) );
+		}
+		if ( ( present & 1 << 3 ) != 0 ) {
+			request.setBodyTypeName( in.readSymbol() );
+		}
+		if ( ( present & 1 << 4 ) != 0 ) {
+			request.setHeaders( AuditCodec.readHeaders( in ) );
+		}
+		if ( ( present & 1 << 5 ) != 0 ) {
+			request.setDate( new Date( in.readVarLong() ) );
+		}
+		if ( ( present & 1 << 6 ) != 0 ) {
+			request.setRouteTemplate( in.readSymbol() );
+		}
+		if ( ( present & 1 << 7 ) != 0 ) {
+			request.setBodyFingerprint( in.readString() );
+		}
+		if ( ( present & 1 << 8 ) != 0 ) {
+			request.setExchangeId( in.readString() );
+		}
+		if ( ( present & 1 << 9 ) != 0 ) {
+			request.setParentId( in.readString() );
+		}
+		if ( ( present & 1 << 10 ) != 0 ) {
+			request.setRootId( in.readString() );
+		}
+		return request;
+	}
+
+	/**
+	 * @param base date the response date is written relative to, usually the
+	 *             request date; may be {@code null}
+	 */
+	public static void encode( ResponseDTO response, Date base, BinaryEncoder out ) {
+		var body = response.getBodyContent();
+		int present = AuditCodec.bit( 0, response.getStatus() )
+				| AuditCodec.bit( 1, body )
+				| AuditCodec.bit( 2, response.getEntityTag() )
+				| AuditCodec.bit( 3, response.getDate() )
+				| AuditCodec.bit( 4, response.getTookSeconds() )
+				| AuditCodec.bit( 5, response.getTookNanos() )
+				| AuditCodec.bit( 6, response.getFilterInNanos() )
+				| AuditCodec.bit( 7, response.getHandlerNanos() )
+				| AuditCodec.bit( 8, response.getSerializationNanos() )
+				| AuditCodec.bit( 9, response.getBodyFingerprint() );
+		out.writeVarInt( present );
+		if ( response.getStatus() != null ) {
+			out.writeVarInt( response.getStatus() );
+		}
+		if ( body != null ) {
+			AuditCodec.writeBody( body, out );
+		}
+		if ( response.getEntityTag() != null ) {
+			out.writeString( response.getEntityTag() );
+		}
+		if ( response.getDate() != null ) {
+			out.writeSignedVarLong( response.getDate().getTime() - ( base != null ? base.getTime() : 0 ) );
+		}
+		if ( response.getTookSeconds() != null ) {
+			out.writeSymbol( response.getTookSeconds() );
+		}
+		AuditCodec.writeLong( response.getTookNanos(), out );
+		AuditCodec.writeLong( response.getFilterInNanos(), out );
+		AuditCodec.writeLong( response.getHandlerNanos(), out );
+		AuditCodec.writeLong( response.getSerializationNanos(), out );
+		if ( response.getBodyFingerprint() != null ) {
+			out.writeString( response.getBodyFingerprint() );
+		}
+	}
+
+	public static ResponseDTO decodeResponse( Date base, BinaryDecoder in ) {
+		return AuditCodec.decodeResponse( base, in, VERSION );
+	}
+
+	private static ResponseDTO decodeResponse( Date base, BinaryDecoder in, int version ) {
+		int present = in.readVarInt();
+		var response = new ResponseDTO();
+		if ( ( present & 1 ) != 0 ) {
+			response.setStatus( in.readVarInt() );
+		}
+		if ( ( present & 1 << 1 ) != 0 ) {
+			response.setBodyContent( AuditCodec.readBody( in, version ) );
+		}
+		if ( ( present & 1 << 2 ) != 0 ) {
+			response.setEntityTag( in.readString() );
+		}
+		if ( ( present & 1 << 3 ) != 0 ) {
+			response.setDate( new Date( in.readSignedVarLong() + ( base != null ? base.getTime() : 0 ) ) );
+		}
+		if ( ( present & 1 << 4 ) != 0 ) {
+			response.setTookSeconds( in.readSymbol() );
+		}
+		response.setTookNanos( AuditCodec.readLong( present, 5, in ) );
+		response.setFilterInNanos( AuditCodec.readLong( present, 6, in ) );
+		response.setHandlerNanos( AuditCodec.readLong( present, 7, in ) );
+		response.setSerializationNanos( AuditCodec.readLong( present, 8, in ) );
+		if ( ( present & 1 << 9 ) != 0 ) {
+			response.setBodyFingerprint( in.readString() );
+		}
+		return response;
+	}
+
+	public static void encode( AuditionDTO audition, BinaryEncoder out ) {
+		int present = AuditCodec.bit( 0, audition.getId() )
+				| AuditCodec.bit( 1, audition.getDescription() )
+				| AuditCodec.bit( 2, audition.getHeaders() )
+				| AuditCodec.bit( 3, audition.getRequestBody() )
+				| AuditCodec.bit( 4, audition.getRequestMethod() )
+				| AuditCodec.bit( 5, audition.getRequestUrl() )
+				| AuditCodec.bit( 6, audition.getResponseBody() )
+				| AuditCodec.bit( 7, audition.getResponseStatus() )
+				| AuditCodec.bit( 8, audition.getTookSeconds() )
+				| AuditCodec.bit( 9, audition.getTookMicros() )
+				| AuditCodec.bit( 10, audition.getFilterInMicros() )
+				| AuditCodec.bit( 11, audition.getHandlerMicros() )
+				| AuditCodec.bit( 12, audition.getSerializationMicros() );
+		out.writeVarInt( present );
+		if ( audition.getId() != null ) {
+			out.writeString( audition.getId() );
+		}
+		if ( audition.getDescription() != null ) {
+			out.writeSymbol( audition.getDescription() );
+		}
+		if ( audition.getHeaders() != null ) {
+			out.writeString( audition.getHeaders() );
+		}
+		if ( audition.getRequestBody() != null ) {
+			out.writeString( audition.getRequestBody() );
+		}
+		if ( audition.getRequestMethod() != null ) {
+			out.writeSymbol( audition.getRequestMethod() );
+		}
+		if ( audition.getRequestUrl() != null ) {
+			AuditCodec.writeUrl( audition.getRequestUrl(), out );
+		}
+		if ( audition.getResponseBody() != null ) {
+			out.writeString( audition.getResponseBody() );
+		}
+		if ( audition.getResponseStatus() != null ) {
+			out.writeVarInt( audition.getResponseStatus() );
+		}
+		if ( audition.getTookSeconds() != null ) {
+			out.writeSymbol( audition.getTookSeconds() );
+		}
+		AuditCodec.writeLong( audition.getTookMicros(), out );
+		AuditCodec.writeLong( audition.getFilterInMicros(), out );
+		AuditCodec.writeLong( audition.getHandlerMicros(), out );
+		AuditCodec.writeLong( audition.getSerializationMicros(), out );
+	}
+
+	public static AuditionDTO decodeAudition( BinaryDecoder in ) {
+		int present = in.readVarInt();
+		var audition = new AuditionDTO();
+		if ( ( present & 1 ) != 0 ) {
+			audition.setId( in.readString() );
+		}
+		if ( ( present & 1 << 1 ) != 0 ) {
+			audition.setDescription( in.readSymbol() );
+		}
+		if ( ( present & 1 << 2 ) != 0 ) {
+			audition.setHeaders( in.readString() );
+		}
+		if ( ( present & 1 << 3 ) != 0 ) {
+			audition.setRequestBody( in.readString() );
+		}
+		if ( ( present & 1 << 4 ) != 0 ) {
+			audition.setRequestMethod( in.readSymbol() );
+		}
+		if ( ( present & 1 << 5 ) != 0 ) {
+			audition.setRequestUrl( AuditCodec.readUrl( in ) );
+		}
+		if ( ( present & 1 << 6 ) != 0 ) {
+			audition.setResponseBody( in.readString() );
+		}
+		if ( ( present & 1 << 7 ) != 0 ) {
+			audition.setResponseStatus( in.readVarInt() );
+		}
+		if ( ( present & 1 << 8 ) != 0 ) {
+			audition.setTookSeconds( in.readSymbol() );
+		}
+		audition.setTookMicros( AuditCodec.readLong( present, 9, in ) );
+		audition.setFilterInMicros( AuditCodec.readLong( present, 10, in ) );
+		audition.setHandlerMicros( AuditCodec.readLong( present, 11, in ) );
+		audition.setSerializationMicros( AuditCodec.readLong( present, 12, in ) );
+		return audition;
+	}
+
+	private static int bit( int index, Object value ) {
+		return value != null ? 1 << index : 0;
+	}
+
+	private static void writeLong( Long value, BinaryEncoder out ) {
+		if ( value != null ) {
+			out.writeSignedVarLong( value );
+		}
+	}
+
+	private static Long readLong( int present, int index, BinaryDecoder in ) {
+		return ( present & 1 << index ) != 0 ? in.readSignedVarLong() : null;
+	}
+
+	/**
+	 * Scheme and authority go through the table, the rest is written as is.
+	 */
+	private static void writeUrl( String url, BinaryEncoder out ) {
+		int split = 0;
+		int scheme = url.indexOf( "://" );
+		if ( scheme > 0 ) {
+			split = url.length();
+			for ( int i = scheme + 3; i < url.length(); i++ ) {
+				char c = url.charAt( i );
+				if ( c == '/' || c == '?' || c == '#' ) {
+					split = i;
+					break;
+				}
+			}
+		}
+		out.writeSymbol( url.substring( 0, split ) );
+		out.writeString( url.substring( split ) );
+	}
+
+	private static String readUrl( BinaryDecoder in ) {
+		var origin = in.readSymbol();
+		var rest = in.readString();
+		return origin.isEmpty() ? rest : origin + rest;
+	}
+
+	/**
+	 * Deflated bodies are kept compressed when they do not depend on a
+	 * process-local preset dictionary.
+	 */
+	private static void writeBody( BodyContent body, BinaryEncoder out ) {
+		var charset = body.getCharset();
+		out.writeSymbol( charset.name() );
+		out.writeVarLong( body.getOriginalSize() );
+		if ( body.isCompressed() && body.getDictionaryId() == 0 ) {
+			var compressed = body.compressedArray();
+			out.writeVarInt( BODY_DEFLATED );
+			out.writeVarInt( body.length() );
+			out.writeBytes( compressed, 0, compressed.length );
+			return;
+		}
+		out.writeVarInt( 0 );
+		if ( body.isReleased() ) {
+			var encoded = body.asString().getBytes( charset );
+			out.writeBytes( encoded, 0, encoded.length );
+		} else {
+			out.writeBytes( body.array(), 0, body.length() );
+		}
+	}
+
+	private static BodyContent readBody( BinaryDecoder in, int version ) {
+		var charset = Charset.forName( in.readSymbol() );
+		long originalSize = in.readVarLong();
+		int flags = version >= 2 ? in.readVarInt() : 0;
+		if ( ( flags & BODY_DEFLATED ) != 0 ) {
+			int rawLength = in.readVarInt();
+			return BodyContent.deflated( in.readBytes(), rawLength, charset, originalSize, 0 );
+		}
+		var bytes = in.readBytes();
+		return BodyContent.of( bytes, bytes.length, charset, originalSize );
+	}
+
+	private static void writeHeaders( Map< String, List< String > > headers, BinaryEncoder out ) {
+		out.writeVarInt( headers.size() );
+		for ( Map.Entry< String, List< String > > header : headers.entrySet() ) {
+			out.writeSymbol( header.getKey() );
+			var values = header.getValue();
+			if ( values == null ) {
+				out.writeVarInt( 0 );
+				continue;
+			}
+			boolean symbols = HeaderDictionary.hasRepeatedValues( header.getKey() );
+			out.writeVarInt( values.size() + 1 );
+			for ( String value : values ) {
+				if ( symbols ) {
+					out.writeSymbol( value );
+				} else {
+					out.writeString( value );
+				}
+			}
+		}
+	}
+
+	private static Map< String, List< String > > readHeaders( BinaryDecoder in ) {
+		int size = in.readVarInt();
+		Map< String, List< String > > headers = new LinkedHashMap<>( size * 2 );
+		for ( int i = 0; i < size; i++ ) {
+			var name = in.readSymbol();
+			int count = in.readVarInt();
+			if ( count == 0 ) {
+				headers.put( name, null );
+				continue;
+			}
+			boolean symbols = HeaderDictionary.hasRepeatedValues( name );
+			List< String > values = new ArrayList<>( count - 1 );
+			for ( int j = 1; j < count; j++ ) {
+				values.add( symbols ? in.readSymbol() : in.readString() );
+			}
+			headers.put( name, values );
+		}
+		return CompactHeaders.of( headers );
+	}
+
+}
@@ -0,0 +1,100 @@
+package br.com.potio.core.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what {@link BinaryEncoder} wrote, straight from a {@link ByteBuffer}.
+ * Truncated input surfaces as {@link BufferUnderflowException}.
+ */
+public final class BinaryDecoder {
+
+	private final StringTable table;
+	private ByteBuffer source;
+
+	public BinaryDecoder( StringTable table ) {
+		this.table = table;
+	}
+
+	public BinaryDecoder( StringTable table, ByteBuffer source ) {
+		this.table = table;
+		this.source = source;
+	}
+
+	public BinaryDecoder source( ByteBuffer source ) {
+		this.source = source;
+		return this;
+	}
+
+	public StringTable getTable() {
+		return this.table;
+	}
+
+	public int readByte() {
+		return this.source.get() & 0xFF;
+	}
+
+	public long readVarLong() {
+		long value = 0;
+		for ( int shift = 0; shift < 64; shift += 7 ) {
+			byte b = this.source.get();
+			value |= ( long ) ( b & 0x7F ) << shift;
+			if ( b >= 0 ) {
+				return value;
+			}
+		}
+		throw new IllegalStateException( "Malformed varint" );
+	}
+
+	public int readVarInt() {
+		return ( int ) this.readVarLong();
+	}
+
+	public long readSignedVarLong() {
+		long value = this.readVarLong();
+		return ( value >>> 1 ) ^ -( value & 1 );
+	}
+
+	public String readString() {
+		int tag = this.readVarInt();
+		return tag == 0 ? null : this.readUtf8( tag - 1 );
+	}
+
+	public String readSymbol() {
+		int tag = this.readVarInt();
+		if ( tag == 0 ) {
+			return null;
+		}
+		if ( ( tag & 1 ) == 0 ) {
+			return this.table.get( ( tag >>> 1 ) - 1 );
+		}
+		var value = this.readUtf8( tag >>> 1 );
+		this.table.add( value );
+		return value;
+	}
+
+	public byte[] readBytes() {
+		var bytes = new byte[ this.readVarInt() ];
+		this.source.get( bytes );
+		return bytes;
+	}
+
+	private String readUtf8( int length ) {
+		if ( length > this.source.remaining() ) {
+			throw new BufferUnderflowException();
+		}
+		String value;
+		if ( this.source.hasArray() ) {
+			value = new String( this.source.array(), this.source.arrayOffset() + this.source.position(), length,
+					StandardCharsets.UTF_8 );
+			this.source.position( this.source.position() + length );
+		} else {
+			var bytes = new byte[ length ];
+			this.source.get( bytes );
+			value = new String( bytes, StandardCharsets.UTF_8 );
+		}
+		return value;
+	}
+
+}
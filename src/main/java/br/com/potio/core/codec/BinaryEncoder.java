@@ -0,0 +1,147 @@
+package br.com.potio.core.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming writer of varints, UTF-8 strings and dictionary symbols straight
+ * into a {@link ByteBuffer}. Running out of room surfaces as the buffer's
+ * {@link java.nio.BufferOverflowException}; the position is then undefined
+ * and the caller is expected to rewind it.
+ */
+public final class BinaryEncoder {
+
+	private final StringTable table;
+	private ByteBuffer target;
+
+	public BinaryEncoder( StringTable table ) {
+		this.table = table;
+	}
+
+	public BinaryEncoder( StringTable table, ByteBuffer target ) {
+		this.table = table;
+		this.target = target;
+	}
+
+	public BinaryEncoder target( ByteBuffer target ) {
+		this.target = target;
+		return this;
+	}
+
+	public StringTable getTable() {
+		return this.table;
+	}
+
+	public void writeByte( int value ) {
+		this.target.put( ( byte ) value );
+	}
+
+	/**
+	 * Unsigned LEB128, 1 byte up to 127 and at most 10 bytes.
+	 */
+	public void writeVarLong( long value ) {
+		while ( ( value & ~0x7FL ) != 0 ) {
+			this.target.put( ( byte ) ( ( value & 0x7F ) | 0x80 ) );
+			value >>>= 7;
+		}
+		this.target.put( ( byte ) value );
+	}
+
+	public void writeVarInt( int value ) {
+		this.writeVarLong( value & 0xFFFFFFFFL );
+	}
+
+	/**
+	 * Zig-zag encoded, for values that may be negative.
+	 */
+	public void writeSignedVarLong( long value ) {
+		this.writeVarLong( ( value << 1 ) ^ ( value >> 63 ) );
+	}
+
+	/**
+	 * Nullable string as {@code varint(length + 1)} followed by UTF-8 bytes;
+	 * 0 stands for {@code null}.
+	 */
+	public void writeString( String value ) {
+		if ( value == null ) {
+			this.writeVarInt( 0 );
+			return;
+		}
+		this.writeVarInt( BinaryEncoder.utf8Length( value ) + 1 );
+		this.writeUtf8( value );
+	}
+
+	/**
+	 * Nullable string that is likely to repeat. Known strings take a table
+	 * reference {@code varint((id + 1) << 1)}, others are written as
+	 * {@code varint(length << 1 | 1)} plus UTF-8 and learned; 0 stands for
+	 * {@code null}.
+	 */
+	public void writeSymbol( String value ) {
+		if ( value == null ) {
+			this.writeVarInt( 0 );
+			return;
+		}
+		int id = this.table.idOf( value );
+		if ( id >= 0 ) {
+			this.writeVarInt( ( id + 1 ) << 1 );
+			return;
+		}
+		this.writeVarInt( ( BinaryEncoder.utf8Length( value ) << 1 ) | 1 );
+		this.writeUtf8( value );
+		this.table.add( value );
+	}
+
+	public void writeBytes( byte[] bytes, int offset, int length ) {
+		this.writeVarInt( length );
+		this.target.put( bytes, offset, length );
+	}
+
+	static int utf8Length( String value ) {
+		int length = value.length();
+		int bytes = length;
+		for ( int i = 0; i < length; i++ ) {
+			char c = value.charAt( i );
+			if ( c >= 0x80 ) {
+				if ( c < 0x800 ) {
+					bytes++;
+				} else if ( Character.isHighSurrogate( c ) && i + 1 < length
+						&& Character.isLowSurrogate( value.charAt( i + 1 ) ) ) {
+					bytes += 2;
+					i++;
+				} else if ( !Character.isSurrogate( c ) ) {
+					bytes += 2;
+				}
+			}
+		}
+		return bytes;
+	}
+
+	private void writeUtf8( String value ) {
+		var out = this.target;
+		int length = value.length();
+		for ( int i = 0; i < length; i++ ) {
+			char c = value.charAt( i );
+			if ( c < 0x80 ) {
+				out.put( ( byte ) c );
+			} else if ( c < 0x800 ) {
+				out.put( ( byte ) ( 0xC0 | ( c >> 6 ) ) );
+				out.put( ( byte ) ( 0x80 | ( c & 0x3F ) ) );
+			} else if ( Character.isHighSurrogate( c ) && i + 1 < length
+					&& Character.isLowSurrogate( value.charAt( i + 1 ) ) ) {
+				int cp = Character.toCodePoint( c, value.charAt( ++i ) );
+				out.put( ( byte ) ( 0xF0 | ( cp >> 18 ) ) );
+				out.put( ( byte ) ( 0x80 | ( ( cp >> 12 ) & 0x3F ) ) );
+				out.put( ( byte ) ( 0x80 | ( ( cp >> 6 ) & 0x3F ) ) );
+				out.put( ( byte ) ( 0x80 | ( cp & 0x3F ) ) );
+			} else if ( Character.isSurrogate( c ) ) {
+				// unpaired, replaced like String.getBytes does
+				out.put( ( byte ) '?' );
+			} else {
+				out.put( ( byte ) ( 0xE0 | ( c >> 12 ) ) );
+				out.put( ( byte ) ( 0x80 | ( ( c >> 6 ) & 0x3F ) ) );
+				out.put( ( byte ) ( 0x80 | ( c & 0x3F ) ) );
+			}
+		}
+	}
+
+}
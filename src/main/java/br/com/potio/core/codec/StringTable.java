@@ -0,0 +1,85 @@
+package br.com.potio.core.codec;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary of repeated strings shared by a {@link BinaryEncoder} and the
+ * matching {@link BinaryDecoder}. Both sides start from the same static
+ * entries and learn new ones in the same order, so a table is only valid for
+ * one stream of records read in the order they were written.
+ *
+ * The static entries are part of the wire format: append only, never
+ * reorder.
+ */
+public final class StringTable {
+
+	public static final int DEFAULT_MAX_ENTRIES = 4096;
+
+	private static final String[] STATIC_ENTRIES = {
+			"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS",
+			"UTF-8", "ISO-8859-1", "US-ASCII", "UTF-16",
+			"Accept", "Accept-Encoding", "Accept-Language", "Authorization", "Cache-Control", "Connection",
+			"Content-Encoding", "Content-Length", "Content-Type", "Cookie", "Date", "ETag", "Host",
+			"If-None-Match", "Location", "Origin", "Referer", "Server", "Set-Cookie", "Transfer-Encoding",
+			"User-Agent", "Vary", "X-Forwarded-For", "X-Forwarded-Proto", "X-Request-Id",
+			"accept", "accept-encoding", "accept-language", "authorization", "cache-control", "connection",
+			"content-encoding", "content-length", "content-type", "cookie", "date", "etag", "host",
+			"if-none-match", "location", "origin", "referer", "server", "set-cookie", "transfer-encoding",
+			"user-agent", "vary", "x-forwarded-for", "x-forwarded-proto", "x-request-id",
+			"application/json", "application/xml", "text/plain", "text/html", "*/*", "gzip", "deflate", "br",
+			"keep-alive", "close", "chunked", "no-cache", "< 1s" };
+
+	private final Map< String, Integer > ids;
+	private final List< String > entries;
+	private final int maxEntries;
+
+	public StringTable() {
+		this( DEFAULT_MAX_ENTRIES );
+	}
+
+	/**
+	 * @param maxEntries table size after which new strings are no longer
+	 *                   learned; must match on both sides
+	 */
+	public StringTable( int maxEntries ) {
+		this.maxEntries = Math.max( maxEntries, STATIC_ENTRIES.length );
+		this.ids = new HashMap<>( this.maxEntries * 2 );
+		this.entries = new ArrayList<>( this.maxEntries );
+		for ( String entry : STATIC_ENTRIES ) {
+			this.add( entry );
+		}
+	}
+
+	/**
+	 * @return id of {@code value}, or -1 when it is not in the table
+	 */
+	public int idOf( String value ) {
+		var id = this.ids.get( value );
+		return id == null ? -1 : id;
+	}
+
+	public String get( int id ) {
+		if ( id < 0 || id >= this.entries.size() ) {
+			throw new IllegalArgumentException( "Unknown string table id " + id );
+		}
+		return this.entries.get( id );
+	}
+
+	/**
+	 * Learns {@code value} unless the table is full or already knows it.
+	 */
+	void add( String value ) {
+		if ( this.entries.size() < this.maxEntries && !this.ids.containsKey( value ) ) {
+			this.ids.put( value, this.entries.size() );
+			this.entries.add( value );
+		}
+	}
+
+	public int size() {
+		return this.entries.size();
+	}
+
+}
@@ -0,0 +1,286 @@
+package br.com.potio.core.compression;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+
+import br.com.potio.core.dto.BodyContent;
+import br.com.potio.core.dto.RequestDTO;
+import br.com.potio.core.dto.ResponseDTO;
+import br.com.potio.core.routing.RouteKeys;
+
+/**
+ * Deflates captured bodies on the request thread, right before the record is
+ * queued, so in-flight records hold compressed bytes instead of raw ones.
+ * Optionally trains a preset dictionary per route from the payloads it sees,
+ * which pays off on the small, similar JSON bodies of a given endpoint.
+ */
+public class BodyCompressor {
+
+	private static final BodyCompressor NONE = new BodyCompressor( Integer.MAX_VALUE, Deflater.BEST_SPEED, 0, 0,
+			0, null );
+	private static final int DEFAULT_MIN_SIZE = 512;
+	private static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+	private static final int DEFAULT_MAX_ROUTES = 256;
+	private static final int DEFAULT_RETRAIN_INTERVAL = 10_000;
+	private static final int MAX_SAMPLE_SIZE = 2048;
+
+	private final int minSize;
+	private final int level;
+	private final int dictionarySize;
+	private final int maxRoutes;
+	private final int retrainInterval;
+	private final Function< RequestDTO, String > routeKey;
+	private final ConcurrentHashMap< String, RouteDictionary > routes = new ConcurrentHashMap<>();
+
+	BodyCompressor( int minSize, int level, int dictionarySize, int maxRoutes, int retrainInterval,
+			Function< RequestDTO, String > routeKey ) {
+		this.minSize = minSize;
+		this.level = level;
+		this.dictionarySize = dictionarySize;
+		this.maxRoutes = maxRoutes;
+		this.retrainInterval = retrainInterval;
+		this.routeKey = routeKey;
+	}
+
+	/**
+	 * Compressor that leaves every body as it is.
+	 */
+	public static BodyCompressor none() {
+		return NONE;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public void compress( RequestDTO request, ResponseDTO response ) {
+		if ( this == NONE ) {
+			return;
+		}
+		var route = this.dictionarySize > 0 && request != null ? this.route( request ) : null;
+		if ( request != null ) {
+			request.setBodyContent( this.compress( request.getBodyContent(), route, 0 ) );
+		}
+		if ( response != null ) {
+			response.setBodyContent( this.compress( response.getBodyContent(), route, 1 ) );
+		}
+	}
+
+	/**
+	 * @return a deflated copy of {@code body}, releasing the original, or
+	 *         {@code body} itself when it is small or does not shrink
+	 */
+	public BodyContent compress( BodyContent body ) {
+		return this.compress( body, null, 0 );
+	}
+
+	private BodyContent compress( BodyContent body, RouteDictionary route, int direction ) {
+		if ( body == null || body.isCompressed() || body.isReleased() || body.length() < this.minSize ) {
+			return body;
+		}
+		var bytes = body.array();
+		int length = body.length();
+		byte[] dictionary = null;
+		int dictionaryId = 0;
+		if ( route != null ) {
+			var trainer = route.trainers[ direction ];
+			var trained = trainer.dictionary;
+			// held by the compressed body until it is released
+			if ( trained != null && PresetDictionaries.acquire( trained.id ) ) {
+				dictionary = trained.bytes;
+				dictionaryId = trained.id;
+			}
+			trainer.sample( bytes, length );
+		}
+		// not worth keeping unless it saves at least an eighth
+		var compressed = Deflate.deflate( bytes, 0, length, this.level, dictionary, length - ( length >>> 3 ) );
+		if ( compressed == null ) {
+			if ( dictionaryId != 0 ) {
+				PresetDictionaries.release( dictionaryId );
+			}
+			return body;
+		}
+		var result = BodyContent.deflated( compressed, length, body.getCharset(), body.getOriginalSize(),
+				dictionaryId );
+		body.release();
+		return result;
+	}
+
+	/**
+	 * Retires the trained dictionaries, which are forgotten once the bodies
+	 * compressed with them are released.
+	 */
+	public void close() {
+		for ( var route : this.routes.values() ) {
+			for ( var trainer : route.trainers ) {
+				trainer.retire();
+			}
+		}
+	}
+
+	private RouteDictionary route( RequestDTO request ) {
+		var key = this.routeKey.apply( request );
+		if ( key == null ) {
+			return null;
+		}
+		var route = this.routes.get( key );
+		if ( route == null && this.routes.size() < this.maxRoutes ) {
+			route = this.routes.computeIfAbsent( key, k -> new RouteDictionary() );
+		}
+		return route;
+	}
+
+	/**
+	 * Method plus route template, or URL path with segments holding digits
+	 * collapsed, so {@code /orders/42} and {@code /orders/43} share a
+	 * dictionary.
+	 */
+	static String defaultRouteKey( RequestDTO request ) {
+		if ( request.getRouteTemplate() != null ) {
+			return RouteKeys.of( request.getMethodName(), request.getRouteTemplate(), null );
+		}
+		if ( request.getUrl() == null ) {
+			return null;
+		}
+		try {
+			return RouteKeys.of( request.getMethodName(), URI.create( request.getUrl() ).getRawPath() );
+		} catch ( IllegalArgumentException e ) {
+			return null;
+		}
+	}
+
+	private static final class Dictionary {
+		final byte[] bytes;
+		final int id;
+
+		Dictionary( byte[] bytes ) {
+			this.bytes = bytes;
+			this.id = PresetDictionaries.register( bytes );
+		}
+	}
+
+	/**
+	 * Dictionaries of one route, for request and response bodies.
+	 */
+	private final class RouteDictionary {
+		final Trainer[] trainers = { new Trainer(), new Trainer() };
+	}
+
+	/**
+	 * Builds a dictionary from the heads of consecutive bodies, then again
+	 * every {@code retrainInterval} bodies so it follows payload changes.
+	 */
+	private final class Trainer {
+		volatile Dictionary dictionary;
+		private volatile boolean collecting = true;
+		private final AtomicInteger seen = new AtomicInteger();
+		private byte[] sample;
+		private int filled;
+
+		void sample( byte[] bytes, int length ) {
+			if ( !this.collecting && this.seen.incrementAndGet() < BodyCompressor.this.retrainInterval ) {
+				return;
+			}
+			synchronized ( this ) {
+				if ( !this.collecting ) {
+					if ( this.seen.get() < BodyCompressor.this.retrainInterval ) {
+						return;
+					}
+					this.collecting = true;
+					this.seen.set( 0 );
+				}
+				if ( this.sample == null ) {
+					this.sample = new byte[ BodyCompressor.this.dictionarySize ];
+				}
+				int n = Math.min( Math.min( length, MAX_SAMPLE_SIZE ), this.sample.length - this.filled );
+				System.arraycopy( bytes, 0, this.sample, this.filled, n );
+				this.filled += n;
+				if ( this.filled == this.sample.length ) {
+					this.retire();
+					this.dictionary = new Dictionary( this.sample );
+					this.sample = null;
+					this.filled = 0;
+					this.collecting = false;
+				}
+			}
+		}
+
+		synchronized void retire() {
+			var previous = this.dictionary;
+			if ( previous != null ) {
+				PresetDictionaries.retire( previous.id );
+			}
+		}
+	}
+
+	public static class Builder {
+		private int minSize = DEFAULT_MIN_SIZE;
+		private int level = Deflater.BEST_SPEED;
+		private int dictionarySize;
+		private int maxRoutes = DEFAULT_MAX_ROUTES;
+		private int retrainInterval = DEFAULT_RETRAIN_INTERVAL;
+		private Function< RequestDTO, String > routeKey = BodyCompressor::defaultRouteKey;
+
+		/**
+		 * Bodies smaller than this are left uncompressed.
+		 */
+		public Builder withMinSize( int minSize ) {
+			this.minSize = minSize;
+			return this;
+		}
+
+		/**
+		 * Deflate level, {@link Deflater#BEST_SPEED} by default.
+		 */
+		public Builder withLevel( int level ) {
+			this.level = level;
+			return this;
+		}
+
+		/**
+		 * Trains preset dictionaries per route from recent payloads.
+		 */
+		public Builder withRouteDictionaries() {
+			this.dictionarySize = DEFAULT_DICTIONARY_SIZE;
+			return this;
+		}
+
+		/**
+		 * Size of each trained dictionary, at most 32 KB, which is all deflate
+		 * can refer back to.
+		 */
+		public Builder withDictionarySize( int dictionarySize ) {
+			this.dictionarySize = Math.min( dictionarySize, 32 * 1024 );
+			return this;
+		}
+
+		public Builder withMaxRoutes( int maxRoutes ) {
+			this.maxRoutes = maxRoutes;
+			return this;
+		}
+
+		/**
+		 * Bodies between two retrainings of a route's dictionary.
+		 */
+		public Builder withRetrainInterval( int retrainInterval ) {
+			this.retrainInterval = retrainInterval;
+			return this;
+		}
+
+		public Builder withRouteKey( Function< RequestDTO, String > routeKey ) {
+			this.routeKey = routeKey;
+			return this;
+		}
+
+		public BodyCompressor build() {
+			if ( retrainInterval < 1 ) {
+				throw new IllegalArgumentException( "Retrain interval must be positive" );
+			}
+			return new BodyCompressor( minSize, level, dictionarySize, maxRoutes, retrainInterval, routeKey );
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package br.com.potio.core.compression;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate helpers working on reusable per-thread {@link Deflater}s, so
+ * request threads never allocate native zlib streams per body.
+ */
+public final class Deflate {
+
+	private static final ThreadLocal< Deflater > DEFLATERS = new ThreadLocal<>();
+	private static final ThreadLocal< byte[] > SCRATCH = ThreadLocal.withInitial( () -> new byte[ 4096 ] );
+	private static final int MAX_RETAINED_SCRATCH = 256 * 1024;
+
+	private Deflate() {
+	}
+
+	/**
+	 * @param dictionary preset dictionary, or {@code null}
+	 * @return the compressed bytes, or {@code null} when they would not be
+	 *         smaller than {@code maxLength}
+	 */
+	public static byte[] deflate( byte[] input, int offset, int length, int level, byte[] dictionary,
+			int maxLength ) {
+		var deflater = Deflate.deflater( level );
+		try {
+			if ( dictionary != null ) {
+				deflater.setDictionary( dictionary );
+			}
+			deflater.setInput( input, offset, length );
+			deflater.finish();
+			var out = SCRATCH.get();
+			int size = 0;
+			while ( !deflater.finished() ) {
+				if ( size == out.length ) {
+					if ( size >= maxLength ) {
+						return null;
+					}
+					out = Arrays.copyOf( out, Math.min( out.length * 2, Math.max( maxLength, 64 ) ) );
+					if ( out.length <= MAX_RETAINED_SCRATCH ) {
+						SCRATCH.set( out );
+					}
+				}
+				size += deflater.deflate( out, size, out.length - size );
+			}
+			return size < maxLength ? Arrays.copyOf( out, size ) : null;
+		} finally {
+			deflater.reset();
+		}
+	}
+
+	/**
+	 * @param dictionaryId id from {@link PresetDictionaries}, 0 for none
+	 */
+	public static byte[] inflate( byte[] input, int offset, int length, int rawLength, int dictionaryId ) {
+		var inflater = new Inflater();
+		try {
+			inflater.setInput( input, offset, length );
+			var out = new byte[ rawLength ];
+			int size = 0;
+			while ( size < rawLength && !inflater.finished() ) {
+				int n = inflater.inflate( out, size, rawLength - size );
+				if ( n == 0 && inflater.needsDictionary() ) {
+					var dictionary = PresetDictionaries.lookup( dictionaryId, inflater.getAdler() );
+					if ( dictionary == null ) {
+						throw new IllegalStateException( "Preset dictionary " + dictionaryId
+								+ " is no longer available" );
+					}
+					inflater.setDictionary( dictionary );
+				} else if ( n == 0 && ( inflater.needsInput() || inflater.finished() ) ) {
+					break;
+				}
+				size += n;
+			}
+			if ( size != rawLength ) {
+				throw new IllegalStateException( "Compressed body is truncated" );
+			}
+			return out;
+		} catch ( DataFormatException e ) {
+			throw new IllegalStateException( "Corrupt compressed body", e );
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static Deflater deflater( int level ) {
+		var deflater = DEFLATERS.get();
+		if ( deflater == null ) {
+			deflater = new Deflater( level );
+			DEFLATERS.set( deflater );
+		} else {
+			deflater.setLevel( level );
+		}
+		return deflater;
+	}
+
+}
@@ -0,0 +1,166 @@
+package br.com.potio.core.compression;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Adler32;
+
+/**
+ * Process-wide registry of the preset dictionaries bodies were deflated
+ * with, under sequential ids; the Adler-32 checksum deflate stores in the
+ * stream only verifies the match.
+ *
+ * A dictionary lives while its route still uses it or a compressed body
+ * still references it: bodies {@link #acquire(int)} it when deflated and
+ * {@link #release(int)} it once delivered, and retraining
+ * {@link #retire(int)}s the one it replaces. Retired dictionaries kept alive
+ * by bodies that were never released are bounded by size; past that the
+ * oldest are dropped and those bodies can no longer be inflated.
+ *
+ * Acquiring, releasing and looking up run for every compressed body and
+ * take no lock; only registering and retiring do.
+ */
+public final class PresetDictionaries {
+
+	private static final Logger logger = Logger.getLogger( PresetDictionaries.class.getName() );
+	private static final long MAX_RETIRED_BYTES = 4L * 1024 * 1024;
+
+	private static final Map< Integer, Entry > DICTIONARIES = new ConcurrentHashMap<>();
+	// guards the fields below
+	private static final Object LOCK = new Object();
+	private static final ArrayDeque< Integer > retiredOrder = new ArrayDeque<>();
+	private static int lastId;
+	private static long retiredBytes;
+
+	private PresetDictionaries() {
+	}
+
+	/**
+	 * @return the id to find {@code dictionary} again, never 0
+	 */
+	public static int register( byte[] dictionary ) {
+		var adler = new Adler32();
+		adler.update( dictionary );
+		synchronized ( LOCK ) {
+			do {
+				lastId++;
+			} while ( lastId == 0 || DICTIONARIES.containsKey( lastId ) );
+			DICTIONARIES.put( lastId, new Entry( dictionary, ( int ) adler.getValue() ) );
+			return lastId;
+		}
+	}
+
+	/**
+	 * Marks a body as deflated with the dictionary.
+	 *
+	 * @return {@code false} when the dictionary is gone, so it must not be used
+	 */
+	public static boolean acquire( int id ) {
+		var entry = DICTIONARIES.get( id );
+		if ( entry == null ) {
+			return false;
+		}
+		for ( ;; ) {
+			int references = entry.references.get();
+			if ( references < 0 ) {
+				// being removed
+				return false;
+			}
+			if ( entry.references.compareAndSet( references, references + 1 ) ) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Drops the reference of a body, forgetting a retired dictionary once no
+	 * body references it.
+	 */
+	public static void release( int id ) {
+		var entry = DICTIONARIES.get( id );
+		if ( entry == null ) {
+			return;
+		}
+		for ( ;; ) {
+			int references = entry.references.get();
+			if ( references <= 0 ) {
+				return;
+			}
+			if ( entry.references.compareAndSet( references, references - 1 ) ) {
+				if ( references == 1 && entry.retired ) {
+					PresetDictionaries.removeUnreferenced( id, entry );
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * No new body will be deflated with the dictionary; it is forgotten once
+	 * the bodies referencing it are released.
+	 */
+	public static void retire( int id ) {
+		synchronized ( LOCK ) {
+			var entry = DICTIONARIES.get( id );
+			if ( entry == null || entry.retired ) {
+				return;
+			}
+			entry.retired = true;
+			retiredBytes += entry.bytes.length;
+			retiredOrder.add( id );
+			PresetDictionaries.removeUnreferenced( id, entry );
+			while ( retiredBytes > MAX_RETIRED_BYTES && !retiredOrder.isEmpty() ) {
+				var oldestId = retiredOrder.poll();
+				var oldest = DICTIONARIES.remove( oldestId );
+				if ( oldest != null ) {
+					int references = oldest.references.getAndSet( -1 );
+					PresetDictionaries.logger.log( Level.FINE, "Dropping preset dictionary " + oldestId
+							+ " still referenced by " + references + " bodies" );
+					retiredBytes -= oldest.bytes.length;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param adler checksum the deflate stream expects
+	 * @return the dictionary registered under {@code id}, or {@code null}
+	 *         when it is gone or is not the one the stream was deflated with
+	 */
+	public static byte[] lookup( int id, int adler ) {
+		var entry = DICTIONARIES.get( id );
+		return entry != null && entry.adler == adler ? entry.bytes : null;
+	}
+
+	/**
+	 * Removes a retired entry unless a body still references it; once marked
+	 * with -1 references it can no longer be acquired.
+	 */
+	private static void removeUnreferenced( int id, Entry entry ) {
+		if ( !entry.references.compareAndSet( 0, -1 ) ) {
+			return;
+		}
+		synchronized ( LOCK ) {
+			if ( DICTIONARIES.remove( id, entry ) ) {
+				retiredBytes -= entry.bytes.length;
+				retiredOrder.remove( id );
+			}
+		}
+	}
+
+	private static final class Entry {
+		final byte[] bytes;
+		final int adler;
+		final AtomicInteger references = new AtomicInteger();
+		volatile boolean retired;
+
+		Entry( byte[] bytes, int adler ) {
+			this.bytes = bytes;
+			this.adler = adler;
+		}
+	}
+
+}
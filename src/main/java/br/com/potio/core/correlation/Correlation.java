@@ -0,0 +1,118 @@
+package br.com.potio.core.correlation;
+
+/**
+ * Position of an exchange in a fan-out tree: its own id, the id of the
+ * exchange that caused it and the id of the root of the tree; 0 stands for
+ * none.
+ *
+ * The server exchange being handled is the current correlation of its
+ * thread, so client calls made while handling it become its children. Work
+ * handed to other threads keeps the link through {@link #wrap(Runnable)},
+ * which is also how code resuming a suspended request, or completing its
+ * {@code CompletionStage}, keeps it. Once the exchange is over, see
+ * {@link #clear(Correlation)}, it is no longer current on any thread, so
+ * the worker that returned to its pool after suspending the request does
+ * not lend it to unrelated work.
+ * Across services the link travels in the {@link #PARENT_HEADER} and
+ * {@link #ROOT_HEADER} headers.
+ */
+public final class Correlation {
+
+	public static final String PARENT_HEADER = "X-Audit-Parent-Id";
+	public static final String ROOT_HEADER = "X-Audit-Root-Id";
+
+	private static final ThreadLocal< Correlation > CURRENT = new ThreadLocal<>();
+
+	private final long id;
+	private final long parentId;
+	private final long rootId;
+	private volatile boolean ended;
+
+	private Correlation( long id, long parentId, long rootId ) {
+		this.id = id;
+		this.parentId = parentId;
+		this.rootId = rootId;
+	}
+
+	/**
+	 * A new exchange, child of the one identified by the propagation headers
+	 * when present, a root otherwise.
+	 */
+	public static Correlation fromHeaders( String parentHeader, String rootHeader ) {
+		long id = CorrelationIds.next();
+		long parentId = CorrelationIds.parse( parentHeader );
+		if ( parentId == 0 ) {
+			return new Correlation( id, 0, id );
+		}
+		long rootId = CorrelationIds.parse( rootHeader );
+		return new Correlation( id, parentId, rootId != 0 ? rootId : parentId );
+	}
+
+	/**
+	 * A new exchange, child of the current one of this thread when there is
+	 * one, a root otherwise.
+	 */
+	public static Correlation next() {
+		var parent = Correlation.current();
+		long id = CorrelationIds.next();
+		return parent == null ? new Correlation( id, 0, id ) : new Correlation( id, parent.id, parent.rootId );
+	}
+
+	public static Correlation current() {
+		var current = CURRENT.get();
+		if ( current != null && current.ended ) {
+			CURRENT.remove();
+			return null;
+		}
+		return current;
+	}
+
+	public static void setCurrent( Correlation correlation ) {
+		CURRENT.set( correlation );
+	}
+
+	/**
+	 * Ends {@code correlation}: cleared from this thread if still current,
+	 * and no longer current on the threads it was left on, such as the one
+	 * that suspended an asynchronous request.
+	 */
+	public static void clear( Correlation correlation ) {
+		correlation.ended = true;
+		if ( CURRENT.get() == correlation ) {
+			CURRENT.remove();
+		}
+	}
+
+	/**
+	 * Runs {@code task} with the current correlation of the calling thread,
+	 * e.g. when submitting to an executor or resuming a suspended request;
+	 * the task keeps it even if it runs after the exchange is over.
+	 */
+	public static Runnable wrap( Runnable task ) {
+		var current = Correlation.current();
+		// a copy, so ending the exchange does not take it from the task
+		var captured = current == null ? null : new Correlation( current.id, current.parentId, current.rootId );
+		return () -> {
+			var previous = CURRENT.get();
+			CURRENT.set( captured );
+			try {
+				task.run();
+			} finally {
+				CURRENT.set( previous );
+			}
+		};
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public long getParentId() {
+		return parentId;
+	}
+
+	public long getRootId() {
+		return rootId;
+	}
+
+}
@@ -0,0 +1,116 @@
+package br.com.potio.core.correlation;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 64-bit exchange ids: 41 bits of milliseconds since 2024, 10 bits of node
+ * and 13 bits of sequence. Threads take the sequence numbers of a
+ * millisecond in blocks of 32 with one CAS on a shared word, so they meet
+ * at most once every 32 ids instead of on every one. When a millisecond runs
+ * out of blocks the next one is borrowed, so ids stay unique.
+ *
+ * Ids are unique per node; set the node with the
+ * {@code br.com.potio.http_auditor.node} system property or the
+ * {@code HTTP_AUDITOR_NODE} environment variable (0 to 1023), otherwise a
+ * random one is picked at startup.
+ */
+public final class CorrelationIds {
+
+	private static final Logger logger = Logger.getLogger( CorrelationIds.class.getName() );
+	private static final long EPOCH = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+	private static final int NODE_BITS = 10;
+	private static final int SEQUENCE_BITS = 13;
+	private static final int BLOCK_BITS = 5;
+	private static final int BLOCKS_PER_MILLI_BITS = SEQUENCE_BITS - BLOCK_BITS;
+	private static final String NODE_PROPERTY = "br.com.potio.http_auditor.node";
+	private static final String NODE_VARIABLE = "HTTP_AUDITOR_NODE";
+
+	static final int NODE = CorrelationIds.resolveNode();
+
+	// next free block, counted as millis << BLOCKS_PER_MILLI_BITS | block
+	private static final AtomicLong NEXT_BLOCK = new AtomicLong();
+	// next id, end of the block and its millisecond
+	private static final ThreadLocal< long[] > BLOCK = ThreadLocal.withInitial( () -> new long[ 3 ] );
+
+	private CorrelationIds() {
+	}
+
+	/**
+	 * @return a new id, never 0
+	 */
+	public static long next() {
+		var block = BLOCK.get();
+		long now = System.currentTimeMillis() - EPOCH;
+		if ( block[ 0 ] == block[ 1 ] || block[ 2 ] < now ) {
+			CorrelationIds.reserve( block, now );
+		}
+		return block[ 0 ]++;
+	}
+
+	/**
+	 * Sixteen hexadecimal digits, the form carried in headers and DTOs.
+	 */
+	public static String format( long id ) {
+		return CorrelationIds.appendTo( new StringBuilder( 16 ), id ).toString();
+	}
+
+	public static StringBuilder appendTo( StringBuilder builder, long id ) {
+		for ( int shift = 60; shift >= 0; shift -= 4 ) {
+			builder.append( Character.forDigit( ( int ) ( id >>> shift ) & 0xf, 16 ) );
+		}
+		return builder;
+	}
+
+	/**
+	 * @return the id, or 0 when {@code hex} is absent or malformed
+	 */
+	public static long parse( String hex ) {
+		if ( hex == null || hex.isEmpty() || hex.length() > 16 ) {
+			return 0;
+		}
+		try {
+			return Long.parseUnsignedLong( hex, 16 );
+		} catch ( NumberFormatException e ) {
+			return 0;
+		}
+	}
+
+	private static void reserve( long[] block, long now ) {
+		long floor = now << BLOCKS_PER_MILLI_BITS;
+		long reserved;
+		while ( true ) {
+			long current = NEXT_BLOCK.get();
+			reserved = Math.max( current, floor );
+			if ( NEXT_BLOCK.compareAndSet( current, reserved + 1 ) ) {
+				break;
+			}
+		}
+		long millis = reserved >>> BLOCKS_PER_MILLI_BITS;
+		long sequence = ( reserved & ( ( 1 << BLOCKS_PER_MILLI_BITS ) - 1 ) ) << BLOCK_BITS;
+		long first = millis << ( NODE_BITS + SEQUENCE_BITS ) | ( long ) NODE << SEQUENCE_BITS | sequence;
+		// id 0 means none
+		block[ 0 ] = first == 0 ? 1 : first;
+		block[ 1 ] = first + ( 1 << BLOCK_BITS );
+		block[ 2 ] = millis;
+	}
+
+	private static int resolveNode() {
+		var configured = System.getProperty( NODE_PROPERTY, System.getenv( NODE_VARIABLE ) );
+		if ( configured != null ) {
+			try {
+				int node = Integer.parseInt( configured.trim() );
+				if ( node >= 0 && node < 1 << NODE_BITS ) {
+					return node;
+				}
+			} catch ( NumberFormatException e ) {
+				// reported below
+			}
+			CorrelationIds.logger.log( Level.WARNING, "Ignoring invalid audit node id " + configured );
+		}
+		return ThreadLocalRandom.current().nextInt( 1 << NODE_BITS );
+	}
+
+}
@@ -0,0 +1,246 @@
+package br.com.potio.core.dedup;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import br.com.potio.core.dto.BodyContent;
+import br.com.potio.core.dto.RequestDTO;
+import br.com.potio.core.dto.ResponseDTO;
+import br.com.potio.core.sink.AuditRecord;
+import br.com.potio.core.sink.AuditStage;
+
+/**
+ * Delivers repeated bodies once per retention window. Every captured body
+ * gets a 128-bit fingerprint; the first occurrence is delivered in full along
+ * with it, later ones within the window carry only the fingerprint, so
+ * sinks can store read-heavy payloads by content address.
+ *
+ * Fingerprints are kept in an LRU bounded by entries and by the total size
+ * of the bodies they stand for; a body whose fingerprint was evicted is
+ * simply delivered in full again. So is one whose first occurrence failed to
+ * be delivered, as the fingerprint is then forgotten, see
+ * {@link #undelivered(AuditRecord)}; repetitions in the same batch still
+ * reference it.
+ *
+ * Within a batch, sinks delivering records concurrently must hand over
+ * first occurrences before repetitions; filters do, see
+ * {@code AbstractAuditFilter.deliver}.
+ */
+public class BodyDeduplicator implements AuditStage {
+
+	private static final int DEFAULT_MIN_SIZE = 256;
+	private static final int DEFAULT_MAX_ENTRIES = 10_000;
+	private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+	private static final Duration DEFAULT_RETENTION = Duration.ofHours( 1 );
+
+	private final int minSize;
+	private final int maxEntries;
+	private final long maxBytes;
+	private final long retentionNanos;
+	private final Map< Fingerprint, Seen > seen = new LinkedHashMap<>( 256, 0.75f, true );
+	private final LongAdder deduplicated = new LongAdder();
+	private final LongAdder deduplicatedBytes = new LongAdder();
+	private long seenBytes;
+
+	BodyDeduplicator( int minSize, int maxEntries, long maxBytes, Duration retention ) {
+		this.minSize = minSize;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.retentionNanos = retention.toNanos();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Fingerprints the bodies while they are still raw, so that compressed
+	 * ones need not be inflated again by {@link #apply(AuditRecord)}; filters
+	 * call it on the request thread, right before compressing the bodies.
+	 */
+	public void fingerprint( RequestDTO request, ResponseDTO response ) {
+		if ( request != null ) {
+			request.setBodyFingerprint( this.fingerprint( request.getBodyContent() ) );
+		}
+		if ( response != null ) {
+			response.setBodyFingerprint( this.fingerprint( response.getBodyContent() ) );
+		}
+	}
+
+	@Override
+	public AuditRecord apply( AuditRecord record ) {
+		var request = record.getRequest();
+		if ( request != null ) {
+			request.setBodyContent( this.deduplicate( request.getBodyContent(), request.getBodyFingerprint(),
+					request::setBodyFingerprint ) );
+		}
+		var response = record.getResponse();
+		if ( response != null ) {
+			response.setBodyContent( this.deduplicate( response.getBodyContent(), response.getBodyFingerprint(),
+					response::setBodyFingerprint ) );
+		}
+		return record;
+	}
+
+	/**
+	 * Forgets the fingerprints of the bodies the record delivered in full, so
+	 * the next occurrence is delivered in full again.
+	 */
+	@Override
+	public void undelivered( AuditRecord record ) {
+		var request = record.getRequest();
+		if ( request != null ) {
+			this.forget( request.getBodyContent(), request.getBodyFingerprint() );
+		}
+		var response = record.getResponse();
+		if ( response != null ) {
+			this.forget( response.getBodyContent(), response.getBodyFingerprint() );
+		}
+	}
+
+	/**
+	 * Bodies replaced by their fingerprint.
+	 */
+	public long getDeduplicatedCount() {
+		return this.deduplicated.sum();
+	}
+
+	/**
+	 * Captured bytes left out of the delivered records.
+	 */
+	public long getDeduplicatedBytes() {
+		return this.deduplicatedBytes.sum();
+	}
+
+	private String fingerprint( BodyContent body ) {
+		if ( body == null || body.length() < this.minSize || body.isReleased() ) {
+			return null;
+		}
+		return Fingerprint.of( body.array(), 0, body.length(), body.getOriginalSize() ).toString();
+	}
+
+	/**
+	 * @param computed fingerprint taken by {@link #fingerprint(RequestDTO, ResponseDTO)}, if any
+	 * @return {@code body}, or {@code null} once it was released because it
+	 *         repeats one delivered within the retention window
+	 */
+	private BodyContent deduplicate( BodyContent body, String computed, Consumer< String > fingerprintSetter ) {
+		if ( body == null || body.length() < this.minSize || body.isReleased() ) {
+			return body;
+		}
+		var fingerprint = Fingerprint.parse( computed );
+		if ( fingerprint == null ) {
+			// compressed bodies are hashed inflated, so retrained dictionaries keep their fingerprint
+			boolean inflated = body.isCompressed();
+			fingerprint = Fingerprint.of( body.array(), 0, body.length(), body.getOriginalSize() );
+			if ( inflated ) {
+				// queued records keep only the compressed copy
+				body.dropInflated();
+			}
+			fingerprintSetter.accept( fingerprint.toString() );
+		}
+		if ( !this.repeated( fingerprint, body.length(), System.nanoTime() ) ) {
+			return body;
+		}
+		this.deduplicated.increment();
+		this.deduplicatedBytes.add( body.length() );
+		body.release();
+		return null;
+	}
+
+	private synchronized boolean repeated( Fingerprint fingerprint, int length, long now ) {
+		var entry = this.seen.get( fingerprint );
+		if ( entry != null && now - entry.deliveredAt < this.retentionNanos ) {
+			return true;
+		}
+		if ( entry == null ) {
+			entry = new Seen( length );
+			this.seen.put( fingerprint, entry );
+			this.seenBytes += length;
+			this.evict();
+		}
+		entry.deliveredAt = now;
+		return false;
+	}
+
+	private void forget( BodyContent body, String fingerprint ) {
+		var parsed = body == null ? null : Fingerprint.parse( fingerprint );
+		if ( parsed == null ) {
+			return;
+		}
+		synchronized ( this ) {
+			var entry = this.seen.remove( parsed );
+			if ( entry != null ) {
+				this.seenBytes -= entry.length;
+			}
+		}
+	}
+
+	private void evict() {
+		Iterator< Seen > eldest = this.seen.values().iterator();
+		while ( ( this.seen.size() > this.maxEntries || this.seenBytes > this.maxBytes ) && eldest.hasNext() ) {
+			this.seenBytes -= eldest.next().length;
+			eldest.remove();
+		}
+	}
+
+	private static final class Seen {
+		private final int length;
+		private long deliveredAt;
+
+		Seen( int length ) {
+			this.length = length;
+		}
+	}
+
+	public static class Builder {
+		private int minSize = DEFAULT_MIN_SIZE;
+		private int maxEntries = DEFAULT_MAX_ENTRIES;
+		private long maxBytes = DEFAULT_MAX_BYTES;
+		private Duration retention = DEFAULT_RETENTION;
+
+		/**
+		 * Bodies smaller than this are always delivered, since their
+		 * fingerprint would save little.
+		 */
+		public Builder withMinSize( int minSize ) {
+			this.minSize = minSize;
+			return this;
+		}
+
+		public Builder withMaxEntries( int maxEntries ) {
+			this.maxEntries = maxEntries;
+			return this;
+		}
+
+		/**
+		 * Total size of the bodies the remembered fingerprints stand for.
+		 */
+		public Builder withMaxBytes( long maxBytes ) {
+			this.maxBytes = maxBytes;
+			return this;
+		}
+
+		/**
+		 * How long a body delivered in full is referenced by fingerprint
+		 * before being delivered in full again; sinks must keep bodies at
+		 * least that long.
+		 */
+		public Builder withRetention( Duration retention ) {
+			this.retention = retention;
+			return this;
+		}
+
+		public BodyDeduplicator build() {
+			if ( maxEntries < 1 || maxBytes < 1 || retention.isNegative() ) {
+				throw new IllegalArgumentException( "Entries and bytes must be positive and retention not negative" );
+			}
+			return new BodyDeduplicator( minSize, maxEntries, maxBytes, retention );
+		}
+	}
+
+}
@@ -0,0 +1,73 @@
+package br.com.potio.core.dedup;
+
+/**
+ * 128-bit hash of a captured body, printed as 32 hexadecimal digits.
+ */
+public final class Fingerprint {
+
+	private final long high;
+	private final long low;
+
+	Fingerprint( long high, long low ) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * Hash of the bytes plus the size of the entity they were captured from,
+	 * so truncated captures of different entities do not collide.
+	 */
+	public static Fingerprint of( byte[] bytes, int offset, int length, long originalSize ) {
+		return Murmur3.hash128( bytes, offset, length, originalSize );
+	}
+
+	/**
+	 * @return the fingerprint printed by {@link #toString()}, or {@code null}
+	 *         when {@code hex} is not one
+	 */
+	public static Fingerprint parse( String hex ) {
+		if ( hex == null || hex.length() != 32 ) {
+			return null;
+		}
+		try {
+			return new Fingerprint( Long.parseUnsignedLong( hex, 0, 16, 16 ),
+					Long.parseUnsignedLong( hex, 16, 32, 16 ) );
+		} catch ( NumberFormatException e ) {
+			return null;
+		}
+	}
+
+	public long getHigh() {
+		return high;
+	}
+
+	public long getLow() {
+		return low;
+	}
+
+	@Override
+	public boolean equals( Object other ) {
+		return other instanceof Fingerprint && ( ( Fingerprint ) other ).high == this.high
+				&& ( ( Fingerprint ) other ).low == this.low;
+	}
+
+	@Override
+	public int hashCode() {
+		return ( int ) ( this.high ^ this.high >>> 32 );
+	}
+
+	@Override
+	public String toString() {
+		var hex = new StringBuilder( 32 );
+		Fingerprint.appendHex( hex, this.high );
+		Fingerprint.appendHex( hex, this.low );
+		return hex.toString();
+	}
+
+	private static void appendHex( StringBuilder hex, long value ) {
+		for ( int shift = 60; shift >= 0; shift -= 4 ) {
+			hex.append( Character.forDigit( ( int ) ( value >>> shift ) & 0xf, 16 ) );
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package br.com.potio.core.dedup;
+
+/**
+ * MurmurHash3 x64 128-bit, as published by Austin Appleby. Not
+ * cryptographic: it tells repeated bodies apart, it does not authenticate
+ * them.
+ */
+final class Murmur3 {
+
+	private static final long C1 = 0x87c37b91114253d5L;
+	private static final long C2 = 0x4cf5ad432745937fL;
+
+	private Murmur3() {
+	}
+
+	@SuppressWarnings( "fallthrough" )
+	static Fingerprint hash128( byte[] data, int offset, int length, long seed ) {
+		long h1 = seed;
+		long h2 = seed;
+		int end = offset + ( length & ~15 );
+		for ( int i = offset; i < end; i += 16 ) {
+			long k1 = Murmur3.getLong( data, i );
+			long k2 = Murmur3.getLong( data, i + 8 );
+			h1 ^= Murmur3.mixK1( k1 );
+			h1 = Long.rotateLeft( h1, 27 ) + h2;
+			h1 = h1 * 5 + 0x52dce729;
+			h2 ^= Murmur3.mixK2( k2 );
+			h2 = Long.rotateLeft( h2, 31 ) + h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+		long k1 = 0;
+		long k2 = 0;
+		switch ( length & 15 ) {
+			case 15: k2 ^= ( data[ end + 14 ] & 0xffL ) << 48;
+			case 14: k2 ^= ( data[ end + 13 ] & 0xffL ) << 40;
+			case 13: k2 ^= ( data[ end + 12 ] & 0xffL ) << 32;
+			case 12: k2 ^= ( data[ end + 11 ] & 0xffL ) << 24;
+			case 11: k2 ^= ( data[ end + 10 ] & 0xffL ) << 16;
+			case 10: k2 ^= ( data[ end + 9 ] & 0xffL ) << 8;
+			case 9:
+				k2 ^= data[ end + 8 ] & 0xffL;
+				h2 ^= Murmur3.mixK2( k2 );
+			case 8: k1 ^= ( data[ end + 7 ] & 0xffL ) << 56;
+			case 7: k1 ^= ( data[ end + 6 ] & 0xffL ) << 48;
+			case 6: k1 ^= ( data[ end + 5 ] & 0xffL ) << 40;
+			case 5: k1 ^= ( data[ end + 4 ] & 0xffL ) << 32;
+			case 4: k1 ^= ( data[ end + 3 ] & 0xffL ) << 24;
+			case 3: k1 ^= ( data[ end + 2 ] & 0xffL ) << 16;
+			case 2: k1 ^= ( data[ end + 1 ] & 0xffL ) << 8;
+			case 1:
+				k1 ^= data[ end ] & 0xffL;
+				h1 ^= Murmur3.mixK1( k1 );
+			default:
+		}
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = Murmur3.fmix( h1 );
+		h2 = Murmur3.fmix( h2 );
+		h1 += h2;
+		h2 += h1;
+		return new Fingerprint( h1, h2 );
+	}
+
+	private static long getLong( byte[] data, int i ) {
+		return ( data[ i ] & 0xffL )
+				| ( data[ i + 1 ] & 0xffL ) << 8
+				| ( data[ i + 2 ] & 0xffL ) << 16
+				| ( data[ i + 3 ] & 0xffL ) << 24
+				| ( data[ i + 4 ] & 0xffL ) << 32
+				| ( data[ i + 5 ] & 0xffL ) << 40
+				| ( data[ i + 6 ] & 0xffL ) << 48
+				| ( data[ i + 7 ] & 0xffL ) << 56;
+	}
+
+	private static long mixK1( long k1 ) {
+		k1 *= C1;
+		k1 = Long.rotateLeft( k1, 31 );
+		return k1 * C2;
+	}
+
+	private static long mixK2( long k2 ) {
+		k2 *= C2;
+		k2 = Long.rotateLeft( k2, 33 );
+		return k2 * C1;
+	}
+
+	private static long fmix( long k ) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+}
@@ -1,6 +1,7 @@
 package br.com.potio.core.dto;
 
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 
 public class AuditionDTO implements Serializable {
 
@@ -15,6 +16,10 @@ public class AuditionDTO implements Serializable {
 	private String responseBody;
 	private Integer responseStatus;
 	private String tookSeconds;
+	private Long tookMicros;
+	private Long filterInMicros;
+	private Long handlerMicros;
+	private Long serializationMicros;
 
 	public AuditionDTO() {
 	}
@@ -33,6 +38,18 @@ public class AuditionDTO implements Serializable {
 		this.tookSeconds = tookSeconds;
 	}
 
+	public AuditionDTO( String id, String description, String headers, String requestBody,
+			String requestMethod, String requestUrl, String responseBody, Integer responseStatus,
+			String tookSeconds, Long tookMicros, Long filterInMicros, Long handlerMicros,
+			Long serializationMicros ) {
+		this( id, description, headers, requestBody, requestMethod, requestUrl, responseBody,
+				responseStatus, tookSeconds );
+		this.tookMicros = tookMicros;
+		this.filterInMicros = filterInMicros;
+		this.handlerMicros = handlerMicros;
+		this.serializationMicros = serializationMicros;
+	}
+
 	public static Builder builder() {
 		return new Builder();
 	}
@@ -109,6 +126,38 @@ public class AuditionDTO implements Serializable {
 		this.tookSeconds = tookSeconds;
 	}
 
+	public Long getTookMicros() {
+		return tookMicros;
+	}
+
+	public void setTookMicros( Long tookMicros ) {
+		this.tookMicros = tookMicros;
+	}
+
+	public Long getFilterInMicros() {
+		return filterInMicros;
+	}
+
+	public void setFilterInMicros( Long filterInMicros ) {
+		this.filterInMicros = filterInMicros;
+	}
+
+	public Long getHandlerMicros() {
+		return handlerMicros;
+	}
+
+	public void setHandlerMicros( Long handlerMicros ) {
+		this.handlerMicros = handlerMicros;
+	}
+
+	public Long getSerializationMicros() {
+		return serializationMicros;
+	}
+
+	public void setSerializationMicros( Long serializationMicros ) {
+		this.serializationMicros = serializationMicros;
+	}
+
 	public static class Builder {
 		private String id;
 		private String description;
@@ -119,6 +168,10 @@ public class AuditionDTO implements Serializable {
 		private String responseBody;
 		private Integer responseStatus;
 		private String tookSeconds;
+		private Long tookMicros;
+		private Long filterInMicros;
+		private Long handlerMicros;
+		private Long serializationMicros;
 
 		public Builder withId( String id ) {
 			this.id = id;
@@ -165,9 +218,47 @@ public class AuditionDTO implements Serializable {
 			return this;
 		}
 
+		public Builder withTookMicros( Long tookMicros ) {
+			this.tookMicros = tookMicros;
+			return this;
+		}
+
+		public Builder withFilterInMicros( Long filterInMicros ) {
+			this.filterInMicros = filterInMicros;
+			return this;
+		}
+
+		public Builder withHandlerMicros( Long handlerMicros ) {
+			this.handlerMicros = handlerMicros;
+			return this;
+		}
+
+		public Builder withSerializationMicros( Long serializationMicros ) {
+			this.serializationMicros = serializationMicros;
+			return this;
+		}
+
+		/**
+		 * Copies the phase timings of {@code response}, converted to
+		 * microseconds.
+		 */
+		public Builder withTimings( ResponseDTO response ) {
+			this.tookSeconds = response.getTookSeconds();
+			this.tookMicros = toMicros( response.getTookNanos() );
+			this.filterInMicros = toMicros( response.getFilterInNanos() );
+			this.handlerMicros = toMicros( response.getHandlerNanos() );
+			this.serializationMicros = toMicros( response.getSerializationNanos() );
+			return this;
+		}
+
+		private static Long toMicros( Long nanos ) {
+			return nanos == null ? null : TimeUnit.NANOSECONDS.toMicros( nanos );
+		}
+
 		public AuditionDTO build() {
 			return new AuditionDTO( id, description, headers, requestBody, requestMethod,
-					requestUrl, responseBody, responseStatus, tookSeconds );
+					requestUrl, responseBody, responseStatus, tookSeconds, tookMicros,
+					filterInMicros, handlerMicros, serializationMicros );
 		}
 	}
 
@@ -0,0 +1,269 @@
+package br.com.potio.core.dto;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import br.com.potio.core.capture.CaptureBuffer;
+import br.com.potio.core.compression.Deflate;
+import br.com.potio.core.compression.PresetDictionaries;
+
+/**
+ * Captured entity kept as raw bytes plus charset. The text form is decoded on
+ * first {@link #asString()} and cached, so sinks that only store bytes never
+ * pay for decoding.
+ *
+ * Content adopted from a {@link CaptureBuffer} lives in a pooled slab: it is
+ * valid until {@link #release()}, which the dispatcher calls after delivery.
+ * Call {@link #detach()} to keep the bytes beyond that point.
+ *
+ * Content may also be held deflated while it waits in the queue; the raw
+ * bytes are then inflated on first access.
+ */
+public final class BodyContent implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = Logger.getLogger( BodyContent.class.getName() );
+	private static final String RELEASED = "Body was released after delivery, detach it to keep it";
+	// bodies used to stay readable, so the first late access is logged with its caller
+	private static final AtomicBoolean lateAccessLogged = new AtomicBoolean();
+
+	private transient byte[] bytes;
+	private transient int length;
+	private transient Charset charset;
+	private transient CaptureBuffer owner;
+	private transient String text;
+	private transient boolean released;
+	private transient byte[] compressed;
+	private transient int dictionaryId;
+	private long originalSize;
+
+	private BodyContent( byte[] bytes, int length, Charset charset, long originalSize,
+			CaptureBuffer owner, String text ) {
+		this.bytes = bytes;
+		this.length = length;
+		this.charset = charset;
+		this.originalSize = originalSize;
+		this.owner = owner;
+		this.text = text;
+	}
+
+	public static BodyContent of( String text ) {
+		if ( text == null ) {
+			return null;
+		}
+		var encoded = text.getBytes( StandardCharsets.UTF_8 );
+		return new BodyContent( encoded, encoded.length, StandardCharsets.UTF_8, encoded.length, null, text );
+	}
+
+	public static BodyContent of( byte[] bytes, Charset charset ) {
+		return new BodyContent( bytes, bytes.length, charset, bytes.length, null, null );
+	}
+
+	public static BodyContent of( byte[] bytes, int length, Charset charset, long originalSize ) {
+		return new BodyContent( bytes, length, charset, originalSize, null, null );
+	}
+
+	/**
+	 * Body held as deflate ({@code zlib}) data.
+	 *
+	 * @param rawLength    length of the body once inflated
+	 * @param dictionaryId preset dictionary id, 0 for none; the body takes
+	 *                     over a reference acquired from
+	 *                     {@code PresetDictionaries} and drops it on
+	 *                     {@link #release()}
+	 */
+	public static BodyContent deflated( byte[] compressed, int rawLength, Charset charset, long originalSize,
+			int dictionaryId ) {
+		var body = new BodyContent( null, rawLength, charset, originalSize, null, null );
+		body.compressed = compressed;
+		body.dictionaryId = dictionaryId;
+		return body;
+	}
+
+	/**
+	 * Takes ownership of the captured slab without copying it.
+	 */
+	public static BodyContent adopt( CaptureBuffer buffer, Charset charset ) {
+		// the capturing stream may outlive the adoption
+		buffer.seal();
+		return new BodyContent( buffer.array(), buffer.size(), charset, buffer.getTotalBytes(),
+				buffer, null );
+	}
+
+	public String asString() {
+		if ( this.text == null ) {
+			this.checkAvailable();
+			var raw = this.raw();
+			this.text = new String( raw, 0, this.length, this.charset );
+		}
+		return this.text;
+	}
+
+	/**
+	 * Backing array, shared; only the first {@link #length()} bytes belong to
+	 * the body.
+	 */
+	public byte[] array() {
+		this.checkAvailable();
+		return this.raw();
+	}
+
+	public ByteBuffer asByteBuffer() {
+		this.checkAvailable();
+		return ByteBuffer.wrap( this.raw(), 0, this.length ).asReadOnlyBuffer();
+	}
+
+	public byte[] toByteArray() {
+		this.checkAvailable();
+		return Arrays.copyOf( this.raw(), this.length );
+	}
+
+	public boolean isCompressed() {
+		return this.compressed != null;
+	}
+
+	/**
+	 * Deflate data of a compressed body, shared; sinks can store it as is.
+	 */
+	public byte[] compressedArray() {
+		return this.compressed;
+	}
+
+	public int getDictionaryId() {
+		return this.dictionaryId;
+	}
+
+	public int length() {
+		return this.length;
+	}
+
+	public Charset getCharset() {
+		return this.charset;
+	}
+
+	/**
+	 * Size of the entity on the wire, which exceeds {@link #length()} when the
+	 * capture was truncated.
+	 */
+	public long getOriginalSize() {
+		return this.originalSize;
+	}
+
+	public boolean isTruncated() {
+		return this.originalSize > this.length;
+	}
+
+	/**
+	 * Whether the raw bytes are gone; {@link #asString()} keeps working when
+	 * the text was decoded before the release.
+	 */
+	public synchronized boolean isReleased() {
+		return this.released;
+	}
+
+	/**
+	 * Copies pooled bytes into an array owned by this body, so it survives
+	 * {@link #release()}.
+	 */
+	public synchronized BodyContent detach() {
+		if ( this.dictionaryId != 0 && !this.released ) {
+			// kept inflated, while the dictionary is certainly there
+			this.bytes = this.raw();
+			this.compressed = null;
+			PresetDictionaries.release( this.dictionaryId );
+			this.dictionaryId = 0;
+		}
+		if ( this.owner != null && !this.released ) {
+			this.bytes = Arrays.copyOf( this.bytes, this.length );
+			this.owner.release();
+			this.owner = null;
+		}
+		return this;
+	}
+
+	/**
+	 * Frees the inflated copy of a compressed body, inflated again on the
+	 * next access.
+	 */
+	public synchronized void dropInflated() {
+		if ( this.compressed != null ) {
+			this.bytes = null;
+		}
+	}
+
+	/**
+	 * Hands a pooled slab back; detached or text-decoded content stays
+	 * readable.
+	 */
+	public synchronized void release() {
+		if ( this.dictionaryId != 0 && !this.released ) {
+			this.released = true;
+			this.bytes = null;
+			PresetDictionaries.release( this.dictionaryId );
+		}
+		if ( this.owner != null && !this.released ) {
+			this.released = true;
+			this.bytes = null;
+			this.owner.release();
+			this.owner = null;
+		}
+	}
+
+	private byte[] raw() {
+		if ( this.compressed == null ) {
+			return this.bytes;
+		}
+		synchronized ( this ) {
+			if ( this.bytes == null ) {
+				this.bytes = Deflate.inflate( this.compressed, 0, this.compressed.length, this.length,
+						this.dictionaryId );
+			}
+			return this.bytes;
+		}
+	}
+
+	private void checkAvailable() {
+		if ( this.released ) {
+			var e = new IllegalStateException( RELEASED );
+			if ( BodyContent.lateAccessLogged.compareAndSet( false, true ) ) {
+				BodyContent.logger.log( Level.WARNING, "Body read after its record was delivered; override "
+						+ "retainsBodies() in the audit filter, or detach the body, to keep it", e );
+			}
+			throw e;
+		}
+	}
+
+	private void writeObject( ObjectOutputStream out ) throws IOException {
+		if ( this.released && this.text == null ) {
+			throw new NotSerializableException( RELEASED );
+		}
+		out.defaultWriteObject();
+		out.writeUTF( this.charset.name() );
+		if ( this.released ) {
+			var encoded = this.text.getBytes( this.charset );
+			out.writeInt( encoded.length );
+			out.write( encoded );
+		} else {
+			out.writeInt( this.length );
+			out.write( this.array(), 0, this.length );
+		}
+	}
+
+	private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.charset = Charset.forName( in.readUTF() );
+		this.length = in.readInt();
+		this.bytes = in.readNBytes( this.length );
+	}
+
+}
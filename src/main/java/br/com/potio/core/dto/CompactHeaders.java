@@ -0,0 +1,266 @@
+package br.com.potio.core.dto;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Read-only header map stored as flat arrays: one dictionary id per header
+ * name and all values in a single array, instead of a hash map with a list
+ * per header. Names come from a {@link HeaderDictionary} and are looked up
+ * ignoring case, as HTTP header names are.
+ */
+public final class CompactHeaders extends AbstractMap< String, List< String > > implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final CompactHeaders EMPTY = new CompactHeaders( HeaderDictionary.shared(), new int[ 0 ],
+			new int[ 0 ], new String[ 0 ], null );
+
+	private final transient HeaderDictionary dictionary;
+	/** dictionary id, or {@code -(index + 1)} into {@link #extraNames} */
+	private final transient int[] nameIds;
+	/** exclusive end of each header's values in {@link #values} */
+	private final transient int[] ends;
+	private final transient String[] values;
+	private final transient String[] extraNames;
+	private transient Set< Map.Entry< String, List< String > > > entrySet;
+
+	private CompactHeaders( HeaderDictionary dictionary, int[] nameIds, int[] ends, String[] values,
+			String[] extraNames ) {
+		this.dictionary = dictionary;
+		this.nameIds = nameIds;
+		this.ends = ends;
+		this.values = values;
+		this.extraNames = extraNames;
+	}
+
+	public static CompactHeaders of( Map< String, ? extends List< String > > headers ) {
+		return CompactHeaders.of( headers, HeaderDictionary.shared() );
+	}
+
+	public static CompactHeaders of( Map< String, ? extends List< String > > headers,
+			HeaderDictionary dictionary ) {
+		return CompactHeaders.of( headers, dictionary, null );
+	}
+
+	/**
+	 * @param allowed names of the headers to keep, matched by the set itself,
+	 *                usually case-insensitive; {@code null} keeps them all
+	 */
+	public static CompactHeaders of( Map< String, ? extends List< String > > headers, Set< String > allowed ) {
+		return CompactHeaders.of( headers, HeaderDictionary.shared(), allowed );
+	}
+
+	private static CompactHeaders of( Map< String, ? extends List< String > > headers,
+			HeaderDictionary dictionary, Set< String > allowed ) {
+		if ( headers == null || headers.isEmpty() ) {
+			return EMPTY;
+		}
+		if ( headers instanceof CompactHeaders && allowed == null ) {
+			return ( CompactHeaders ) headers;
+		}
+		int names = 0;
+		int count = 0;
+		for ( Map.Entry< String, ? extends List< String > > entry : headers.entrySet() ) {
+			if ( allowed == null || entry.getKey() != null && allowed.contains( entry.getKey() ) ) {
+				names++;
+				count += entry.getValue() == null ? 0 : entry.getValue().size();
+			}
+		}
+		if ( names == 0 ) {
+			return EMPTY;
+		}
+		var nameIds = new int[ names ];
+		var ends = new int[ names ];
+		var values = new String[ count ];
+		String[] extraNames = null;
+		int header = 0;
+		int value = 0;
+		int extra = 0;
+		for ( Map.Entry< String, ? extends List< String > > entry : headers.entrySet() ) {
+			if ( allowed != null && ( entry.getKey() == null || !allowed.contains( entry.getKey() ) ) ) {
+				continue;
+			}
+			if ( header == nameIds.length ) {
+				break; // map grew under us, keep what was counted
+			}
+			int id = dictionary.idOf( entry.getKey() );
+			if ( id < 0 ) {
+				if ( extraNames == null ) {
+					extraNames = new String[ nameIds.length ];
+				}
+				extraNames[ extra ] = entry.getKey();
+				id = -( ++extra );
+			}
+			var list = entry.getValue();
+			if ( list != null ) {
+				for ( int i = 0, size = list.size(); i < size && value < count; i++ ) {
+					values[ value++ ] = dictionary.intern( id, list.get( i ) );
+				}
+			}
+			nameIds[ header ] = id;
+			ends[ header++ ] = value;
+		}
+		return new CompactHeaders( dictionary, nameIds, ends, values, extraNames );
+	}
+
+	@Override
+	public int size() {
+		return this.nameIds.length;
+	}
+
+	@Override
+	public boolean containsKey( Object key ) {
+		return this.indexOf( key ) >= 0;
+	}
+
+	@Override
+	public List< String > get( Object key ) {
+		int index = this.indexOf( key );
+		return index < 0 ? null : new Values( index );
+	}
+
+	/**
+	 * First value of the header, or {@code null}.
+	 */
+	public String getFirst( String name ) {
+		int index = this.indexOf( name );
+		return index < 0 || this.start( index ) == this.ends[ index ] ? null : this.values[ this.start( index ) ];
+	}
+
+	public String nameAt( int index ) {
+		int id = this.nameIds[ index ];
+		return id >= 0 ? this.dictionary.nameOf( id ) : this.extraNames[ -id - 1 ];
+	}
+
+	@Override
+	public Set< Map.Entry< String, List< String > > > entrySet() {
+		if ( this.entrySet == null ) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	private int indexOf( Object key ) {
+		if ( !( key instanceof String ) ) {
+			return -1;
+		}
+		var name = ( String ) key;
+		int id = this.dictionary.find( name );
+		if ( id >= 0 ) {
+			for ( int i = 0; i < this.nameIds.length; i++ ) {
+				if ( this.nameIds[ i ] == id ) {
+					return i;
+				}
+			}
+		}
+		for ( int i = 0; i < this.nameIds.length; i++ ) {
+			if ( this.nameAt( i ).equalsIgnoreCase( name ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int start( int index ) {
+		return index == 0 ? 0 : this.ends[ index - 1 ];
+	}
+
+	private Object writeReplace() {
+		var headers = new LinkedHashMap< String, List< String > >( this.nameIds.length * 2 );
+		for ( int i = 0; i < this.nameIds.length; i++ ) {
+			headers.put( this.nameAt( i ), new ArrayList<>( new Values( i ) ) );
+		}
+		return new SerializedForm( headers );
+	}
+
+	private final class Values extends AbstractList< String > implements RandomAccess {
+
+		private final int start;
+		private final int end;
+
+		Values( int index ) {
+			this.start = CompactHeaders.this.start( index );
+			this.end = CompactHeaders.this.ends[ index ];
+		}
+
+		@Override
+		public String get( int index ) {
+			if ( index < 0 || index >= this.end - this.start ) {
+				throw new IndexOutOfBoundsException( index );
+			}
+			return CompactHeaders.this.values[ this.start + index ];
+		}
+
+		@Override
+		public int size() {
+			return this.end - this.start;
+		}
+
+		@Override
+		public Object[] toArray() {
+			return Arrays.copyOfRange( CompactHeaders.this.values, this.start, this.end, Object[].class );
+		}
+
+	}
+
+	private final class EntrySet extends AbstractSet< Map.Entry< String, List< String > > > {
+
+		@Override
+		public int size() {
+			return CompactHeaders.this.nameIds.length;
+		}
+
+		@Override
+		public Iterator< Map.Entry< String, List< String > > > iterator() {
+			return new Iterator<>() {
+
+				private int next;
+
+				@Override
+				public boolean hasNext() {
+					return this.next < CompactHeaders.this.nameIds.length;
+				}
+
+				@Override
+				public Map.Entry< String, List< String > > next() {
+					if ( !this.hasNext() ) {
+						throw new NoSuchElementException();
+					}
+					int index = this.next++;
+					return new SimpleImmutableEntry<>( CompactHeaders.this.nameAt( index ), new Values( index ) );
+				}
+
+			};
+		}
+
+	}
+
+	private static final class SerializedForm implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final LinkedHashMap< String, List< String > > headers;
+
+		SerializedForm( LinkedHashMap< String, List< String > > headers ) {
+			this.headers = headers;
+		}
+
+		private Object readResolve() {
+			return CompactHeaders.of( this.headers );
+		}
+
+	}
+
+}
@@ -0,0 +1,127 @@
+package br.com.potio.core.dto;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Process-wide, bounded dictionary behind {@link CompactHeaders}: header names
+ * get a small integer id and the values of headers drawn from a small set
+ * (content-type, accept, ...) are interned, so records held in the queue
+ * share them instead of each keeping its own copy. Once full, new names and
+ * values are simply kept as they are.
+ */
+public final class HeaderDictionary {
+
+	public static final int DEFAULT_MAX_NAMES = 1024;
+	public static final int DEFAULT_MAX_VALUES = 4096;
+	public static final int MAX_INTERNED_VALUE_LENGTH = 128;
+
+	private static final List< String > WELL_KNOWN_NAMES = List.of( "Accept", "Accept-Encoding", "Accept-Language",
+			"Authorization", "Cache-Control", "Connection", "Content-Encoding", "Content-Length", "Content-Type",
+			"Cookie", "Date", "ETag", "Host", "If-None-Match", "Location", "Origin", "Referer", "Server",
+			"Set-Cookie", "Transfer-Encoding", "User-Agent", "Vary", "X-Forwarded-For", "X-Forwarded-Proto",
+			"X-Request-Id" );
+
+	private static final Set< String > REPEATED_VALUE_NAMES = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+
+	static {
+		REPEATED_VALUE_NAMES.addAll( List.of( "Accept", "Accept-Encoding", "Accept-Language", "Cache-Control",
+				"Connection", "Content-Encoding", "Content-Type", "Host", "Origin", "Transfer-Encoding",
+				"User-Agent", "Vary", "X-Forwarded-Proto" ) );
+	}
+
+	private static final HeaderDictionary SHARED = new HeaderDictionary( DEFAULT_MAX_NAMES, DEFAULT_MAX_VALUES );
+
+	private final ConcurrentHashMap< String, Integer > ids;
+	private final AtomicReferenceArray< String > names;
+	private final boolean[] repeatedValues;
+	private final ConcurrentHashMap< String, String > values;
+	private final int maxValues;
+	private int nameCount;
+
+	public HeaderDictionary( int maxNames, int maxValues ) {
+		this.ids = new ConcurrentHashMap<>( maxNames * 2 );
+		this.names = new AtomicReferenceArray<>( maxNames );
+		this.repeatedValues = new boolean[ maxNames ];
+		this.values = new ConcurrentHashMap<>();
+		this.maxValues = maxValues;
+		for ( String name : WELL_KNOWN_NAMES ) {
+			this.idOf( name );
+			this.idOf( name.toLowerCase() );
+		}
+	}
+
+	public static HeaderDictionary shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Whether values of this header come from a small set, like
+	 * {@code Content-Type}; names are compared ignoring case.
+	 */
+	public static boolean hasRepeatedValues( String name ) {
+		return name != null && REPEATED_VALUE_NAMES.contains( name );
+	}
+
+	/**
+	 * @return id of {@code name}, registering it if there is room, or -1 when
+	 *         the dictionary is full
+	 */
+	public int idOf( String name ) {
+		var id = this.ids.get( name );
+		return id != null ? id : this.register( name );
+	}
+
+	/**
+	 * @return id of {@code name}, or -1 when it is not registered
+	 */
+	public int find( String name ) {
+		var id = this.ids.get( name );
+		return id != null ? id : -1;
+	}
+
+	public String nameOf( int id ) {
+		return this.names.get( id );
+	}
+
+	/**
+	 * @return the shared instance equal to {@code value} when the header has
+	 *         repeated values and the dictionary has room, {@code value}
+	 *         otherwise
+	 */
+	public String intern( int nameId, String value ) {
+		if ( value == null || nameId < 0 || !this.repeatedValues[ nameId ]
+				|| value.length() > MAX_INTERNED_VALUE_LENGTH ) {
+			return value;
+		}
+		var shared = this.values.get( value );
+		if ( shared != null ) {
+			return shared;
+		}
+		if ( this.values.size() >= this.maxValues ) {
+			return value;
+		}
+		shared = this.values.putIfAbsent( value, value );
+		return shared != null ? shared : value;
+	}
+
+	private synchronized int register( String name ) {
+		var id = this.ids.get( name );
+		if ( id != null ) {
+			return id;
+		}
+		if ( this.nameCount == this.names.length() ) {
+			return -1;
+		}
+		int next = this.nameCount++;
+		this.names.set( next, name );
+		this.repeatedValues[ next ] = HeaderDictionary.hasRepeatedValues( name );
+		// publishing through the map makes the two writes above visible
+		this.ids.put( name, next );
+		return next;
+	}
+
+}
@@ -5,16 +5,23 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import jakarta.json.bind.annotation.JsonbTransient;
+
 public class RequestDTO implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
 	private String methodName;
 	private String url;
-	private String body;
+	private BodyContent body;
 	private String bodyTypeName;
 	private Map< String, List< String > > headers;
 	private Date date;
+	private String routeTemplate;
+	private String bodyFingerprint;
+	private String exchangeId;
+	private String parentId;
+	private String rootId;
 
 	public RequestDTO() {
 	}
@@ -23,7 +30,7 @@ public class RequestDTO implements Serializable {
 			Map< String, List< String > > headers, Date date ) {
 		this.methodName = methodName;
 		this.url = url;
-		this.body = body;
+		this.body = BodyContent.of( body );
 		this.bodyTypeName = bodyTypeName;
 		this.headers = headers;
 		this.date = date;
@@ -50,10 +57,22 @@ public class RequestDTO implements Serializable {
 	}
 
 	public String getBody() {
-		return body;
+		return body == null ? null : body.asString();
 	}
 
 	public void setBody( String body ) {
+		this.body = BodyContent.of( body );
+	}
+
+	/**
+	 * Raw captured bytes, without decoding them.
+	 */
+	@JsonbTransient
+	public BodyContent getBodyContent() {
+		return body;
+	}
+
+	public void setBodyContent( BodyContent body ) {
 		this.body = body;
 	}
 
@@ -81,13 +100,77 @@ public class RequestDTO implements Serializable {
 		this.date = date;
 	}
 
+	/**
+	 * Template of the matched route, such as {@code /orders/{id}}, shared by
+	 * every request to it; {@code null} when it could not be resolved.
+	 */
+	public String getRouteTemplate() {
+		return routeTemplate;
+	}
+
+	public void setRouteTemplate( String routeTemplate ) {
+		this.routeTemplate = routeTemplate;
+	}
+
+	/**
+	 * Fingerprint of the body set by {@code BodyDeduplicator}. A record
+	 * without body but with a fingerprint repeats the body delivered earlier
+	 * under the same fingerprint.
+	 */
+	public String getBodyFingerprint() {
+		return bodyFingerprint;
+	}
+
+	public void setBodyFingerprint( String bodyFingerprint ) {
+		this.bodyFingerprint = bodyFingerprint;
+	}
+
+	/**
+	 * Id of the exchange, 16 hexadecimal digits, see {@code Correlation}.
+	 */
+	public String getExchangeId() {
+		return exchangeId;
+	}
+
+	public void setExchangeId( String exchangeId ) {
+		this.exchangeId = exchangeId;
+	}
+
+	/**
+	 * Id of the exchange that caused this one, such as the server request
+	 * handled while a client call was made; {@code null} for a root.
+	 */
+	public String getParentId() {
+		return parentId;
+	}
+
+	public void setParentId( String parentId ) {
+		this.parentId = parentId;
+	}
+
+	/**
+	 * Id of the first exchange of the fan-out tree, the exchange itself for
+	 * a root.
+	 */
+	public String getRootId() {
+		return rootId;
+	}
+
+	public void setRootId( String rootId ) {
+		this.rootId = rootId;
+	}
+
 	public static class Builder {
 		private String methodName;
 		private String url;
-		private String body;
+		private BodyContent body;
 		private String bodyTypeName;
 		private Map< String, List< String > > headers;
 		private Date date;
+		private String routeTemplate;
+		private String exchangeId;
+		private String parentId;
+		private String rootId;
 
 		public Builder withMethodName( String methodName ) {
 			this.methodName = methodName;
@@ -100,6 +183,11 @@ public class RequestDTO implements Serializable {
 		}
 
 		public Builder withBody( String body ) {
+			this.body = BodyContent.of( body );
+			return this;
+		}
+
+		public Builder withBodyContent( BodyContent body ) {
 			this.body = body;
 			return this;
 		}
@@ -119,8 +207,34 @@ public class RequestDTO implements Serializable {
 			return this;
 		}
 
+		public Builder withRouteTemplate( String routeTemplate ) {
+			this.routeTemplate = routeTemplate;
+			return this;
+		}
+
+		public Builder withExchangeId( String exchangeId ) {
+			this.exchangeId = exchangeId;
+			return this;
+		}
+
+		public Builder withParentId( String parentId ) {
+			this.parentId = parentId;
+			return this;
+		}
+
+		public Builder withRootId( String rootId ) {
+			this.rootId = rootId;
+			return this;
+		}
+
 		public RequestDTO build() {
-			return new RequestDTO( methodName, url, body, bodyTypeName, headers, date );
+			var request = new RequestDTO( methodName, url, null, bodyTypeName, headers, date );
+			request.body = body;
+			request.routeTemplate = routeTemplate;
+			request.exchangeId = exchangeId;
+			request.parentId = parentId;
+			request.rootId = rootId;
+			return request;
 		}
 
 	}
@@ -3,27 +3,43 @@ package br.com.potio.core.dto;
 import java.io.Serializable;
 import java.util.Date;
 
+import jakarta.json.bind.annotation.JsonbTransient;
+
 public class ResponseDTO implements Serializable {
 
 	private static final long serialVersionUID = 1L;
 
 	private Integer status;
-	private String body;
+	private BodyContent body;
 	private String entityTag;
 	private Date date;
 	private String tookSeconds;
+	private Long tookNanos;
+	private Long filterInNanos;
+	private Long handlerNanos;
+	private Long serializationNanos;
+	private String bodyFingerprint;
 
 	public ResponseDTO() {
 	}
 
 	public ResponseDTO( Integer status, String body, String entityTag, Date date, String tookSeconds ) {
 		this.status = status;
-		this.body = body;
+		this.body = BodyContent.of( body );
 		this.entityTag = entityTag;
 		this.date = date;
 		this.tookSeconds = tookSeconds;
 	}
 
+	public ResponseDTO( Integer status, String body, String entityTag, Date date, String tookSeconds,
+			Long tookNanos, Long filterInNanos, Long handlerNanos, Long serializationNanos ) {
+		this( status, body, entityTag, date, tookSeconds );
+		this.tookNanos = tookNanos;
+		this.filterInNanos = filterInNanos;
+		this.handlerNanos = handlerNanos;
+		this.serializationNanos = serializationNanos;
+	}
+
 	public static Builder builder() {
 		return new Builder();
 	}
@@ -37,10 +53,22 @@ public class ResponseDTO implements Serializable {
 	}
 
 	public String getBody() {
-		return body;
+		return body == null ? null : body.asString();
 	}
 
 	public void setBody( String body ) {
+		this.body = BodyContent.of( body );
+	}
+
+	/**
+	 * Raw captured bytes, without decoding them.
+	 */
+	@JsonbTransient
+	public BodyContent getBodyContent() {
+		return body;
+	}
+
+	public void setBodyContent( BodyContent body ) {
 		this.body = body;
 	}
 
@@ -68,12 +96,61 @@ public class ResponseDTO implements Serializable {
 		this.tookSeconds = tookSeconds;
 	}
 
+	public Long getTookNanos() {
+		return tookNanos;
+	}
+
+	public void setTookNanos( Long tookNanos ) {
+		this.tookNanos = tookNanos;
+	}
+
+	public Long getFilterInNanos() {
+		return filterInNanos;
+	}
+
+	public void setFilterInNanos( Long filterInNanos ) {
+		this.filterInNanos = filterInNanos;
+	}
+
+	public Long getHandlerNanos() {
+		return handlerNanos;
+	}
+
+	public void setHandlerNanos( Long handlerNanos ) {
+		this.handlerNanos = handlerNanos;
+	}
+
+	public Long getSerializationNanos() {
+		return serializationNanos;
+	}
+
+	public void setSerializationNanos( Long serializationNanos ) {
+		this.serializationNanos = serializationNanos;
+	}
+
+	/**
+	 * Fingerprint of the body set by {@code BodyDeduplicator}. A record
+	 * without body but with a fingerprint repeats the body delivered earlier
+	 * under the same fingerprint.
+	 */
+	public String getBodyFingerprint() {
+		return bodyFingerprint;
+	}
+
+	public void setBodyFingerprint( String bodyFingerprint ) {
+		this.bodyFingerprint = bodyFingerprint;
+	}
+
 	public static class Builder {
 		private Integer status;
 		private String entityTag;
-		private String body;
+		private BodyContent body;
 		private String tookSeconds;
 		private Date date;
+		private Long tookNanos;
+		private Long filterInNanos;
+		private Long handlerNanos;
+		private Long serializationNanos;
 
 		public Builder withStatus( Integer status ) {
 			this.status = status;
@@ -91,6 +168,11 @@ public class ResponseDTO implements Serializable {
 		}
 
 		public Builder withBody( String body ) {
+			this.body = BodyContent.of( body );
+			return this;
+		}
+
+		public Builder withBodyContent( BodyContent body ) {
 			this.body = body;
 			return this;
 		}
@@ -100,8 +182,31 @@ public class ResponseDTO implements Serializable {
 			return this;
 		}
 
+		public Builder withTookNanos( Long tookNanos ) {
+			this.tookNanos = tookNanos;
+			return this;
+		}
+
+		public Builder withFilterInNanos( Long filterInNanos ) {
+			this.filterInNanos = filterInNanos;
+			return this;
+		}
+
+		public Builder withHandlerNanos( Long handlerNanos ) {
+			this.handlerNanos = handlerNanos;
+			return this;
+		}
+
+		public Builder withSerializationNanos( Long serializationNanos ) {
+			this.serializationNanos = serializationNanos;
+			return this;
+		}
+
 		public ResponseDTO build() {
-			return new ResponseDTO( status, body, entityTag, date, tookSeconds );
+			var response = new ResponseDTO( status, null, entityTag, date, tookSeconds, tookNanos,
+					filterInNanos, handlerNanos, serializationNanos );
+			response.body = body;
+			return response;
 		}
 	}
 
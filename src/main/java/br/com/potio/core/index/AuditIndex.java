@@ -0,0 +1,354 @@
+package br.com.potio.core.index;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import br.com.potio.core.correlation.CorrelationIds;
+import br.com.potio.core.dto.RequestDTO;
+import br.com.potio.core.dto.ResponseDTO;
+import br.com.potio.core.routing.RouteKeys;
+import br.com.potio.core.sink.AuditRecord;
+import br.com.potio.core.sink.AuditStage;
+
+/**
+ * In-memory index of recent exchanges for local triage, such as every 5xx of
+ * a route in the last ten minutes, without querying the audit database the
+ * sink writes to. Records pass through unchanged; only their metadata is
+ * kept: start time, method, route, host, status, latency and correlation ids.
+ *
+ * Exchanges are grouped by start time into partitions holding primitive
+ * columns and a bitmap per method, route, host and status class, so queries
+ * intersect bitmaps instead of scanning records. Whole partitions are dropped
+ * once older than the retention or when the index holds too many exchanges.
+ *
+ * The number of distinct methods, routes and hosts is bounded; the rest is
+ * indexed under {@value #OTHER}, and the values are forgotten whenever the
+ * index empties. A query for a value that is not indexed under its own name
+ * then matches the {@value #OTHER} exchanges, which report {@value #OTHER} as
+ * their value; see {@link #isApproximate(AuditQuery)}.
+ */
+public class AuditIndex implements AuditStage {
+
+	public static final String OTHER = "(other)";
+	private static final Duration DEFAULT_PARTITION = Duration.ofMinutes( 1 );
+	private static final Duration DEFAULT_RETENTION = Duration.ofMinutes( 30 );
+	private static final int DEFAULT_MAX_ENTRIES = 200_000;
+	private static final int DEFAULT_MAX_VALUES = 1024;
+
+	private final long partitionMillis;
+	private final long retentionMillis;
+	private final int maxEntries;
+	private final TreeMap< Long, Partition > partitions = new TreeMap<>();
+	private final Symbols methods;
+	private final Symbols routes;
+	private final Symbols hosts;
+	private final LongAdder skipped = new LongAdder();
+	private int size;
+
+	AuditIndex( Duration partition, Duration retention, int maxEntries, int maxValues ) {
+		this.partitionMillis = partition.toMillis();
+		this.retentionMillis = retention.toMillis();
+		this.maxEntries = maxEntries;
+		this.methods = new Symbols( maxValues );
+		this.routes = new Symbols( maxValues );
+		this.hosts = new Symbols( maxValues );
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public AuditRecord apply( AuditRecord record ) {
+		var request = record.getRequest();
+		if ( request != null ) {
+			this.add( request, record.getResponse(), System.currentTimeMillis() );
+		}
+		return record;
+	}
+
+	/**
+	 * @return the matching exchanges, latest partition first and most recently
+	 *         indexed first within a partition, up to the query limit
+	 */
+	public synchronized List< IndexedExchange > query( AuditQuery query ) {
+		var found = new ArrayList< IndexedExchange >( Math.min( query.getLimit(), 64 ) );
+		int method = this.methods.find( query.getMethod() );
+		int route = this.routes.find( query.getRoute(), RouteKeys::collapse );
+		int host = this.hosts.find( query.getHost() );
+		for ( var partition : this.partitions.descendingMap().values() ) {
+			if ( partition.getStart() >= query.getTo() ) {
+				continue;
+			}
+			if ( partition.getEnd() <= query.getFrom() || found.size() == query.getLimit() ) {
+				break;
+			}
+			var matches = partition.match( query, method, route, host );
+			for ( int i = matches.previousSetBit( partition.size() - 1 ); i >= 0
+					&& found.size() < query.getLimit(); i = matches.previousSetBit( i - 1 ) ) {
+				found.add( this.exchangeAt( partition, i ) );
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return how many exchanges match, ignoring the query limit
+	 */
+	public synchronized int count( AuditQuery query ) {
+		int method = this.methods.find( query.getMethod() );
+		int route = this.routes.find( query.getRoute(), RouteKeys::collapse );
+		int host = this.hosts.find( query.getHost() );
+		int count = 0;
+		for ( var partition : this.partitions.values() ) {
+			if ( partition.getEnd() > query.getFrom() && partition.getStart() < query.getTo() ) {
+				count += partition.match( query, method, route, host ).cardinality();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Whether a method, route or host of the query is not indexed under its
+	 * own name, so that {@link #query(AuditQuery)} and
+	 * {@link #count(AuditQuery)} match every exchange indexed as
+	 * {@value #OTHER} instead, a superset of the ones asked for.
+	 */
+	public synchronized boolean isApproximate( AuditQuery query ) {
+		return this.methods.approximates( query.getMethod(), UnaryOperator.identity() )
+				|| this.routes.approximates( query.getRoute(), RouteKeys::collapse )
+				|| this.hosts.approximates( query.getHost(), UnaryOperator.identity() );
+	}
+
+	/**
+	 * Exchanges currently indexed.
+	 */
+	public synchronized int size() {
+		return this.size;
+	}
+
+	/**
+	 * Exchanges left out because they started before the retention or the
+	 * current partition alone reached the entry limit.
+	 */
+	public long getSkippedCount() {
+		return this.skipped.sum();
+	}
+
+	private synchronized void add( RequestDTO request, ResponseDTO response, long now ) {
+		long time = request.getDate() != null ? request.getDate().getTime() : now;
+		this.expire( now );
+		if ( time < now - this.retentionMillis ) {
+			this.skipped.increment();
+			return;
+		}
+		long start = Math.floorDiv( time, this.partitionMillis ) * this.partitionMillis;
+		var partition = this.partitions.get( start );
+		if ( this.size >= this.maxEntries ) {
+			// makes room by whole partitions, never the one being written
+			while ( this.size >= this.maxEntries && this.partitions.firstKey() < start ) {
+				this.size -= this.partitions.pollFirstEntry().getValue().size();
+			}
+			this.forgetIfEmpty();
+			if ( this.size >= this.maxEntries ) {
+				this.skipped.increment();
+				return;
+			}
+		}
+		if ( partition == null ) {
+			partition = new Partition( start, start + this.partitionMillis );
+			this.partitions.put( start, partition );
+		}
+		var url = request.getUrl();
+		int status = response != null && response.getStatus() != null ? response.getStatus() : 0;
+		Long took = response != null ? response.getTookNanos() : null;
+		partition.add( time,
+				this.methods.intern( request.getMethodName() ),
+				this.routes.intern( request.getRouteTemplate() != null ? request.getRouteTemplate()
+						: RouteKeys.collapse( AuditIndex.pathOf( url ) ) ),
+				this.hosts.intern( AuditIndex.hostOf( url ) ),
+				status, took != null ? took : -1,
+				CorrelationIds.parse( request.getExchangeId() ),
+				CorrelationIds.parse( request.getParentId() ),
+				CorrelationIds.parse( request.getRootId() ) );
+		this.size++;
+	}
+
+	private void expire( long now ) {
+		long oldest = now - this.retentionMillis;
+		while ( !this.partitions.isEmpty() && this.partitions.firstEntry().getValue().getEnd() <= oldest ) {
+			this.size -= this.partitions.pollFirstEntry().getValue().size();
+		}
+		this.forgetIfEmpty();
+	}
+
+	/**
+	 * Drops the values no partition refers to anymore, so those seen once
+	 * in a burst do not keep their place, or push new ones to
+	 * {@value #OTHER}, for the life of the index.
+	 */
+	private void forgetIfEmpty() {
+		if ( this.partitions.isEmpty() ) {
+			this.methods.clear();
+			this.routes.clear();
+			this.hosts.clear();
+		}
+	}
+
+	private IndexedExchange exchangeAt( Partition partition, int position ) {
+		return new IndexedExchange( partition.getTime( position ),
+				this.methods.nameOf( partition.getMethod( position ) ),
+				this.routes.nameOf( partition.getRoute( position ) ),
+				this.hosts.nameOf( partition.getHost( position ) ),
+				partition.getStatus( position ),
+				partition.getTookNanos( position ),
+				partition.getExchangeId( position ),
+				partition.getParentId( position ),
+				partition.getRootId( position ) );
+	}
+
+	private static String pathOf( String url ) {
+		try {
+			return url == null ? null : URI.create( url ).getRawPath();
+		} catch ( IllegalArgumentException e ) {
+			return null;
+		}
+	}
+
+	private static String hostOf( String url ) {
+		try {
+			var uri = url == null ? null : URI.create( url );
+			if ( uri == null || uri.getHost() == null ) {
+				return null;
+			}
+			return uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ':' + uri.getPort();
+		} catch ( IllegalArgumentException e ) {
+			return null;
+		}
+	}
+
+	/**
+	 * Ids of the indexed methods, routes or hosts, up to a maximum past which
+	 * new values share the id of {@value AuditIndex#OTHER}.
+	 */
+	private static final class Symbols {
+		private final int max;
+		private final Map< String, Integer > ids = new HashMap<>();
+		private final List< String > names = new ArrayList<>();
+
+		Symbols( int max ) {
+			this.max = max;
+		}
+
+		int intern( String name ) {
+			if ( name == null ) {
+				return -1;
+			}
+			var id = this.ids.get( name );
+			if ( id == null ) {
+				var bounded = this.names.size() < this.max ? name : OTHER;
+				id = this.ids.get( bounded );
+				if ( id == null ) {
+					id = this.names.size();
+					this.ids.put( bounded, id );
+					this.names.add( bounded );
+				}
+			}
+			return id;
+		}
+
+		void clear() {
+			this.ids.clear();
+			this.names.clear();
+		}
+
+		/**
+		 * @return -1 when {@code name} is unset, the id of {@value AuditIndex#OTHER}
+		 *         when it may be indexed under it, -2 when it was never indexed
+		 */
+		int find( String name ) {
+			return this.find( name, UnaryOperator.identity() );
+		}
+
+		/**
+		 * @param fallback alternative form of {@code name} tried next, like
+		 *                 its collapsed path
+		 */
+		int find( String name, UnaryOperator< String > fallback ) {
+			if ( name == null ) {
+				return -1;
+			}
+			var id = this.ids.get( name );
+			if ( id == null ) {
+				id = this.ids.get( fallback.apply( name ) );
+			}
+			if ( id == null ) {
+				id = this.ids.get( OTHER );
+			}
+			return id != null ? id : -2;
+		}
+
+		boolean approximates( String name, UnaryOperator< String > fallback ) {
+			return name != null && !OTHER.equals( name ) && !this.ids.containsKey( name )
+					&& !this.ids.containsKey( fallback.apply( name ) ) && this.ids.containsKey( OTHER );
+		}
+
+		String nameOf( int id ) {
+			return id < 0 ? null : this.names.get( id );
+		}
+	}
+
+	public static class Builder {
+		private Duration partition = DEFAULT_PARTITION;
+		private Duration retention = DEFAULT_RETENTION;
+		private int maxEntries = DEFAULT_MAX_ENTRIES;
+		private int maxValues = DEFAULT_MAX_VALUES;
+
+		/**
+		 * Time slice of a partition, the unit in which exchanges expire.
+		 */
+		public Builder withPartition( Duration partition ) {
+			this.partition = partition;
+			return this;
+		}
+
+		public Builder withRetention( Duration retention ) {
+			this.retention = retention;
+			return this;
+		}
+
+		/**
+		 * Exchanges kept at most, about 70 bytes each.
+		 */
+		public Builder withMaxEntries( int maxEntries ) {
+			this.maxEntries = maxEntries;
+			return this;
+		}
+
+		/**
+		 * Distinct methods, routes and hosts, each, indexed under their own
+		 * name before the rest goes to {@value AuditIndex#OTHER}.
+		 */
+		public Builder withMaxValues( int maxValues ) {
+			this.maxValues = maxValues;
+			return this;
+		}
+
+		public AuditIndex build() {
+			if ( partition.toMillis() < 1 || retention.compareTo( partition ) < 0 || maxEntries < 1
+					|| maxValues < 1 ) {
+				throw new IllegalArgumentException( "Partition must be positive, retention at least a partition, "
+						+ "entries and values positive" );
+			}
+			return new AuditIndex( partition, retention, maxEntries, maxValues );
+		}
+	}
+
+}
@@ -0,0 +1,177 @@
+package br.com.potio.core.index;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import br.com.potio.core.correlation.CorrelationIds;
+
+/**
+ * Criteria of an {@link AuditIndex} search. Unset criteria match anything;
+ * set ones must all match.
+ */
+public class AuditQuery {
+
+	private static final int DEFAULT_LIMIT = 100;
+
+	private final long from;
+	private final long to;
+	private final String method;
+	private final String route;
+	private final String host;
+	private final int statusClass;
+	private final long correlationId;
+	private final int limit;
+
+	AuditQuery( long from, long to, String method, String route, String host, int statusClass, long correlationId,
+			int limit ) {
+		this.from = from;
+		this.to = to;
+		this.method = method;
+		this.route = route;
+		this.host = host;
+		this.statusClass = statusClass;
+		this.correlationId = correlationId;
+		this.limit = limit;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	long getFrom() {
+		return from;
+	}
+
+	long getTo() {
+		return to;
+	}
+
+	String getMethod() {
+		return method;
+	}
+
+	String getRoute() {
+		return route;
+	}
+
+	String getHost() {
+		return host;
+	}
+
+	int getStatusClass() {
+		return statusClass;
+	}
+
+	long getCorrelationId() {
+		return correlationId;
+	}
+
+	int getLimit() {
+		return limit;
+	}
+
+	public static class Builder {
+		private Instant from;
+		private Instant to;
+		private Duration last;
+		private String method;
+		private String route;
+		private String host;
+		private int statusClass = -1;
+		private String correlationId;
+		private int limit = DEFAULT_LIMIT;
+
+		/**
+		 * Exchanges started at or after {@code from}.
+		 */
+		public Builder withFrom( Instant from ) {
+			this.from = from;
+			return this;
+		}
+
+		/**
+		 * Exchanges started before {@code to}.
+		 */
+		public Builder withTo( Instant to ) {
+			this.to = to;
+			return this;
+		}
+
+		/**
+		 * Exchanges started within {@code last} of the time the query is
+		 * built, like {@code Duration.ofMinutes( 10 )}; overrides
+		 * {@link #withFrom(Instant)}.
+		 */
+		public Builder withLast( Duration last ) {
+			this.last = last;
+			return this;
+		}
+
+		public Builder withMethod( String method ) {
+			this.method = method;
+			return this;
+		}
+
+		/**
+		 * Route template, such as {@code /payments/{id}}, or a path, matched
+		 * with its id-like segments collapsed when no template was known.
+		 */
+		public Builder withRoute( String route ) {
+			this.route = route;
+			return this;
+		}
+
+		/**
+		 * Host of the request URL, with the port when it has one, such as
+		 * {@code payments.internal:8080}.
+		 */
+		public Builder withHost( String host ) {
+			this.host = host;
+			return this;
+		}
+
+		/**
+		 * First digit of the status, 5 for the 5xx; 0 matches exchanges
+		 * without response status.
+		 */
+		public Builder withStatusClass( int statusClass ) {
+			this.statusClass = statusClass;
+			return this;
+		}
+
+		/**
+		 * Exchange id: matches that exchange, its children and, for a root,
+		 * its whole fan-out tree.
+		 */
+		public Builder withCorrelationId( String correlationId ) {
+			this.correlationId = correlationId;
+			return this;
+		}
+
+		/**
+		 * Most exchanges returned by {@link AuditIndex#query(AuditQuery)}.
+		 */
+		public Builder withLimit( int limit ) {
+			this.limit = limit;
+			return this;
+		}
+
+		public AuditQuery build() {
+			if ( limit < 1 || statusClass > 9 ) {
+				throw new IllegalArgumentException( "Limit must be positive and status class a single digit" );
+			}
+			long fromMillis = last != null ? System.currentTimeMillis() - last.toMillis()
+					: from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+			long toMillis = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+			long correlation = 0;
+			if ( correlationId != null ) {
+				correlation = CorrelationIds.parse( correlationId );
+				if ( correlation == 0 ) {
+					throw new IllegalArgumentException( "Invalid correlation id " + correlationId );
+				}
+			}
+			return new AuditQuery( fromMillis, toMillis, method, route, host, statusClass, correlation, limit );
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package br.com.potio.core.index;
+
+import java.util.Date;
+
+import br.com.potio.core.correlation.CorrelationIds;
+
+/**
+ * Metadata of an indexed exchange. Bodies and headers are not kept; the
+ * exchange id finds the full record in the sink.
+ */
+public final class IndexedExchange {
+
+	private final long time;
+	private final String method;
+	private final String route;
+	private final String host;
+	private final int status;
+	private final long tookNanos;
+	private final long exchangeId;
+	private final long parentId;
+	private final long rootId;
+
+	IndexedExchange( long time, String method, String route, String host, int status, long tookNanos,
+			long exchangeId, long parentId, long rootId ) {
+		this.time = time;
+		this.method = method;
+		this.route = route;
+		this.host = host;
+		this.status = status;
+		this.tookNanos = tookNanos;
+		this.exchangeId = exchangeId;
+		this.parentId = parentId;
+		this.rootId = rootId;
+	}
+
+	public Date getDate() {
+		return new Date( time );
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * Route template, or the path with id-like segments collapsed.
+	 */
+	public String getRoute() {
+		return route;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return the response status, {@code null} when there was none
+	 */
+	public Integer getStatus() {
+		return status == 0 ? null : status;
+	}
+
+	public Long getTookNanos() {
+		return tookNanos < 0 ? null : tookNanos;
+	}
+
+	public String getExchangeId() {
+		return exchangeId == 0 ? null : CorrelationIds.format( exchangeId );
+	}
+
+	public String getParentId() {
+		return parentId == 0 ? null : CorrelationIds.format( parentId );
+	}
+
+	public String getRootId() {
+		return rootId == 0 ? null : CorrelationIds.format( rootId );
+	}
+
+	@Override
+	public String toString() {
+		return this.getExchangeId() + ' ' + method + ' ' + route + ' ' + status;
+	}
+
+}
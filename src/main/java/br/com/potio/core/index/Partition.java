@@ -0,0 +1,266 @@
+package br.com.potio.core.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Exchanges started within one time slice, stored as parallel primitive
+ * columns, with a bitmap of positions per method, route, host and status
+ * class. Correlation ids get a hash table of their positions, built on the
+ * first correlation query and kept up to date afterwards. Accessed under the
+ * lock of its {@link AuditIndex}.
+ */
+final class Partition {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final long start;
+	private final long end;
+	private int size;
+	private long[] times = new long[ INITIAL_CAPACITY ];
+	private long[] tookNanos = new long[ INITIAL_CAPACITY ];
+	private long[] exchangeIds = new long[ INITIAL_CAPACITY ];
+	private long[] parentIds = new long[ INITIAL_CAPACITY ];
+	private long[] rootIds = new long[ INITIAL_CAPACITY ];
+	private int[] statuses = new int[ INITIAL_CAPACITY ];
+	private int[] methods = new int[ INITIAL_CAPACITY ];
+	private int[] routes = new int[ INITIAL_CAPACITY ];
+	private int[] hosts = new int[ INITIAL_CAPACITY ];
+	private BitSet[] byMethod = new BitSet[ 0 ];
+	private BitSet[] byRoute = new BitSet[ 0 ];
+	private BitSet[] byHost = new BitSet[ 0 ];
+	private final BitSet[] byStatusClass = new BitSet[ 10 ];
+	/** open addressing by id, of 1 + the latest entry, an entry being position * 3 + id column */
+	private int[] byCorrelation;
+	/** 1 + the previous entry with the same id, per entry */
+	private int[] sameCorrelation;
+	private int correlationEntries;
+
+	Partition( long start, long end ) {
+		this.start = start;
+		this.end = end;
+	}
+
+	long getStart() {
+		return start;
+	}
+
+	long getEnd() {
+		return end;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param method symbol id, -1 when unknown, as {@code route} and
+	 *               {@code host}
+	 * @param status 0 when unknown
+	 */
+	void add( long time, int method, int route, int host, int status, long took, long exchangeId,
+			long parentId, long rootId ) {
+		if ( this.size == this.times.length ) {
+			this.grow();
+		}
+		int position = this.size++;
+		this.times[ position ] = time;
+		this.methods[ position ] = method;
+		this.routes[ position ] = route;
+		this.hosts[ position ] = host;
+		this.statuses[ position ] = status;
+		this.tookNanos[ position ] = took;
+		this.exchangeIds[ position ] = exchangeId;
+		this.parentIds[ position ] = parentId;
+		this.rootIds[ position ] = rootId;
+		this.byMethod = Partition.post( this.byMethod, method, position );
+		this.byRoute = Partition.post( this.byRoute, route, position );
+		this.byHost = Partition.post( this.byHost, host, position );
+		Partition.post( this.byStatusClass, Partition.statusClass( status ), position );
+		if ( this.byCorrelation == null ) {
+			return;
+		}
+		if ( this.size * 3 > this.sameCorrelation.length
+				|| ( this.correlationEntries + 3 ) * 2 > this.byCorrelation.length ) {
+			this.indexCorrelations( this.times.length );
+			return;
+		}
+		for ( int entry = position * 3; entry < position * 3 + 3; entry++ ) {
+			this.postCorrelation( entry );
+		}
+	}
+
+	/**
+	 * Positions matching every criterion; symbol ids are -1 when unset and
+	 * -2 when the value was never indexed.
+	 */
+	BitSet match( AuditQuery query, int method, int route, int host ) {
+		var matches = new BitSet( this.size );
+		matches.set( 0, this.size );
+		if ( !Partition.intersect( matches, this.byMethod, method )
+				|| !Partition.intersect( matches, this.byRoute, route )
+				|| !Partition.intersect( matches, this.byHost, host )
+				|| !Partition.intersect( matches, this.byStatusClass, query.getStatusClass() ) ) {
+			return matches;
+		}
+		if ( query.getCorrelationId() != 0 ) {
+			matches.and( this.correlated( query.getCorrelationId() ) );
+		}
+		// arrival order only roughly follows start times, so edge slices are checked entry by entry
+		if ( query.getFrom() > this.start || query.getTo() < this.end ) {
+			for ( int i = matches.nextSetBit( 0 ); i >= 0; i = matches.nextSetBit( i + 1 ) ) {
+				if ( this.times[ i ] < query.getFrom() || this.times[ i ] >= query.getTo() ) {
+					matches.clear( i );
+				}
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Positions of the exchanges having {@code id} as their own, parent or
+	 * root id.
+	 */
+	private BitSet correlated( long id ) {
+		if ( this.byCorrelation == null ) {
+			this.indexCorrelations( Math.max( INITIAL_CAPACITY, this.size ) );
+		}
+		var positions = new BitSet( this.size );
+		int mask = this.byCorrelation.length - 1;
+		for ( int slot = Partition.slotOf( id, mask ); this.byCorrelation[ slot ] != 0; slot = slot + 1 & mask ) {
+			int entry = this.byCorrelation[ slot ] - 1;
+			if ( this.correlationAt( entry ) == id ) {
+				for ( ; entry >= 0; entry = this.sameCorrelation[ entry ] - 1 ) {
+					positions.set( entry / 3 );
+				}
+				break;
+			}
+		}
+		return positions;
+	}
+
+	private void indexCorrelations( int capacity ) {
+		// at most half full, counting the three ids of each exchange
+		this.byCorrelation = new int[ Integer.highestOneBit( capacity * 3 ) << 2 ];
+		this.sameCorrelation = new int[ capacity * 3 ];
+		this.correlationEntries = 0;
+		for ( int entry = 0; entry < this.size * 3; entry++ ) {
+			this.postCorrelation( entry );
+		}
+	}
+
+	private void postCorrelation( int entry ) {
+		long id = this.correlationAt( entry );
+		if ( id == 0 || entry % 3 == 2 && id == this.exchangeIds[ entry / 3 ] ) {
+			// unknown, or a root being its own root
+			return;
+		}
+		this.correlationEntries++;
+		int mask = this.byCorrelation.length - 1;
+		int slot = Partition.slotOf( id, mask );
+		while ( this.byCorrelation[ slot ] != 0 && this.correlationAt( this.byCorrelation[ slot ] - 1 ) != id ) {
+			slot = slot + 1 & mask;
+		}
+		this.sameCorrelation[ entry ] = this.byCorrelation[ slot ];
+		this.byCorrelation[ slot ] = entry + 1;
+	}
+
+	private long correlationAt( int entry ) {
+		int position = entry / 3;
+		switch ( entry % 3 ) {
+			case 0:
+				return this.exchangeIds[ position ];
+			case 1:
+				return this.parentIds[ position ];
+			default:
+				return this.rootIds[ position ];
+		}
+	}
+
+	private static int slotOf( long id, int mask ) {
+		return ( int ) ( id * 0x9E3779B97F4A7C15L >>> 32 ) & mask;
+	}
+
+	long getTime( int position ) {
+		return this.times[ position ];
+	}
+
+	int getMethod( int position ) {
+		return this.methods[ position ];
+	}
+
+	int getRoute( int position ) {
+		return this.routes[ position ];
+	}
+
+	int getHost( int position ) {
+		return this.hosts[ position ];
+	}
+
+	int getStatus( int position ) {
+		return this.statuses[ position ];
+	}
+
+	long getTookNanos( int position ) {
+		return this.tookNanos[ position ];
+	}
+
+	long getExchangeId( int position ) {
+		return this.exchangeIds[ position ];
+	}
+
+	long getParentId( int position ) {
+		return this.parentIds[ position ];
+	}
+
+	long getRootId( int position ) {
+		return this.rootIds[ position ];
+	}
+
+	static int statusClass( int status ) {
+		return status >= 100 && status < 1000 ? status / 100 : 0;
+	}
+
+	/**
+	 * @return whether anything may still match
+	 */
+	private static boolean intersect( BitSet matches, BitSet[] postings, int id ) {
+		if ( id == -1 ) {
+			return true;
+		}
+		if ( id < 0 || id >= postings.length || postings[ id ] == null ) {
+			matches.clear();
+			return false;
+		}
+		matches.and( postings[ id ] );
+		return !matches.isEmpty();
+	}
+
+	private static BitSet[] post( BitSet[] postings, int id, int position ) {
+		if ( id < 0 ) {
+			return postings;
+		}
+		if ( id >= postings.length ) {
+			postings = Arrays.copyOf( postings, Math.max( id + 1, postings.length * 2 ) );
+		}
+		if ( postings[ id ] == null ) {
+			postings[ id ] = new BitSet();
+		}
+		postings[ id ].set( position );
+		return postings;
+	}
+
+	private void grow() {
+		int capacity = this.times.length * 2;
+		this.times = Arrays.copyOf( this.times, capacity );
+		this.tookNanos = Arrays.copyOf( this.tookNanos, capacity );
+		this.exchangeIds = Arrays.copyOf( this.exchangeIds, capacity );
+		this.parentIds = Arrays.copyOf( this.parentIds, capacity );
+		this.rootIds = Arrays.copyOf( this.rootIds, capacity );
+		this.statuses = Arrays.copyOf( this.statuses, capacity );
+		this.methods = Arrays.copyOf( this.methods, capacity );
+		this.routes = Arrays.copyOf( this.routes, capacity );
+		this.hosts = Arrays.copyOf( this.hosts, capacity );
+	}
+
+}
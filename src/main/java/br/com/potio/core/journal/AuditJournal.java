@@ -0,0 +1,316 @@
+package br.com.potio.core.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import br.com.potio.core.sink.AuditRecord;
+
+/**
+ * Append-only journal of audit records on memory-mapped segment files.
+ *
+ * Each segment starts with a 16 byte header (magic, version, creation time)
+ * followed by frames of {@code [int length][int crc32][payload]}. The length
+ * is written last, so a zero length marks the end of the written data and a
+ * length of {@code -1} marks a segment that was rolled. Segments roll when a
+ * record does not fit or when they get older than the configured age.
+ */
+public class AuditJournal implements Closeable {
+
+	static final int MAGIC = 0x41554A31;
+	static final int VERSION = 1;
+	static final int SEGMENT_HEADER_SIZE = 16;
+	static final int FRAME_HEADER_SIZE = 8;
+	static final int END_OF_SEGMENT = -1;
+	static final String SEGMENT_SUFFIX = ".journal";
+	private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+	private static final Duration DEFAULT_MAX_SEGMENT_AGE = Duration.ofHours( 1 );
+
+	private final Path directory;
+	private final int segmentSize;
+	private final long maxSegmentAgeMillis;
+	private final Supplier< RecordSerializer > serializers;
+	private final boolean forceOnFlush;
+	private final CRC32 crc = new CRC32();
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long segment;
+	private long segmentCreatedMillis;
+	private RecordSerializer serializer;
+
+	AuditJournal( Path directory, int segmentSize, Duration maxSegmentAge,
+			Supplier< RecordSerializer > serializers, boolean forceOnFlush ) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxSegmentAgeMillis = maxSegmentAge.toMillis();
+		this.serializers = serializers;
+		this.forceOnFlush = forceOnFlush;
+		Files.createDirectories( directory );
+		var segments = AuditJournal.listSegments( directory );
+		if ( segments.isEmpty() ) {
+			this.create( 0 );
+		} else {
+			this.reopen( segments.get( segments.size() - 1 ) );
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return position of the appended frame
+	 * @throws IOException when the record is larger than a whole segment
+	 */
+	public synchronized JournalPosition append( AuditRecord record ) throws IOException {
+		if ( this.buffer.position() > SEGMENT_HEADER_SIZE
+				&& System.currentTimeMillis() - this.segmentCreatedMillis >= this.maxSegmentAgeMillis ) {
+			this.roll();
+		}
+		while ( true ) {
+			int start = this.buffer.position();
+			try {
+				if ( this.buffer.remaining() <= FRAME_HEADER_SIZE ) {
+					throw new BufferOverflowException();
+				}
+				this.buffer.position( start + FRAME_HEADER_SIZE );
+				this.serializer.write( record, this.buffer );
+			} catch ( BufferOverflowException e ) {
+				this.discard( start );
+				if ( start == SEGMENT_HEADER_SIZE ) {
+					throw new IOException( "Record does not fit in a journal segment of " + this.segmentSize
+							+ " bytes" );
+				}
+				continue;
+			} catch ( IOException | RuntimeException e ) {
+				this.discard( start );
+				throw e;
+			}
+			int end = this.buffer.position();
+			this.crc.reset();
+			this.crc.update( this.buffer.duplicate().position( start + FRAME_HEADER_SIZE ).limit( end ) );
+			this.buffer.putInt( start + 4, ( int ) this.crc.getValue() );
+			this.buffer.putInt( start, end - start - FRAME_HEADER_SIZE );
+			return new JournalPosition( this.segment, start );
+		}
+	}
+
+	/**
+	 * Makes appended records durable when {@code forceOnFlush} is set.
+	 */
+	public synchronized void flush() {
+		if ( this.forceOnFlush ) {
+			this.buffer.force();
+		}
+	}
+
+	/**
+	 * Reader positioned at the oldest record still in the journal.
+	 */
+	public JournalReader reader() {
+		return new JournalReader( this.directory, this.serializers, null );
+	}
+
+	/**
+	 * Reader positioned at {@code from}, which is returned again by the first
+	 * {@link JournalReader#next()}.
+	 */
+	public JournalReader reader( JournalPosition from ) {
+		return new JournalReader( this.directory, this.serializers, from );
+	}
+
+	/**
+	 * Removes whole segments older than the one holding {@code position},
+	 * typically the last position forwarded downstream.
+	 */
+	public synchronized void deleteSegmentsBefore( JournalPosition position ) throws IOException {
+		for ( Path path : AuditJournal.listSegments( this.directory ) ) {
+			if ( AuditJournal.segmentNumber( path ) < Math.min( position.getSegment(), this.segment ) ) {
+				Files.deleteIfExists( path );
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.buffer.force();
+		this.channel.close();
+	}
+
+	/**
+	 * Drops a partially written frame. The serializer may have learned state
+	 * from it, so it is replaced, which needs a fresh segment unless this one
+	 * is still empty.
+	 */
+	private void discard( int start ) throws IOException {
+		this.buffer.position( start );
+		if ( start == SEGMENT_HEADER_SIZE ) {
+			this.serializer = this.serializers.get();
+		} else {
+			this.roll();
+		}
+	}
+
+	private void roll() throws IOException {
+		if ( this.buffer.remaining() >= 4 ) {
+			this.buffer.putInt( this.buffer.position(), END_OF_SEGMENT );
+		}
+		this.buffer.force();
+		this.channel.close();
+		this.create( this.segment + 1 );
+	}
+
+	private void create( long number ) throws IOException {
+		this.segment = number;
+		this.segmentCreatedMillis = System.currentTimeMillis();
+		this.serializer = this.serializers.get();
+		this.channel = FileChannel.open( AuditJournal.segmentPath( this.directory, number ),
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		this.buffer = this.channel.map( FileChannel.MapMode.READ_WRITE, 0, this.segmentSize );
+		this.buffer.putInt( MAGIC ).putInt( VERSION ).putLong( this.segmentCreatedMillis );
+	}
+
+	private void reopen( Path path ) throws IOException {
+		this.segment = AuditJournal.segmentNumber( path );
+		this.channel = FileChannel.open( path, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		this.buffer = this.channel.map( FileChannel.MapMode.READ_WRITE, 0, this.channel.size() );
+		AuditJournal.checkHeader( this.buffer, path );
+		this.segmentCreatedMillis = this.buffer.getLong( 8 );
+		this.serializer = this.serializers.get();
+		int end = AuditJournal.replay( this.buffer, Integer.MAX_VALUE, this.serializer, this.crc );
+		this.buffer.position( end );
+		if ( end + 4 <= this.buffer.limit() && this.buffer.getInt( end ) == END_OF_SEGMENT ) {
+			this.channel.close();
+			this.create( this.segment + 1 );
+		}
+	}
+
+	/**
+	 * Feeds the valid frames before {@code until} to {@code serializer}, so it
+	 * reaches the state it had when writing them.
+	 *
+	 * @return offset right after the last frame read
+	 */
+	static int replay( ByteBuffer segment, int until, RecordSerializer serializer, CRC32 crc ) {
+		int offset = SEGMENT_HEADER_SIZE;
+		int length;
+		while ( offset < until && ( length = AuditJournal.validFrameLength( segment, offset, crc ) ) > 0 ) {
+			int payload = offset + FRAME_HEADER_SIZE;
+			try {
+				serializer.read( segment.duplicate().position( payload ).limit( payload + length ).slice() );
+			} catch ( IOException e ) {
+				break;
+			}
+			offset = payload + length;
+		}
+		return offset;
+	}
+
+	/**
+	 * @return payload length of a complete frame at {@code offset} whose CRC
+	 *         matches, or the raw length value (0 or -1) otherwise
+	 */
+	static int validFrameLength( ByteBuffer segment, int offset, CRC32 crc ) {
+		if ( offset + FRAME_HEADER_SIZE > segment.limit() ) {
+			return 0;
+		}
+		int length = segment.getInt( offset );
+		if ( length <= 0 ) {
+			return length;
+		}
+		if ( offset + FRAME_HEADER_SIZE + length > segment.limit() ) {
+			return 0;
+		}
+		crc.reset();
+		crc.update( segment.duplicate().position( offset + FRAME_HEADER_SIZE )
+				.limit( offset + FRAME_HEADER_SIZE + length ) );
+		return ( int ) crc.getValue() == segment.getInt( offset + 4 ) ? length : 0;
+	}
+
+	static void checkHeader( ByteBuffer segment, Path path ) throws IOException {
+		if ( segment.limit() < SEGMENT_HEADER_SIZE || segment.getInt( 0 ) != MAGIC ) {
+			throw new IOException( "Not a journal segment: " + path );
+		}
+	}
+
+	static Path segmentPath( Path directory, long number ) {
+		return directory.resolve( String.format( "%020d%s", number, SEGMENT_SUFFIX ) );
+	}
+
+	static long segmentNumber( Path path ) {
+		var name = path.getFileName().toString();
+		return Long.parseLong( name.substring( 0, name.length() - SEGMENT_SUFFIX.length() ) );
+	}
+
+	static List< Path > listSegments( Path directory ) throws IOException {
+		try ( Stream< Path > files = Files.list( directory ) ) {
+			return files.filter( path -> path.getFileName().toString().endsWith( SEGMENT_SUFFIX ) )
+					.sorted()
+					.collect( Collectors.toList() );
+		}
+	}
+
+	public static class Builder {
+		private Path directory;
+		private int segmentSize = DEFAULT_SEGMENT_SIZE;
+		private Duration maxSegmentAge = DEFAULT_MAX_SEGMENT_AGE;
+		private Supplier< RecordSerializer > serializers = BinaryRecordSerializer::new;
+		private boolean forceOnFlush = true;
+
+		public Builder withDirectory( Path directory ) {
+			this.directory = directory;
+			return this;
+		}
+
+		public Builder withSegmentSize( int segmentSize ) {
+			this.segmentSize = segmentSize;
+			return this;
+		}
+
+		public Builder withMaxSegmentAge( Duration maxSegmentAge ) {
+			this.maxSegmentAge = maxSegmentAge;
+			return this;
+		}
+
+		/**
+		 * Payload format, {@link BinaryRecordSerializer} by default. Called
+		 * once per segment written or read.
+		 */
+		public Builder withSerializer( Supplier< RecordSerializer > serializers ) {
+			this.serializers = serializers;
+			return this;
+		}
+
+		/**
+		 * Whether {@link AuditJournal#flush()} forces the mapped pages to
+		 * disk; without it durability is left to the OS page cache.
+		 */
+		public Builder withForceOnFlush( boolean forceOnFlush ) {
+			this.forceOnFlush = forceOnFlush;
+			return this;
+		}
+
+		public AuditJournal build() throws IOException {
+			if ( directory == null ) {
+				throw new IllegalArgumentException( "Journal directory is required" );
+			}
+			if ( segmentSize <= SEGMENT_HEADER_SIZE + FRAME_HEADER_SIZE ) {
+				throw new IllegalArgumentException( "Segment size too small" );
+			}
+			return new AuditJournal( directory, segmentSize, maxSegmentAge, serializers, forceOnFlush );
+		}
+	}
+
+}
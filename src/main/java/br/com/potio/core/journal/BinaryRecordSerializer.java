@@ -0,0 +1,43 @@
+package br.com.potio.core.journal;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import br.com.potio.core.codec.AuditCodec;
+import br.com.potio.core.codec.BinaryDecoder;
+import br.com.potio.core.codec.BinaryEncoder;
+import br.com.potio.core.codec.StringTable;
+import br.com.potio.core.sink.AuditRecord;
+
+/**
+ * {@link RecordSerializer} using {@link AuditCodec}. Repeated strings are
+ * learned in a {@link StringTable} that lives as long as this instance, which
+ * the journal scopes to one segment.
+ */
+public class BinaryRecordSerializer implements RecordSerializer {
+
+	private final BinaryEncoder encoder;
+	private final BinaryDecoder decoder;
+
+	public BinaryRecordSerializer() {
+		var table = new StringTable();
+		this.encoder = new BinaryEncoder( table );
+		this.decoder = new BinaryDecoder( table );
+	}
+
+	@Override
+	public void write( AuditRecord record, ByteBuffer target ) {
+		AuditCodec.encode( record, this.encoder.target( target ) );
+	}
+
+	@Override
+	public AuditRecord read( ByteBuffer source ) throws IOException {
+		try {
+			return AuditCodec.decodeRecord( this.decoder.source( source ) );
+		} catch ( BufferUnderflowException | IllegalArgumentException | IllegalStateException e ) {
+			throw new IOException( "Corrupt audit record", e );
+		}
+	}
+
+}
@@ -0,0 +1,37 @@
+package br.com.potio.core.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+import br.com.potio.core.sink.AuditRecord;
+
+/**
+ * {@link RecordSerializer} based on Java serialization of the DTOs.
+ */
+public class JavaRecordSerializer implements RecordSerializer {
+
+	@Override
+	public void write( AuditRecord record, ByteBuffer target ) throws IOException {
+		var bytes = new ByteArrayOutputStream( 1024 );
+		try ( var out = new ObjectOutputStream( bytes ) ) {
+			out.writeObject( record );
+		}
+		target.put( bytes.toByteArray() );
+	}
+
+	@Override
+	public AuditRecord read( ByteBuffer source ) throws IOException {
+		var bytes = new byte[ source.remaining() ];
+		source.get( bytes );
+		try ( var in = new ObjectInputStream( new ByteArrayInputStream( bytes ) ) ) {
+			return ( AuditRecord ) in.readObject();
+		} catch ( ClassNotFoundException e ) {
+			throw new IOException( "Unknown record class", e );
+		}
+	}
+
+}
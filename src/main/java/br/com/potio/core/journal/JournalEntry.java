@@ -0,0 +1,23 @@
+package br.com.potio.core.journal;
+
+import br.com.potio.core.sink.AuditRecord;
+
+public class JournalEntry {
+
+	private final JournalPosition position;
+	private final AuditRecord record;
+
+	JournalEntry( JournalPosition position, AuditRecord record ) {
+		this.position = position;
+		this.record = record;
+	}
+
+	public JournalPosition getPosition() {
+		return position;
+	}
+
+	public AuditRecord getRecord() {
+		return record;
+	}
+
+}
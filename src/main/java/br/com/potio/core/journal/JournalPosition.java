@@ -0,0 +1,52 @@
+package br.com.potio.core.journal;
+
+import java.io.Serializable;
+
+/**
+ * Location of a record in the journal: segment number and byte offset of its
+ * frame. Positions are ordered, so a shipper can checkpoint the last one it
+ * forwarded and resume from it.
+ */
+public class JournalPosition implements Comparable< JournalPosition >, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long segment;
+	private final int offset;
+
+	public JournalPosition( long segment, int offset ) {
+		this.segment = segment;
+		this.offset = offset;
+	}
+
+	public long getSegment() {
+		return segment;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	@Override
+	public int compareTo( JournalPosition other ) {
+		int bySegment = Long.compare( this.segment, other.segment );
+		return bySegment != 0 ? bySegment : Integer.compare( this.offset, other.offset );
+	}
+
+	@Override
+	public boolean equals( Object obj ) {
+		return obj instanceof JournalPosition other
+				&& this.segment == other.segment && this.offset == other.offset;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode( this.segment ) * 31 + this.offset;
+	}
+
+	@Override
+	public String toString() {
+		return this.segment + ":" + this.offset;
+	}
+
+}
@@ -0,0 +1,98 @@
+package br.com.potio.core.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Sequential reader over the journal segments, for shipping or reprocessing.
+ * {@link #next()} returns {@code null} once it has caught up with the writer
+ * and can be called again later to tail new records.
+ */
+public class JournalReader implements Closeable {
+
+	private final Path directory;
+	private final Supplier< RecordSerializer > serializers;
+	private final CRC32 crc = new CRC32();
+	private long segment;
+	private int offset;
+	private MappedByteBuffer buffer;
+	private RecordSerializer serializer;
+
+	JournalReader( Path directory, Supplier< RecordSerializer > serializers, JournalPosition from ) {
+		this.directory = directory;
+		this.serializers = serializers;
+		this.segment = from == null ? -1 : from.getSegment();
+		this.offset = from == null ? AuditJournal.SEGMENT_HEADER_SIZE : from.getOffset();
+	}
+
+	/**
+	 * @return the next complete record, or {@code null} when none is
+	 *         available yet
+	 */
+	public synchronized JournalEntry next() throws IOException {
+		while ( true ) {
+			if ( this.buffer == null && !this.open() ) {
+				return null;
+			}
+			int length = AuditJournal.validFrameLength( this.buffer, this.offset, this.crc );
+			if ( length > 0 ) {
+				var position = new JournalPosition( this.segment, this.offset );
+				int payload = this.offset + AuditJournal.FRAME_HEADER_SIZE;
+				var record = this.serializer.read( this.buffer.duplicate().position( payload )
+						.limit( payload + length ).slice() );
+				this.offset = payload + length;
+				return new JournalEntry( position, record );
+			}
+			// nothing complete here: either the writer moved on or we caught up
+			if ( !Files.exists( AuditJournal.segmentPath( this.directory, this.segment + 1 ) ) ) {
+				return null;
+			}
+			this.segment++;
+			this.offset = AuditJournal.SEGMENT_HEADER_SIZE;
+			this.buffer = null;
+		}
+	}
+
+	/**
+	 * Position the next call to {@link #next()} will read from.
+	 */
+	public synchronized JournalPosition position() {
+		return new JournalPosition( Math.max( 0, this.segment ), this.offset );
+	}
+
+	private boolean open() throws IOException {
+		var segments = AuditJournal.listSegments( this.directory );
+		for ( Path path : segments ) {
+			long number = AuditJournal.segmentNumber( path );
+			if ( number >= this.segment ) {
+				if ( number != this.segment ) {
+					this.offset = AuditJournal.SEGMENT_HEADER_SIZE;
+				}
+				this.segment = number;
+				try ( var channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+					this.buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+				}
+				AuditJournal.checkHeader( this.buffer, path );
+				this.serializer = this.serializers.get();
+				if ( this.offset > AuditJournal.SEGMENT_HEADER_SIZE ) {
+					AuditJournal.replay( this.buffer, this.offset, this.serializer, this.crc );
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized void close() {
+		this.buffer = null;
+	}
+
+}
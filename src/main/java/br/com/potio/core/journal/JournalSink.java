@@ -0,0 +1,35 @@
+package br.com.potio.core.journal;
+
+import java.io.IOException;
+import java.util.List;
+
+import br.com.potio.core.sink.AuditRecord;
+import br.com.potio.core.sink.AuditSink;
+
+/**
+ * {@link AuditSink} appending every batch to an {@link AuditJournal} and
+ * flushing it once per batch. Forwarding to a database is left to a
+ * {@link JournalReader} running at its own pace.
+ */
+public class JournalSink implements AuditSink {
+
+	private final AuditJournal journal;
+
+	public JournalSink( AuditJournal journal ) {
+		this.journal = journal;
+	}
+
+	@Override
+	public void deliver( List< AuditRecord > batch ) throws IOException {
+		for ( AuditRecord record : batch ) {
+			this.journal.append( record );
+		}
+		this.journal.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.journal.close();
+	}
+
+}
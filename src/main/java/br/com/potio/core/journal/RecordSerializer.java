@@ -0,0 +1,30 @@
+package br.com.potio.core.journal;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import br.com.potio.core.sink.AuditRecord;
+
+/**
+ * Payload format of the records stored in an {@link AuditJournal}.
+ *
+ * An instance may keep state across records, like a dictionary of repeated
+ * strings: the journal takes a fresh one per segment and reads the records of
+ * a segment with its own fresh instance, in the order they were written.
+ */
+public interface RecordSerializer {
+
+	/**
+	 * Writes the record at the buffer position.
+	 *
+	 * @throws BufferOverflowException when the record does not fit
+	 */
+	void write( AuditRecord record, ByteBuffer target ) throws IOException;
+
+	/**
+	 * Reads a record from the whole remaining content of {@code source}.
+	 */
+	AuditRecord read( ByteBuffer source ) throws IOException;
+
+}
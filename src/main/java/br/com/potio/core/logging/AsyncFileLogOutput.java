@@ -0,0 +1,367 @@
+package br.com.potio.core.logging;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link LogOutput} that never writes on the caller thread. Messages go to
+ * one of several bounded queues, picked by thread id so producers rarely
+ * share a lock, and a single writer thread drains them into a rolling file
+ * through a {@link FileChannel}, batching many messages per write.
+ *
+ * When writing fails, the batch is discarded and the writer waits a flush
+ * interval before retrying; after several failures in a row, queued messages
+ * are counted as dropped until a write succeeds again.
+ */
+public class AsyncFileLogOutput implements LogOutput {
+
+	private static final Logger logger = Logger.getLogger( AsyncFileLogOutput.class.getName() );
+	private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+	private static final int DEFAULT_BATCH_BYTES = 64 * 1024;
+	private static final long DEFAULT_MAX_FILE_SIZE = 64L * 1024 * 1024;
+	private static final int DEFAULT_MAX_BACKUPS = 5;
+	private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis( 50 );
+	private static final int MAX_CONSECUTIVE_FAILURES = 5;
+
+	public enum OverflowPolicy {
+		/** Discards the new message. */
+		DROP,
+		/** Discards the oldest queued message of the stripe. */
+		DROP_OLDEST,
+		/** Waits for room, up to the configured timeout. */
+		BLOCK
+	}
+
+	private final Path file;
+	private final ArrayBlockingQueue< String >[] stripes;
+	private final OverflowPolicy overflowPolicy;
+	private final long blockTimeoutNanos;
+	private final long maxFileSize;
+	private final int maxBackups;
+	private final long flushIntervalNanos;
+	private final ByteBuffer batch;
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput( CodingErrorAction.REPLACE )
+			.onUnmappableCharacter( CodingErrorAction.REPLACE );
+	private final LongAdder dropped = new LongAdder();
+	private final Thread writer;
+	private FileChannel channel;
+	private long fileSize;
+	/** messages in the batch, touched by the writer thread only */
+	private int batchMessages;
+	private int failures;
+	private volatile boolean idle;
+	private volatile boolean running = true;
+
+	@SuppressWarnings( { "unchecked", "rawtypes" } )
+	AsyncFileLogOutput( Path file, int stripes, int queueCapacity, OverflowPolicy overflowPolicy,
+			Duration blockTimeout, long maxFileSize, int maxBackups, int batchBytes, Duration flushInterval )
+			throws IOException {
+		this.file = file;
+		this.stripes = new ArrayBlockingQueue[ stripes ];
+		for ( int i = 0; i < stripes; i++ ) {
+			this.stripes[ i ] = new ArrayBlockingQueue<>( Math.max( 1, queueCapacity / stripes ) );
+		}
+		this.overflowPolicy = overflowPolicy;
+		this.blockTimeoutNanos = blockTimeout.toNanos();
+		this.maxFileSize = maxFileSize;
+		this.maxBackups = maxBackups;
+		this.flushIntervalNanos = flushInterval.toNanos();
+		this.batch = ByteBuffer.allocateDirect( batchBytes );
+		this.open();
+		this.writer = new Thread( this::drain, "audit-log-writer-" + file.getFileName() );
+		this.writer.setDaemon( true );
+		this.writer.start();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public void write( CharSequence message ) {
+		var stripe = this.stripes[ ( int ) ( Thread.currentThread().getId() % this.stripes.length ) ];
+		var text = message.toString();
+		if ( !this.running || !this.enqueue( stripe, text ) ) {
+			this.dropped.increment();
+			return;
+		}
+		if ( this.idle ) {
+			LockSupport.unpark( this.writer );
+		}
+	}
+
+	private boolean enqueue( ArrayBlockingQueue< String > stripe, String text ) {
+		if ( stripe.offer( text ) ) {
+			return true;
+		}
+		switch ( this.overflowPolicy ) {
+		case DROP_OLDEST:
+			while ( !stripe.offer( text ) ) {
+				if ( stripe.poll() != null ) {
+					this.dropped.increment();
+				}
+			}
+			return true;
+		case BLOCK:
+			try {
+				LockSupport.unpark( this.writer );
+				return stripe.offer( text, this.blockTimeoutNanos, TimeUnit.NANOSECONDS );
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		default:
+			return false;
+		}
+	}
+
+	public long getDroppedCount() {
+		return this.dropped.sum();
+	}
+
+	private void drain() {
+		while ( this.running || !this.isEmpty() ) {
+			try {
+				if ( this.drainStripes() == 0 ) {
+					this.flush();
+					this.idle = true;
+					if ( this.isEmpty() && this.running ) {
+						LockSupport.parkNanos( this, this.flushIntervalNanos );
+					}
+					this.idle = false;
+				}
+			} catch ( IOException e ) {
+				this.failed( e );
+			}
+		}
+		try {
+			this.flush();
+			this.channel.close();
+		} catch ( IOException e ) {
+			AsyncFileLogOutput.logger.log( Level.SEVERE, "Error while closing log file " + this.file, e );
+		}
+	}
+
+	/**
+	 * Drops the batch, which may be half written, and backs off; once failing
+	 * for a while, drops what is queued as well, so producers and
+	 * {@link #close()} are not held up by a file that cannot be written.
+	 */
+	private void failed( IOException e ) {
+		this.failures++;
+		this.dropped.add( this.batchMessages );
+		this.batchMessages = 0;
+		this.batch.clear();
+		if ( this.failures == 1 ) {
+			AsyncFileLogOutput.logger.log( Level.SEVERE, "Error while writing log file " + this.file, e );
+		} else {
+			AsyncFileLogOutput.logger.log( Level.FINE, "Error while writing log file " + this.file, e );
+		}
+		if ( this.failures >= MAX_CONSECUTIVE_FAILURES ) {
+			if ( this.failures == MAX_CONSECUTIVE_FAILURES ) {
+				AsyncFileLogOutput.logger.warning( "Dropping log messages until " + this.file + " can be written" );
+			}
+			for ( ArrayBlockingQueue< String > stripe : this.stripes ) {
+				while ( stripe.poll() != null ) {
+					this.dropped.increment();
+				}
+			}
+		}
+		LockSupport.parkNanos( this, this.flushIntervalNanos );
+	}
+
+	private int drainStripes() throws IOException {
+		int drained = 0;
+		for ( ArrayBlockingQueue< String > stripe : this.stripes ) {
+			String message;
+			while ( ( message = stripe.poll() ) != null ) {
+				this.append( message );
+				drained++;
+			}
+		}
+		return drained;
+	}
+
+	private boolean isEmpty() {
+		for ( ArrayBlockingQueue< String > stripe : this.stripes ) {
+			if ( !stripe.isEmpty() ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void append( String message ) throws IOException {
+		this.batchMessages++;
+		var chars = CharBuffer.wrap( message );
+		this.encoder.reset();
+		while ( this.encoder.encode( chars, this.batch, true ).isOverflow() ) {
+			this.flush();
+		}
+		while ( this.encoder.flush( this.batch ).isOverflow() ) {
+			this.flush();
+		}
+		if ( !this.batch.hasRemaining() ) {
+			this.flush();
+		}
+		this.batch.put( ( byte ) '\n' );
+	}
+
+	private void flush() throws IOException {
+		if ( this.batch.position() == 0 ) {
+			return;
+		}
+		if ( !this.channel.isOpen() ) {
+			// closed by a roll that failed half way
+			this.open();
+		}
+		this.batch.flip();
+		while ( this.batch.hasRemaining() ) {
+			this.fileSize += this.channel.write( this.batch );
+		}
+		this.batch.clear();
+		this.batchMessages = 0;
+		if ( this.fileSize >= this.maxFileSize ) {
+			this.roll();
+		}
+		if ( this.failures > 0 ) {
+			this.failures = 0;
+			AsyncFileLogOutput.logger.info( "Writing log file " + this.file + " again" );
+		}
+	}
+
+	private void roll() throws IOException {
+		this.channel.close();
+		for ( int i = this.maxBackups - 1; i >= 1; i-- ) {
+			var source = this.backup( i );
+			if ( Files.exists( source ) ) {
+				Files.move( source, this.backup( i + 1 ), StandardCopyOption.REPLACE_EXISTING );
+			}
+		}
+		if ( this.maxBackups > 0 ) {
+			Files.move( this.file, this.backup( 1 ), StandardCopyOption.REPLACE_EXISTING );
+		} else {
+			Files.delete( this.file );
+		}
+		this.open();
+	}
+
+	private Path backup( int index ) {
+		return this.file.resolveSibling( this.file.getFileName() + "." + index );
+	}
+
+	private void open() throws IOException {
+		var parent = this.file.toAbsolutePath().getParent();
+		if ( parent != null ) {
+			Files.createDirectories( parent );
+		}
+		this.channel = FileChannel.open( this.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND );
+		this.fileSize = this.channel.size();
+	}
+
+	/**
+	 * Stops accepting messages and waits for the queued ones to be written.
+	 */
+	@Override
+	public void close() {
+		this.running = false;
+		LockSupport.unpark( this.writer );
+		try {
+			this.writer.join( TimeUnit.SECONDS.toMillis( 5 ) );
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public static class Builder {
+		private Path file;
+		private int stripes = Math.max( 1, Runtime.getRuntime().availableProcessors() );
+		private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+		private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+		private Duration blockTimeout = Duration.ofMillis( 100 );
+		private long maxFileSize = DEFAULT_MAX_FILE_SIZE;
+		private int maxBackups = DEFAULT_MAX_BACKUPS;
+		private int batchBytes = DEFAULT_BATCH_BYTES;
+		private Duration flushInterval = DEFAULT_FLUSH_INTERVAL;
+
+		public Builder withFile( Path file ) {
+			this.file = file;
+			return this;
+		}
+
+		public Builder withStripes( int stripes ) {
+			this.stripes = stripes;
+			return this;
+		}
+
+		/**
+		 * Total number of queued messages, split among the stripes.
+		 */
+		public Builder withQueueCapacity( int queueCapacity ) {
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		public Builder withOverflowPolicy( OverflowPolicy overflowPolicy ) {
+			this.overflowPolicy = overflowPolicy;
+			return this;
+		}
+
+		public Builder withBlockTimeout( Duration blockTimeout ) {
+			this.blockTimeout = blockTimeout;
+			return this;
+		}
+
+		public Builder withMaxFileSize( long maxFileSize ) {
+			this.maxFileSize = maxFileSize;
+			return this;
+		}
+
+		public Builder withMaxBackups( int maxBackups ) {
+			this.maxBackups = maxBackups;
+			return this;
+		}
+
+		public Builder withBatchBytes( int batchBytes ) {
+			this.batchBytes = batchBytes;
+			return this;
+		}
+
+		public Builder withFlushInterval( Duration flushInterval ) {
+			this.flushInterval = flushInterval;
+			return this;
+		}
+
+		public AsyncFileLogOutput build() {
+			if ( file == null ) {
+				throw new IllegalArgumentException( "Log file is required" );
+			}
+			try {
+				return new AsyncFileLogOutput( file, Math.max( 1, stripes ), queueCapacity, overflowPolicy,
+						blockTimeout, maxFileSize, maxBackups, Math.max( 1024, batchBytes ), flushInterval );
+			} catch ( IOException e ) {
+				throw new UncheckedIOException( "Could not open log file " + file, e );
+			}
+		}
+	}
+
+}
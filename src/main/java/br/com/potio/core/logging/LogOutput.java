@@ -0,0 +1,16 @@
+package br.com.potio.core.logging;
+
+/**
+ * Destination of the messages rendered by the logging filter.
+ * Implementations must copy the message before returning, since callers may
+ * reuse the builder.
+ */
+@FunctionalInterface
+public interface LogOutput {
+
+	void write( CharSequence message );
+
+	default void close() {
+	}
+
+}
@@ -0,0 +1,260 @@
+package br.com.potio.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import br.com.potio.core.dto.BodyContent;
+import br.com.potio.core.sampling.Sampler;
+import br.com.potio.core.sink.AuditDispatcher;
+import br.com.potio.core.sink.CaptureLevel;
+
+/**
+ * RED metrics of the audited traffic, per server route and per downstream
+ * host, plus the health of the audit pipeline itself. Every getter is a
+ * cheap pull, suitable for binding MicroProfile Metrics gauges; the same
+ * values are published over JMX as
+ * {@code br.com.potio.http_auditor:type=AuditMetrics,name=<name>}.
+ *
+ * The number of tracked endpoints is bounded; the rest is grouped under
+ * {@value #OTHER}.
+ */
+public class AuditMetrics implements AuditMetricsMXBean, AutoCloseable {
+
+	public static final String OTHER = "(other)";
+	private static final String JMX_DOMAIN = "br.com.potio.http_auditor";
+	private static final int DEFAULT_MAX_ENDPOINTS = 256;
+	private static final Logger logger = Logger.getLogger( AuditMetrics.class.getName() );
+
+	private final String name;
+	private final int maxEndpoints;
+	private final ConcurrentHashMap< String, EndpointMetrics > routes = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap< String, EndpointMetrics > hosts = new ConcurrentHashMap<>();
+	private final LongAdder capturedBytes = new LongAdder();
+	private final LongAdder truncatedBodies = new LongAdder();
+	private final LongAdder abandonedCaptures = new LongAdder();
+	private volatile Sampler sampler;
+	private volatile AuditDispatcher dispatcher;
+	private ObjectName objectName;
+
+	AuditMetrics( String name, int maxEndpoints ) {
+		this.name = name;
+		this.maxEndpoints = maxEndpoints;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public void recordRoute( String route, int status, long nanos ) {
+		AuditMetrics.endpoint( this.routes, route, this.maxEndpoints ).record( status, nanos );
+	}
+
+	public void recordHost( String host, int status, long nanos ) {
+		AuditMetrics.endpoint( this.hosts, host, this.maxEndpoints ).record( status, nanos );
+	}
+
+	public void recordBody( BodyContent body ) {
+		if ( body != null ) {
+			this.capturedBytes.add( body.length() );
+			if ( body.isTruncated() ) {
+				this.truncatedBodies.increment();
+			}
+		}
+	}
+
+	/**
+	 * Exchange completed without its response body because the entity was
+	 * never written or read to the end.
+	 */
+	public void recordAbandoned() {
+		this.abandonedCaptures.increment();
+	}
+
+	/**
+	 * Source of the sampled-out count.
+	 */
+	public void bind( Sampler sampler ) {
+		this.sampler = sampler;
+	}
+
+	/**
+	 * Source of the dropped, degraded and queue depth figures.
+	 */
+	public void bind( AuditDispatcher dispatcher ) {
+		this.dispatcher = dispatcher;
+	}
+
+	public EndpointMetrics getRoute( String route ) {
+		return this.routes.get( route );
+	}
+
+	public EndpointMetrics getHost( String host ) {
+		return this.hosts.get( host );
+	}
+
+	@Override
+	public Map< String, EndpointStats > getRoutes() {
+		return AuditMetrics.stats( this.routes );
+	}
+
+	@Override
+	public Map< String, EndpointStats > getHosts() {
+		return AuditMetrics.stats( this.hosts );
+	}
+
+	@Override
+	public long getCapturedBytes() {
+		return this.capturedBytes.sum();
+	}
+
+	@Override
+	public long getTruncatedBodies() {
+		return this.truncatedBodies.sum();
+	}
+
+	@Override
+	public long getAbandonedCaptures() {
+		return this.abandonedCaptures.sum();
+	}
+
+	@Override
+	public long getSampledOut() {
+		var current = this.sampler;
+		return current == null ? 0 : current.getSampledOutCount();
+	}
+
+	@Override
+	public long getDropped() {
+		var current = this.dispatcher;
+		return current == null ? 0 : current.getDroppedCount();
+	}
+
+	@Override
+	public long getMetadataOnly() {
+		var current = this.dispatcher;
+		return current == null ? 0 : current.getOverloadPolicy().getAdmittedCount( CaptureLevel.METADATA_ONLY );
+	}
+
+	@Override
+	public long getCountersOnly() {
+		var current = this.dispatcher;
+		return current == null ? 0 : current.getOverloadPolicy().getAdmittedCount( CaptureLevel.COUNTERS_ONLY );
+	}
+
+	@Override
+	public int getQueueDepth() {
+		var current = this.dispatcher;
+		return current == null ? 0 : current.getQueueDepth();
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Registers under the metrics name, suffixed with {@code #2}, {@code #3}
+	 * and so on when other instances of the same filter already took it, as
+	 * Rest Clients create providers per client.
+	 */
+	synchronized void registerMBean() {
+		var server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			for ( int instance = 1; this.objectName == null; instance++ ) {
+				var candidate = new ObjectName( JMX_DOMAIN, new Hashtable<>( Map.of( "type", "AuditMetrics",
+						"name", ObjectName.quote( instance == 1 ? this.name : this.name + " #" + instance ) ) ) );
+				try {
+					server.registerMBean( this, candidate );
+					this.objectName = candidate;
+				} catch ( InstanceAlreadyExistsException e ) {
+					// taken by another instance, try the next suffix
+				}
+			}
+		} catch ( JMException e ) {
+			AuditMetrics.logger.log( Level.WARNING, "Audit metrics not published over JMX", e );
+		}
+	}
+
+	/**
+	 * Name the metrics are published under over JMX, {@code null} when they
+	 * are not.
+	 */
+	public synchronized ObjectName getObjectName() {
+		return this.objectName;
+	}
+
+	/**
+	 * Removes the JMX registration, if any.
+	 */
+	@Override
+	public synchronized void close() {
+		if ( this.objectName != null ) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean( this.objectName );
+			} catch ( JMException e ) {
+				AuditMetrics.logger.log( Level.FINE, "Audit metrics already unregistered", e );
+			}
+			this.objectName = null;
+		}
+	}
+
+	private static EndpointMetrics endpoint( ConcurrentHashMap< String, EndpointMetrics > endpoints, String key,
+			int max ) {
+		var endpoint = endpoints.get( key );
+		if ( endpoint == null ) {
+			var bounded = endpoints.size() < max ? key : OTHER;
+			endpoint = endpoints.computeIfAbsent( bounded, k -> new EndpointMetrics() );
+		}
+		return endpoint;
+	}
+
+	private static Map< String, EndpointStats > stats( Map< String, EndpointMetrics > endpoints ) {
+		var stats = new TreeMap< String, EndpointStats >();
+		endpoints.forEach( ( key, endpoint ) -> stats.put( key, endpoint.stats() ) );
+		return Collections.unmodifiableMap( stats );
+	}
+
+	public static class Builder {
+		private String name = "default";
+		private int maxEndpoints = DEFAULT_MAX_ENDPOINTS;
+		private boolean jmx = true;
+
+		public Builder withName( String name ) {
+			this.name = name;
+			return this;
+		}
+
+		public Builder withMaxEndpoints( int maxEndpoints ) {
+			this.maxEndpoints = maxEndpoints;
+			return this;
+		}
+
+		/**
+		 * Whether to register the metrics as a platform MXBean, on by
+		 * default.
+		 */
+		public Builder withJmx( boolean jmx ) {
+			this.jmx = jmx;
+			return this;
+		}
+
+		public AuditMetrics build() {
+			var metrics = new AuditMetrics( name, maxEndpoints );
+			if ( jmx ) {
+				metrics.registerMBean();
+			}
+			return metrics;
+		}
+	}
+
+}
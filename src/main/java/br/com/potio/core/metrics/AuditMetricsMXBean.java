@@ -0,0 +1,30 @@
+package br.com.potio.core.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link AuditMetrics}.
+ */
+public interface AuditMetricsMXBean {
+
+	Map< String, EndpointStats > getRoutes();
+
+	Map< String, EndpointStats > getHosts();
+
+	long getCapturedBytes();
+
+	long getTruncatedBodies();
+
+	long getAbandonedCaptures();
+
+	long getSampledOut();
+
+	long getDropped();
+
+	long getMetadataOnly();
+
+	long getCountersOnly();
+
+	int getQueueDepth();
+
+}
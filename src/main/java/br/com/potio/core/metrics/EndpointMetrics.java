@@ -0,0 +1,39 @@
+package br.com.potio.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate, errors and duration of one route or downstream host.
+ */
+public final class EndpointMetrics {
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder clientErrors = new LongAdder();
+	private final LongAdder serverErrors = new LongAdder();
+
+	public void record( int status, long nanos ) {
+		this.latency.record( nanos );
+		if ( status >= 500 ) {
+			this.serverErrors.increment();
+		} else if ( status >= 400 ) {
+			this.clientErrors.increment();
+		}
+	}
+
+	public LatencyHistogram getLatency() {
+		return this.latency;
+	}
+
+	public long getClientErrorCount() {
+		return this.clientErrors.sum();
+	}
+
+	public long getServerErrorCount() {
+		return this.serverErrors.sum();
+	}
+
+	public EndpointStats stats() {
+		return new EndpointStats( this.latency.snapshot(), this.clientErrors.sum(), this.serverErrors.sum() );
+	}
+
+}
@@ -0,0 +1,63 @@
+package br.com.potio.core.metrics;
+
+/**
+ * Plain summary of an {@link EndpointMetrics}, durations in milliseconds.
+ * Maps to open data in JMX.
+ */
+public final class EndpointStats {
+
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	private final long count;
+	private final long clientErrorCount;
+	private final long serverErrorCount;
+	private final double meanMillis;
+	private final double p50Millis;
+	private final double p90Millis;
+	private final double p99Millis;
+	private final double maxMillis;
+
+	EndpointStats( HistogramSnapshot latency, long clientErrorCount, long serverErrorCount ) {
+		this.count = latency.getCount();
+		this.clientErrorCount = clientErrorCount;
+		this.serverErrorCount = serverErrorCount;
+		this.meanMillis = latency.getMean() / NANOS_PER_MILLI;
+		this.p50Millis = latency.getValueAtPercentile( 50 ) / NANOS_PER_MILLI;
+		this.p90Millis = latency.getValueAtPercentile( 90 ) / NANOS_PER_MILLI;
+		this.p99Millis = latency.getValueAtPercentile( 99 ) / NANOS_PER_MILLI;
+		this.maxMillis = latency.getMax() / NANOS_PER_MILLI;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getClientErrorCount() {
+		return clientErrorCount;
+	}
+
+	public long getServerErrorCount() {
+		return serverErrorCount;
+	}
+
+	public double getMeanMillis() {
+		return meanMillis;
+	}
+
+	public double getP50Millis() {
+		return p50Millis;
+	}
+
+	public double getP90Millis() {
+		return p90Millis;
+	}
+
+	public double getP99Millis() {
+		return p99Millis;
+	}
+
+	public double getMaxMillis() {
+		return maxMillis;
+	}
+
+}
@@ -0,0 +1,59 @@
+package br.com.potio.core.metrics;
+
+/**
+ * Point-in-time copy of a {@link LatencyHistogram}. Values are in
+ * nanoseconds.
+ */
+public final class HistogramSnapshot {
+
+	private final long[] counts;
+	private final long count;
+	private final long sum;
+	private final long max;
+
+	HistogramSnapshot( long[] counts, long count, long sum, long max ) {
+		this.counts = counts;
+		this.count = count;
+		this.sum = sum;
+		this.max = max;
+	}
+
+	public long getCount() {
+		return this.count;
+	}
+
+	public long getSum() {
+		return this.sum;
+	}
+
+	public long getMax() {
+		return this.max;
+	}
+
+	public double getMean() {
+		return this.count == 0 ? 0 : ( double ) this.sum / this.count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 */
+	public long getValueAtPercentile( double percentile ) {
+		long total = 0;
+		for ( long c : this.counts ) {
+			total += c;
+		}
+		if ( total == 0 ) {
+			return 0;
+		}
+		long target = Math.max( 1, ( long ) Math.ceil( total * Math.min( 100, percentile ) / 100 ) );
+		long seen = 0;
+		for ( int i = 0; i < this.counts.length; i++ ) {
+			seen += this.counts[ i ];
+			if ( seen >= target ) {
+				return Math.min( LatencyHistogram.valueOf( i ), this.max );
+			}
+		}
+		return this.max;
+	}
+
+}
@@ -0,0 +1,93 @@
+package br.com.potio.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency recorder with log-linear buckets, in the style of
+ * HdrHistogram: each power of two is split in 16 sub-buckets, which bounds
+ * the relative error to about 6% from 1 microsecond up to days. Writers are
+ * spread over a few stripes picked by thread id, so concurrent requests
+ * rarely touch the same cache line; readers merge the stripes.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** recorded unit is 1024 ns, close enough to a microsecond */
+	private static final int UNIT_SHIFT = 10;
+	private static final int MAX_EXPONENT = 40;
+	static final int BUCKETS = ( MAX_EXPONENT - SUB_BUCKET_BITS + 2 ) * SUB_BUCKETS;
+	private static final int COUNT_SLOT = BUCKETS;
+	private static final int SUM_SLOT = BUCKETS + 1;
+	private static final int MAX_SLOT = BUCKETS + 2;
+	private static final int STRIPES = Math.min( 8,
+			Integer.highestOneBit( Math.max( 1, Runtime.getRuntime().availableProcessors() ) ) );
+
+	private final AtomicLongArray[] stripes = new AtomicLongArray[ STRIPES ];
+
+	public LatencyHistogram() {
+		for ( int i = 0; i < STRIPES; i++ ) {
+			this.stripes[ i ] = new AtomicLongArray( MAX_SLOT + 1 );
+		}
+	}
+
+	public void record( long nanos ) {
+		if ( nanos < 0 ) {
+			return;
+		}
+		var stripe = this.stripes[ ( int ) Thread.currentThread().getId() & ( STRIPES - 1 ) ];
+		stripe.incrementAndGet( LatencyHistogram.bucketOf( nanos ) );
+		stripe.incrementAndGet( COUNT_SLOT );
+		stripe.addAndGet( SUM_SLOT, nanos );
+		long max = stripe.get( MAX_SLOT );
+		while ( nanos > max && !stripe.compareAndSet( MAX_SLOT, max, nanos ) ) {
+			max = stripe.get( MAX_SLOT );
+		}
+	}
+
+	/**
+	 * Merged copy of the stripes; records arriving meanwhile may or may not
+	 * be included.
+	 */
+	public HistogramSnapshot snapshot() {
+		var counts = new long[ BUCKETS ];
+		long count = 0;
+		long sum = 0;
+		long max = 0;
+		for ( AtomicLongArray stripe : this.stripes ) {
+			for ( int i = 0; i < BUCKETS; i++ ) {
+				counts[ i ] += stripe.get( i );
+			}
+			count += stripe.get( COUNT_SLOT );
+			sum += stripe.get( SUM_SLOT );
+			max = Math.max( max, stripe.get( MAX_SLOT ) );
+		}
+		return new HistogramSnapshot( counts, count, sum, max );
+	}
+
+	static int bucketOf( long nanos ) {
+		long value = nanos >>> UNIT_SHIFT;
+		if ( value < SUB_BUCKETS ) {
+			return ( int ) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros( value );
+		if ( exponent > MAX_EXPONENT ) {
+			return BUCKETS - 1;
+		}
+		int shift = exponent - SUB_BUCKET_BITS;
+		return ( ( shift + 1 ) << SUB_BUCKET_BITS ) + ( int ) ( ( value >>> shift ) & ( SUB_BUCKETS - 1 ) );
+	}
+
+	/**
+	 * Midpoint of the bucket, in nanoseconds.
+	 */
+	static long valueOf( int bucket ) {
+		if ( bucket < SUB_BUCKETS ) {
+			return ( ( long ) bucket << UNIT_SHIFT ) + ( 1L << ( UNIT_SHIFT - 1 ) );
+		}
+		int shift = ( bucket >>> SUB_BUCKET_BITS ) - 1;
+		long lower = ( long ) ( SUB_BUCKETS + ( bucket & ( SUB_BUCKETS - 1 ) ) ) << shift;
+		return ( lower << UNIT_SHIFT ) + ( 1L << ( shift + UNIT_SHIFT ) >>> 1 );
+	}
+
+}
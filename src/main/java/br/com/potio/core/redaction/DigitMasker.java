@@ -0,0 +1,185 @@
+package br.com.potio.core.redaction;
+
+/**
+ * Finds card numbers (13 to 19 digits with the prefix and length of a known
+ * card scheme, passing the Luhn check) and CPFs (11 digits with valid check
+ * digits) in runs of digits that may be separated by spaces, dots or dashes,
+ * as in {@code 4111 1111 1111 1111} or {@code 123.456.789-09}. The scheme
+ * check keeps timestamps, order numbers and other ids that happen to pass
+ * Luhn, one run in ten, from being masked.
+ */
+final class DigitMasker {
+
+	private static final int MAX_DIGITS = 19;
+
+	private final boolean cards;
+	private final boolean cpfs;
+
+	DigitMasker( boolean cards, boolean cpfs ) {
+		this.cards = cards;
+		this.cpfs = cpfs;
+	}
+
+	/**
+	 * Replaces the digits of every sensitive run in {@code bytes[from, to)}
+	 * with {@code '*'}, in place.
+	 *
+	 * @return whether anything was masked
+	 */
+	boolean mask( byte[] bytes, int from, int to ) {
+		boolean masked = false;
+		int i = from;
+		while ( i < to ) {
+			if ( !DigitMasker.isDigit( bytes[ i ] ) || ( i > from && DigitMasker.isWordByte( bytes[ i - 1 ] ) ) ) {
+				i++;
+				continue;
+			}
+			int end = DigitMasker.runEnd( bytes, i, to );
+			if ( ( end == to || !DigitMasker.isWordByte( bytes[ end ] ) ) && this.isSensitive( bytes, i, end ) ) {
+				for ( int j = i; j < end; j++ ) {
+					if ( DigitMasker.isDigit( bytes[ j ] ) ) {
+						bytes[ j ] = '*';
+					}
+				}
+				masked = true;
+			}
+			i = end;
+			while ( i < to && DigitMasker.isWordByte( bytes[ i ] ) ) {
+				i++;
+			}
+		}
+		return masked;
+	}
+
+	/**
+	 * Whether {@code bytes[from, to)} is exactly one sensitive run.
+	 */
+	boolean isSensitiveToken( byte[] bytes, int from, int to ) {
+		return from < to && DigitMasker.runEnd( bytes, from, to ) == to && this.isSensitive( bytes, from, to );
+	}
+
+	private boolean isSensitive( byte[] bytes, int from, int to ) {
+		int count = 0;
+		for ( int i = from; i < to; i++ ) {
+			if ( DigitMasker.isDigit( bytes[ i ] ) && ++count > MAX_DIGITS ) {
+				return false;
+			}
+		}
+		return ( this.cards && count >= 13 && DigitMasker.isCardPrefix( bytes, from, to, count )
+				&& DigitMasker.luhn( bytes, from, to ) )
+				|| ( this.cpfs && count == 11 && DigitMasker.cpf( bytes, from, to ) );
+	}
+
+	/**
+	 * End of the run of digits starting at {@code from}, where single
+	 * separators between digits are part of the run.
+	 */
+	private static int runEnd( byte[] bytes, int from, int to ) {
+		int end = from;
+		int i = from;
+		while ( i < to ) {
+			byte b = bytes[ i ];
+			if ( DigitMasker.isDigit( b ) ) {
+				end = ++i;
+			} else if ( ( b == ' ' || b == '.' || b == '-' ) && i + 1 < to && DigitMasker.isDigit( bytes[ i + 1 ] ) ) {
+				i++;
+			} else {
+				break;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Whether the issuer identification number fits a card scheme issuing
+	 * numbers of {@code length} digits: major industry identifiers 2 to 6.
+	 */
+	private static boolean isCardPrefix( byte[] bytes, int from, int to, int length ) {
+		int prefix = 0;
+		for ( int i = from, n = 0; i < to && n < 4; i++ ) {
+			if ( DigitMasker.isDigit( bytes[ i ] ) ) {
+				prefix = prefix * 10 + bytes[ i ] - '0';
+				n++;
+			}
+		}
+		int two = prefix / 100;
+		switch ( prefix / 1000 ) {
+			case 2:
+				// Mastercard 2-series
+				return prefix >= 2221 && prefix <= 2720 && length == 16;
+			case 3:
+				if ( two == 34 || two == 37 ) {
+					// American Express
+					return length == 15;
+				}
+				// Diners Club, JCB
+				return ( two >= 35 && two <= 36 || two >= 38 || prefix >= 3000 && prefix <= 3059 ) && length >= 14;
+			case 4:
+				// Visa, Elo
+				return length == 13 || length == 16 || length == 19;
+			case 5:
+				// Mastercard, or Maestro and Elo
+				return two >= 51 && two <= 55 ? length == 16 : two == 50 || two >= 56;
+			case 6:
+				// Discover, UnionPay, Maestro, Elo, Hipercard
+				return length >= 16;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean luhn( byte[] bytes, int from, int to ) {
+		int sum = 0;
+		boolean doubled = false;
+		for ( int i = to - 1; i >= from; i-- ) {
+			if ( !DigitMasker.isDigit( bytes[ i ] ) ) {
+				continue;
+			}
+			int d = bytes[ i ] - '0';
+			if ( doubled && ( d *= 2 ) > 9 ) {
+				d -= 9;
+			}
+			doubled = !doubled;
+			sum += d;
+		}
+		return sum % 10 == 0;
+	}
+
+	private static boolean cpf( byte[] bytes, int from, int to ) {
+		int first = 0;
+		int second = 0;
+		int n = 0;
+		int previous = -1;
+		boolean repeated = true;
+		for ( int i = from; i < to; i++ ) {
+			if ( !DigitMasker.isDigit( bytes[ i ] ) ) {
+				continue;
+			}
+			int d = bytes[ i ] - '0';
+			repeated &= previous < 0 || d == previous;
+			previous = d;
+			if ( n < 9 ) {
+				first += d * ( 10 - n );
+				second += d * ( 11 - n );
+			} else if ( n == 9 ) {
+				if ( d != first * 10 % 11 % 10 ) {
+					return false;
+				}
+				second += d * 2;
+			} else if ( d != second * 10 % 11 % 10 ) {
+				return false;
+			}
+			n++;
+		}
+		return !repeated;
+	}
+
+	private static boolean isDigit( byte b ) {
+		return b >= '0' && b <= '9';
+	}
+
+	private static boolean isWordByte( byte b ) {
+		return DigitMasker.isDigit( b ) || ( b >= 'a' && b <= 'z' ) || ( b >= 'A' && b <= 'Z' ) || b == '_';
+	}
+
+}
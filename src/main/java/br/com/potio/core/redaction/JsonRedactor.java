@@ -0,0 +1,172 @@
+package br.com.potio.core.redaction;
+
+import java.util.Arrays;
+
+/**
+ * Single pass over captured JSON bytes that copies them to a new array,
+ * replacing the values of sensitive keys and sensitive digit runs on the
+ * way. It only tracks the container nesting needed to tell keys from values,
+ * never builds a tree, and copes with truncated captures. Sensitive digits
+ * are masked inside strings; a number found to be sensitive becomes
+ * {@code 0}, so it keeps its JSON type.
+ */
+final class JsonRedactor {
+
+	private static final int MAX_TRACKED_DEPTH = 64;
+	private static final byte[] NUMBER_MASK = { '0' };
+
+	private final KeyMatcher keys;
+	private final DigitMasker digits;
+	private final byte[] mask;
+
+	private byte[] out;
+	private int size;
+
+	JsonRedactor( KeyMatcher keys, DigitMasker digits, byte[] mask ) {
+		this.keys = keys;
+		this.digits = digits;
+		this.mask = mask;
+	}
+
+	/**
+	 * @return the redacted copy, {@code null} when nothing had to change;
+	 *         its length is given by {@link #size()}
+	 */
+	byte[] redact( byte[] in, int length ) {
+		this.out = new byte[ length + 16 ];
+		this.size = 0;
+		boolean changed = false;
+		long objects = 0; // bit n set when depth n is an object
+		int depth = 0;
+		boolean expectKey = false;
+		boolean maskValue = false;
+		int i = 0;
+		while ( i < length ) {
+			byte b = in[ i ];
+			if ( b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == ':' ) {
+				this.put( b );
+				i++;
+			} else if ( b == ',' ) {
+				this.put( b );
+				expectKey = depth > 0 && depth <= MAX_TRACKED_DEPTH && ( objects & 1L << ( depth - 1 ) ) != 0;
+				i++;
+			} else if ( b == '}' || b == ']' ) {
+				this.put( b );
+				depth = Math.max( 0, depth - 1 );
+				expectKey = false;
+				i++;
+			} else if ( maskValue ) {
+				i = JsonRedactor.skipValue( in, i, length );
+				this.put( this.mask, 0, this.mask.length );
+				maskValue = false;
+				changed = true;
+			} else if ( b == '{' || b == '[' ) {
+				if ( depth < MAX_TRACKED_DEPTH ) {
+					objects = b == '{' ? objects | 1L << depth : objects & ~( 1L << depth );
+				}
+				depth++;
+				expectKey = b == '{';
+				this.put( b );
+				i++;
+			} else if ( b == '"' ) {
+				int end = JsonRedactor.skipString( in, i, length );
+				int from = this.size;
+				this.put( in, i, end - i );
+				if ( expectKey ) {
+					maskValue = this.keys.matches( in, i + 1, Math.max( i + 1, end - 1 ) );
+					expectKey = false;
+				} else if ( this.digits != null ) {
+					changed |= this.digits.mask( this.out, from, this.size );
+				}
+				i = end;
+			} else {
+				int end = JsonRedactor.skipLiteral( in, i, length );
+				if ( this.digits != null && this.digits.isSensitiveToken( in, i, end ) ) {
+					this.put( NUMBER_MASK, 0, NUMBER_MASK.length );
+					changed = true;
+				} else {
+					this.put( in, i, end - i );
+				}
+				i = end;
+			}
+		}
+		return changed ? this.out : null;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	private void put( byte b ) {
+		if ( this.size == this.out.length ) {
+			this.out = Arrays.copyOf( this.out, this.out.length * 2 );
+		}
+		this.out[ this.size++ ] = b;
+	}
+
+	private void put( byte[] bytes, int offset, int length ) {
+		if ( this.size + length > this.out.length ) {
+			this.out = Arrays.copyOf( this.out, Math.max( this.out.length * 2, this.size + length ) );
+		}
+		System.arraycopy( bytes, offset, this.out, this.size, length );
+		this.size += length;
+	}
+
+	/**
+	 * @return index right after the string starting at {@code from}
+	 */
+	static int skipString( byte[] in, int from, int length ) {
+		for ( int i = from + 1; i < length; i++ ) {
+			if ( in[ i ] == '\\' ) {
+				i++;
+			} else if ( in[ i ] == '"' ) {
+				return i + 1;
+			}
+		}
+		return length;
+	}
+
+	static int skipLiteral( byte[] in, int from, int length ) {
+		int i = from;
+		while ( i < length ) {
+			byte b = in[ i ];
+			if ( b == ',' || b == '}' || b == ']' || b == ':' || b == '"' || b == ' ' || b == '\n' || b == '\r'
+					|| b == '\t' ) {
+				break;
+			}
+			i++;
+		}
+		return Math.max( i, from + 1 );
+	}
+
+	/**
+	 * @return index right after the value starting at {@code from}, nested
+	 *         containers included
+	 */
+	static int skipValue( byte[] in, int from, int length ) {
+		byte first = in[ from ];
+		if ( first == '"' ) {
+			return JsonRedactor.skipString( in, from, length );
+		}
+		if ( first != '{' && first != '[' ) {
+			return JsonRedactor.skipLiteral( in, from, length );
+		}
+		int depth = 0;
+		int i = from;
+		while ( i < length ) {
+			byte b = in[ i ];
+			if ( b == '"' ) {
+				i = JsonRedactor.skipString( in, i, length );
+				continue;
+			}
+			if ( b == '{' || b == '[' ) {
+				depth++;
+			} else if ( ( b == '}' || b == ']' ) && --depth == 0 ) {
+				return i + 1;
+			}
+			i++;
+		}
+		return length;
+	}
+
+}
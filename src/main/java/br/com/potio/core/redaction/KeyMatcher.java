@@ -0,0 +1,71 @@
+package br.com.potio.core.redaction;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Byte-level automaton over the sensitive field names, walked directly on
+ * the captured JSON bytes of a key. ASCII letters are matched ignoring case;
+ * any other byte outside the table ends the match.
+ */
+final class KeyMatcher {
+
+	private static final int ALPHABET = 128;
+
+	/** {@code transitions[node * ALPHABET + byte]}, 0 meaning no transition */
+	private final int[] transitions;
+	private final boolean[] accepting;
+
+	KeyMatcher( Collection< String > keys ) {
+		int capacity = 1;
+		for ( String key : keys ) {
+			capacity += key.length();
+		}
+		var table = new int[ capacity * ALPHABET ];
+		var accept = new boolean[ capacity ];
+		int nodes = 1;
+		for ( String key : keys ) {
+			int node = 0;
+			for ( int i = 0; i < key.length(); i++ ) {
+				int c = KeyMatcher.fold( key.charAt( i ) );
+				if ( c < 0 ) {
+					throw new IllegalArgumentException( "Only ASCII field names are supported: " + key );
+				}
+				int slot = node * ALPHABET + c;
+				if ( table[ slot ] == 0 ) {
+					table[ slot ] = nodes++;
+				}
+				node = table[ slot ];
+			}
+			accept[ node ] = true;
+		}
+		this.transitions = Arrays.copyOf( table, nodes * ALPHABET );
+		this.accepting = Arrays.copyOf( accept, nodes );
+	}
+
+	boolean isEmpty() {
+		return this.accepting.length == 1;
+	}
+
+	/**
+	 * Whether {@code bytes[from, to)} is exactly one of the keys.
+	 */
+	boolean matches( byte[] bytes, int from, int to ) {
+		int node = 0;
+		for ( int i = from; i < to; i++ ) {
+			int c = KeyMatcher.fold( bytes[ i ] );
+			if ( c < 0 || ( node = this.transitions[ node * ALPHABET + c ] ) == 0 ) {
+				return false;
+			}
+		}
+		return this.accepting[ node ];
+	}
+
+	private static int fold( int c ) {
+		if ( c < 0 || c >= ALPHABET ) {
+			return -1;
+		}
+		return c >= 'A' && c <= 'Z' ? c + ( 'a' - 'A' ) : c;
+	}
+
+}
@@ -0,0 +1,211 @@
+package br.com.potio.core.redaction;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import br.com.potio.core.dto.BodyContent;
+import br.com.potio.core.dto.CompactHeaders;
+import br.com.potio.core.sink.AuditRecord;
+import br.com.potio.core.sink.AuditStage;
+
+/**
+ * Masks secrets before records reach the sink. Header names are checked
+ * against a precomputed case-insensitive set; bodies get one streaming pass
+ * over their captured bytes that masks the values of the configured JSON
+ * fields, matched by a precompiled automaton, and optionally card numbers
+ * and CPFs anywhere in the text.
+ *
+ * Only ASCII-compatible charsets are inspected; other bodies are left as
+ * they are.
+ */
+public class Redactor implements AuditStage {
+
+	public static final String DEFAULT_MASK = "***";
+
+	private final Set< String > headers;
+	private final KeyMatcher keys;
+	private final DigitMasker digits;
+	private final String mask;
+	private final byte[] jsonMask;
+	private final List< String > maskedValue;
+
+	Redactor( Set< String > headers, KeyMatcher keys, DigitMasker digits, String mask ) {
+		this.headers = headers;
+		this.keys = keys;
+		this.digits = digits;
+		this.mask = mask;
+		this.jsonMask = ( '"' + mask + '"' ).getBytes( StandardCharsets.UTF_8 );
+		this.maskedValue = List.of( mask );
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public AuditRecord apply( AuditRecord record ) {
+		var request = record.getRequest();
+		if ( request != null ) {
+			request.setHeaders( this.redactHeaders( request.getHeaders() ) );
+			request.setBodyContent( this.redactBody( request.getBodyContent() ) );
+		}
+		var response = record.getResponse();
+		if ( response != null ) {
+			response.setBodyContent( this.redactBody( response.getBodyContent() ) );
+		}
+		return record;
+	}
+
+	/**
+	 * @return {@code headers} itself when none of them is sensitive
+	 */
+	public Map< String, List< String > > redactHeaders( Map< String, List< String > > headers ) {
+		if ( headers == null || this.headers.isEmpty() ) {
+			return headers;
+		}
+		boolean sensitive = false;
+		for ( String name : headers.keySet() ) {
+			if ( name != null && this.headers.contains( name ) ) {
+				sensitive = true;
+				break;
+			}
+		}
+		if ( !sensitive ) {
+			return headers;
+		}
+		Map< String, List< String > > redacted = new LinkedHashMap<>( headers.size() * 2 );
+		for ( Map.Entry< String, List< String > > header : headers.entrySet() ) {
+			var name = header.getKey();
+			redacted.put( name, name != null && this.headers.contains( name ) ? this.maskedValue
+					: header.getValue() );
+		}
+		return headers instanceof CompactHeaders ? CompactHeaders.of( redacted ) : redacted;
+	}
+
+	/**
+	 * @return {@code body} itself when nothing had to be masked, otherwise a
+	 *         new body; the original one is released
+	 */
+	public BodyContent redactBody( BodyContent body ) {
+		if ( body == null || body.length() == 0 || !Redactor.isAsciiCompatible( body.getCharset() ) ) {
+			return body;
+		}
+		byte[] bytes;
+		int length;
+		if ( body.isReleased() ) {
+			bytes = body.asString().getBytes( body.getCharset() );
+			length = bytes.length;
+		} else {
+			bytes = body.array();
+			length = body.length();
+		}
+		byte[] redacted;
+		int size;
+		if ( Redactor.looksLikeJson( bytes, length ) ) {
+			var json = new JsonRedactor( this.keys, this.digits, this.jsonMask );
+			redacted = json.redact( bytes, length );
+			size = json.size();
+		} else if ( this.digits != null ) {
+			redacted = Arrays.copyOf( bytes, length );
+			size = length;
+			if ( !this.digits.mask( redacted, 0, length ) ) {
+				redacted = null;
+			}
+		} else {
+			redacted = null;
+			size = 0;
+		}
+		if ( redacted == null ) {
+			return body;
+		}
+		var replacement = BodyContent.of( redacted, size, body.getCharset(), body.getOriginalSize() );
+		body.release();
+		return replacement;
+	}
+
+	public String getMask() {
+		return this.mask;
+	}
+
+	private static boolean looksLikeJson( byte[] bytes, int length ) {
+		for ( int i = 0; i < length; i++ ) {
+			byte b = bytes[ i ];
+			if ( b != ' ' && b != '\n' && b != '\r' && b != '\t' ) {
+				return b == '{' || b == '[';
+			}
+		}
+		return false;
+	}
+
+	private static boolean isAsciiCompatible( Charset charset ) {
+		return charset != null && ( StandardCharsets.UTF_8.equals( charset )
+				|| StandardCharsets.ISO_8859_1.equals( charset ) || StandardCharsets.US_ASCII.equals( charset )
+				|| ( charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f ) );
+	}
+
+	public static class Builder {
+		private final Set< String > headers = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+		private final List< String > jsonFields = new ArrayList<>();
+		private boolean cardNumbers;
+		private boolean cpfNumbers;
+		private String mask = DEFAULT_MASK;
+
+		/**
+		 * Headers whose values are replaced by the mask, matched ignoring
+		 * case.
+		 */
+		public Builder withHeaders( String... names ) {
+			this.headers.addAll( Arrays.asList( names ) );
+			return this;
+		}
+
+		/**
+		 * JSON keys whose values, at any depth, are replaced by the mask as a
+		 * string; objects and arrays included. Matched exactly, ignoring
+		 * ASCII case.
+		 */
+		public Builder withJsonFields( String... names ) {
+			this.jsonFields.addAll( Arrays.asList( names ) );
+			return this;
+		}
+
+		/**
+		 * Masks runs of 13 to 19 digits with the prefix and length of a
+		 * card scheme, passing the Luhn check. Digits are masked in place;
+		 * a JSON number that is a card number becomes {@code 0}.
+		 */
+		public Builder withCardNumbers() {
+			this.cardNumbers = true;
+			return this;
+		}
+
+		/**
+		 * Masks runs of 11 digits with valid CPF check digits, as
+		 * {@link #withCardNumbers()} does.
+		 */
+		public Builder withCpfNumbers() {
+			this.cpfNumbers = true;
+			return this;
+		}
+
+		public Builder withMask( String mask ) {
+			this.mask = mask;
+			return this;
+		}
+
+		public Redactor build() {
+			var digits = cardNumbers || cpfNumbers ? new DigitMasker( cardNumbers, cpfNumbers ) : null;
+			var names = new TreeSet< String >( String.CASE_INSENSITIVE_ORDER );
+			names.addAll( headers );
+			return new Redactor( names, new KeyMatcher( jsonFields ), digits, mask );
+		}
+	}
+
+}
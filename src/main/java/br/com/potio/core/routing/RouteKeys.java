@@ -0,0 +1,55 @@
+package br.com.potio.core.routing;
+
+/**
+ * Low-cardinality keys for grouping exchanges by endpoint: the route
+ * template when known, otherwise the path with segments holding digits
+ * collapsed, so {@code /orders/42} and {@code /orders/43} fall under
+ * {@code /orders/*}.
+ */
+public final class RouteKeys {
+
+	private RouteKeys() {
+	}
+
+	/**
+	 * @return {@code "METHOD /collapsed/path"}
+	 */
+	public static String of( String method, String path ) {
+		var key = new StringBuilder( ( path == null ? 0 : path.length() ) + 8 ).append( method ).append( ' ' );
+		return RouteKeys.appendCollapsed( key, path ).toString();
+	}
+
+	/**
+	 * @return {@code "METHOD /route/{template}"}, or the collapsed path when
+	 *         {@code template} is {@code null}
+	 */
+	public static String of( String method, String template, String path ) {
+		return template != null ? method + ' ' + template : RouteKeys.of( method, path );
+	}
+
+	public static String collapse( String path ) {
+		return path == null ? null : RouteKeys.appendCollapsed( new StringBuilder( path.length() ), path ).toString();
+	}
+
+	private static StringBuilder appendCollapsed( StringBuilder key, String path ) {
+		int start = 0;
+		while ( path != null && start < path.length() ) {
+			int end = path.indexOf( '/', start + 1 );
+			if ( end < 0 ) {
+				end = path.length();
+			}
+			boolean digits = false;
+			for ( int i = start; i < end && !digits; i++ ) {
+				digits = Character.isDigit( path.charAt( i ) );
+			}
+			if ( digits ) {
+				key.append( "/*" );
+			} else {
+				key.append( path, start, end );
+			}
+			start = end;
+		}
+		return key;
+	}
+
+}
@@ -0,0 +1,104 @@
+package br.com.potio.core.sampling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Head sampling decision taken before anything is captured. Exchanges that
+ * carry one of the always-capture headers are kept; otherwise the first
+ * matching {@link SamplingRule} decides, falling back to the default
+ * probability.
+ */
+public class Sampler {
+
+	private static final Sampler CAPTURE_ALL = new Sampler( List.of(), List.of(), 1.0 );
+
+	private final SamplingRule[] rules;
+	private final String[] alwaysCaptureHeaders;
+	private final double defaultProbability;
+	private final LongAdder sampledOut = new LongAdder();
+
+	Sampler( List< SamplingRule > rules, List< String > alwaysCaptureHeaders, double defaultProbability ) {
+		this.rules = rules.toArray( new SamplingRule[ 0 ] );
+		this.alwaysCaptureHeaders = alwaysCaptureHeaders.toArray( new String[ 0 ] );
+		this.defaultProbability = defaultProbability;
+	}
+
+	public static Sampler captureAll() {
+		return CAPTURE_ALL;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @param headers lookup of a request header value by name
+	 */
+	public boolean sample( String method, String host, String path, Function< String, String > headers ) {
+		if ( this.rules.length == 0 && this.defaultProbability >= 1.0 ) {
+			return true;
+		}
+		for ( String header : this.alwaysCaptureHeaders ) {
+			if ( headers.apply( header ) != null ) {
+				return true;
+			}
+		}
+		var keep = this.decide( method, host, path );
+		if ( !keep ) {
+			this.sampledOut.increment();
+		}
+		return keep;
+	}
+
+	private boolean decide( String method, String host, String path ) {
+		for ( SamplingRule rule : this.rules ) {
+			if ( rule.matches( method, host, path ) ) {
+				return Sampler.roll( rule.getProbability() )
+						&& ( rule.getRateLimit() == null || rule.getRateLimit().tryAcquire() );
+			}
+		}
+		return Sampler.roll( this.defaultProbability );
+	}
+
+	private static boolean roll( double probability ) {
+		return probability >= 1.0
+				|| ( probability > 0 && ThreadLocalRandom.current().nextDouble() < probability );
+	}
+
+	public long getSampledOutCount() {
+		return this.sampledOut.sum();
+	}
+
+	public static class Builder {
+		private final List< SamplingRule > rules = new ArrayList<>();
+		private final List< String > alwaysCaptureHeaders = new ArrayList<>();
+		private double defaultProbability = 1.0;
+
+		/**
+		 * Rules are evaluated in registration order; the first match wins.
+		 */
+		public Builder withRule( SamplingRule rule ) {
+			this.rules.add( rule );
+			return this;
+		}
+
+		public Builder withAlwaysCaptureHeader( String header ) {
+			this.alwaysCaptureHeaders.add( header );
+			return this;
+		}
+
+		public Builder withDefaultProbability( double defaultProbability ) {
+			this.defaultProbability = defaultProbability;
+			return this;
+		}
+
+		public Sampler build() {
+			return new Sampler( rules, alwaysCaptureHeaders, defaultProbability );
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package br.com.potio.core.sampling;
+
+import java.util.regex.Pattern;
+
+/**
+ * Head sampling rule matched on method, path and downstream host. Unset
+ * criteria match anything. A matching exchange is kept with the configured
+ * probability and, when a rate is set, only while the rule's token bucket has
+ * permits.
+ *
+ * Paths use globs: {@code *} matches within one segment and {@code **}
+ * across segments, e.g. {@code /health/**} or {@code /users/*}.
+ */
+public class SamplingRule {
+
+	private final String method;
+	private final Pattern path;
+	private final String host;
+	private final double probability;
+	private final TokenBucket rateLimit;
+
+	SamplingRule( String method, Pattern path, String host, double probability, TokenBucket rateLimit ) {
+		this.method = method;
+		this.path = path;
+		this.host = host;
+		this.probability = probability;
+		this.rateLimit = rateLimit;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public boolean matches( String method, String host, String path ) {
+		return ( this.method == null || this.method.equalsIgnoreCase( method ) )
+				&& ( this.host == null || this.host.equalsIgnoreCase( host ) )
+				&& ( this.path == null || ( path != null && this.path.matcher( path ).matches() ) );
+	}
+
+	double getProbability() {
+		return probability;
+	}
+
+	TokenBucket getRateLimit() {
+		return rateLimit;
+	}
+
+	static Pattern compileGlob( String glob ) {
+		var regex = new StringBuilder( glob.length() + 8 );
+		for ( int i = 0; i < glob.length(); i++ ) {
+			char c = glob.charAt( i );
+			if ( c == '*' ) {
+				if ( i + 1 < glob.length() && glob.charAt( i + 1 ) == '*' ) {
+					regex.append( ".*" );
+					i++;
+				} else {
+					regex.append( "[^/]*" );
+				}
+			} else if ( "\\.[]{}()+-?^$|".indexOf( c ) >= 0 ) {
+				regex.append( '\\' ).append( c );
+			} else {
+				regex.append( c );
+			}
+		}
+		return Pattern.compile( regex.toString() );
+	}
+
+	public static class Builder {
+		private String method;
+		private Pattern path;
+		private String host;
+		private double probability = 1.0;
+		private double ratePerSecond;
+		private int burst = 1;
+
+		public Builder withMethod( String method ) {
+			this.method = method;
+			return this;
+		}
+
+		public Builder withPath( String glob ) {
+			this.path = SamplingRule.compileGlob( glob );
+			return this;
+		}
+
+		public Builder withPathPattern( Pattern path ) {
+			this.path = path;
+			return this;
+		}
+
+		public Builder withHost( String host ) {
+			this.host = host;
+			return this;
+		}
+
+		public Builder withProbability( double probability ) {
+			this.probability = probability;
+			return this;
+		}
+
+		/**
+		 * Keeps at most {@code ratePerSecond} exchanges per second for this
+		 * rule, with bursts of up to {@code burst}.
+		 */
+		public Builder withRateLimit( double ratePerSecond, int burst ) {
+			this.ratePerSecond = ratePerSecond;
+			this.burst = burst;
+			return this;
+		}
+
+		public SamplingRule build() {
+			if ( probability < 0 || probability > 1 ) {
+				throw new IllegalArgumentException( "Probability must be between 0 and 1" );
+			}
+			var rateLimit = ratePerSecond > 0 ? new TokenBucket( ratePerSecond, burst ) : null;
+			return new SamplingRule( method, path, host, probability, rateLimit );
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package br.com.potio.core.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free rate limiter in the GCRA form: a single theoretical arrival time
+ * advanced by compare-and-set, allowing {@code burst} permits ahead of the
+ * steady rate.
+ */
+public class TokenBucket {
+
+	private final long intervalNanos;
+	private final long toleranceNanos;
+	private final AtomicLong theoreticalArrival = new AtomicLong( System.nanoTime() );
+
+	public TokenBucket( double permitsPerSecond, int burst ) {
+		if ( permitsPerSecond <= 0 ) {
+			throw new IllegalArgumentException( "Rate must be positive" );
+		}
+		this.intervalNanos = Math.max( 1L, ( long ) ( TimeUnit.SECONDS.toNanos( 1 ) / permitsPerSecond ) );
+		this.toleranceNanos = this.intervalNanos * Math.max( 1, burst );
+	}
+
+	public boolean tryAcquire() {
+		long now = System.nanoTime();
+		while ( true ) {
+			long arrival = this.theoreticalArrival.get();
+			long next = Math.max( arrival, now ) + this.intervalNanos;
+			if ( next - now > this.toleranceNanos ) {
+				return false;
+			}
+			if ( this.theoreticalArrival.compareAndSet( arrival, next ) ) {
+				return true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+package br.com.potio.core.sink;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded hand-off between the filters and an {@link AuditSink}. Request
+ * threads only enqueue; a single background consumer groups records in
+ * batches bounded by count and by delay. When the queue is full the record
+ * is dropped and counted instead of blocking the caller.
+ *
+ * Queue depth and sink latency feed an {@link OverloadPolicy} that the
+ * filters consult to degrade capture before the queue overflows.
+ *
+ * Records go through the configured {@link AuditStage}s on the consumer
+ * thread, then are released once their batch has been delivered; sinks that
+ * keep them longer must {@link AuditRecord#detach()} them. Sinks that fail
+ * single records without throwing report them with
+ * {@link #reportUndelivered(AuditRecord)}.
+ */
+public class AuditDispatcher implements AutoCloseable {
+
+	private static final Logger logger = Logger.getLogger( AuditDispatcher.class.getName() );
+	private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+	private static final int DEFAULT_BATCH_SIZE = 100;
+	private static final Duration DEFAULT_MAX_BATCH_DELAY = Duration.ofMillis( 200 );
+	private static final Duration DEFAULT_SHUTDOWN_TIMEOUT = Duration.ofSeconds( 5 );
+
+	private final AuditSink sink;
+	private final List< AuditStage > stages;
+	private final OverloadPolicy overloadPolicy;
+	private final BlockingQueue< AuditRecord > queue;
+	private final int queueCapacity;
+	private final int batchSize;
+	private final long maxBatchDelayNanos;
+	private final Duration shutdownTimeout;
+	private final Thread consumer;
+	private final LongAdder submitted = new LongAdder();
+	private final LongAdder delivered = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder filtered = new LongAdder();
+	private final LongAdder reported = new LongAdder();
+	private volatile boolean running = true;
+
+	AuditDispatcher( String name, AuditSink sink, List< AuditStage > stages, OverloadPolicy overloadPolicy,
+			int queueCapacity, int batchSize, Duration maxBatchDelay, Duration shutdownTimeout ) {
+		this.sink = Objects.requireNonNull( sink, "sink" );
+		this.stages = List.copyOf( stages );
+		this.overloadPolicy = overloadPolicy;
+		this.queue = new ArrayBlockingQueue<>( queueCapacity );
+		this.queueCapacity = queueCapacity;
+		this.batchSize = batchSize;
+		this.maxBatchDelayNanos = maxBatchDelay.toNanos();
+		this.shutdownTimeout = shutdownTimeout;
+		this.consumer = new Thread( this::consume, "audit-dispatcher-" + name );
+		this.consumer.setDaemon( true );
+		this.consumer.start();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Enqueues the record without blocking.
+	 *
+	 * @return {@code false} when the record was dropped
+	 */
+	public boolean submit( AuditRecord record ) {
+		if ( !this.running || !this.queue.offer( record ) ) {
+			this.dropped.increment();
+			record.release();
+			return false;
+		}
+		this.submitted.increment();
+		return true;
+	}
+
+	public OverloadPolicy getOverloadPolicy() {
+		return this.overloadPolicy;
+	}
+
+	public int getQueueDepth() {
+		return this.queue.size();
+	}
+
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	public long getSubmittedCount() {
+		return this.submitted.sum();
+	}
+
+	public long getDeliveredCount() {
+		return this.delivered.sum();
+	}
+
+	public long getDroppedCount() {
+		return this.dropped.sum();
+	}
+
+	public long getFailedCount() {
+		return this.failed.sum();
+	}
+
+	/**
+	 * Records left out by a stage returning {@code null}.
+	 */
+	public long getFilteredCount() {
+		return this.filtered.sum();
+	}
+
+	/**
+	 * Counts a record of the batch being delivered as failed and lets the
+	 * stages undo what they kept for it; for sinks that handle records one
+	 * by one and go on after a failure. Call it before
+	 * {@link AuditSink#deliver(List)} returns.
+	 */
+	public void reportUndelivered( AuditRecord record ) {
+		this.reported.increment();
+		this.failed.increment();
+		this.undelivered( record );
+	}
+
+	private void undelivered( AuditRecord record ) {
+		for ( var stage : this.stages ) {
+			try {
+				stage.undelivered( record );
+			} catch ( RuntimeException e ) {
+				AuditDispatcher.logger.log( Level.SEVERE, "Error while undoing audit record", e );
+			}
+		}
+	}
+
+	private void consume() {
+		while ( this.running || !this.queue.isEmpty() ) {
+			try {
+				var first = this.queue.poll( this.maxBatchDelayNanos, TimeUnit.NANOSECONDS );
+				if ( first != null ) {
+					List< AuditRecord > batch = new ArrayList<>( this.batchSize );
+					batch.add( first );
+					this.fill( batch );
+					this.deliver( batch );
+				} else {
+					this.overloadPolicy.idle( this.queue.size(), this.queueCapacity );
+				}
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void fill( List< AuditRecord > batch ) throws InterruptedException {
+		long deadline = System.nanoTime() + this.maxBatchDelayNanos;
+		while ( batch.size() < this.batchSize ) {
+			this.queue.drainTo( batch, this.batchSize - batch.size() );
+			long remaining = deadline - System.nanoTime();
+			if ( batch.size() >= this.batchSize || remaining <= 0 || !this.running ) {
+				return;
+			}
+			var next = this.queue.poll( remaining, TimeUnit.NANOSECONDS );
+			if ( next == null ) {
+				return;
+			}
+			batch.add( next );
+		}
+	}
+
+	private void applyStages( List< AuditRecord > batch ) {
+		for ( var it = batch.listIterator(); it.hasNext(); ) {
+			var original = it.next();
+			var record = original;
+			try {
+				for ( Iterator< AuditStage > stage = this.stages.iterator(); stage.hasNext() && record != null; ) {
+					record = stage.next().apply( record );
+				}
+				if ( record == null ) {
+					this.filtered.increment();
+				}
+			} catch ( Exception e ) {
+				this.failed.increment();
+				AuditDispatcher.logger.log( Level.SEVERE, "Error while processing audit record", e );
+				record = null;
+			}
+			if ( record == null ) {
+				original.release();
+				it.remove();
+			} else if ( record != original ) {
+				it.set( record );
+			}
+		}
+	}
+
+	private void deliver( List< AuditRecord > batch ) {
+		if ( !this.stages.isEmpty() ) {
+			this.applyStages( batch );
+			if ( batch.isEmpty() ) {
+				return;
+			}
+		}
+		this.overloadPolicy.deliveryStarted( batch.size() );
+		long reportedBefore = this.reported.sum();
+		try {
+			this.sink.deliver( batch );
+			this.delivered.add( batch.size() - ( this.reported.sum() - reportedBefore ) );
+		} catch ( Exception e ) {
+			this.failed.add( batch.size() - ( this.reported.sum() - reportedBefore ) );
+			AuditDispatcher.logger.log( Level.SEVERE, "Error while delivering audit batch", e );
+			batch.forEach( this::undelivered );
+		} finally {
+			this.overloadPolicy.deliveryFinished( batch.size(), this.queue.size(), this.queueCapacity );
+			batch.forEach( AuditRecord::release );
+		}
+	}
+
+	/**
+	 * Stops accepting records and waits for the queued ones to be delivered.
+	 */
+	@Override
+	public void close() {
+		this.running = false;
+		try {
+			this.consumer.join( this.shutdownTimeout.toMillis() );
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			this.sink.close();
+		} catch ( Exception e ) {
+			AuditDispatcher.logger.log( Level.SEVERE, "Error while closing audit sink", e );
+		}
+	}
+
+	public static class Builder {
+		private String name = "default";
+		private AuditSink sink;
+		private final List< AuditStage > stages = new ArrayList<>();
+		private OverloadPolicy overloadPolicy;
+		private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+		private int batchSize = DEFAULT_BATCH_SIZE;
+		private Duration maxBatchDelay = DEFAULT_MAX_BATCH_DELAY;
+		private Duration shutdownTimeout = DEFAULT_SHUTDOWN_TIMEOUT;
+
+		public Builder withName( String name ) {
+			this.name = name;
+			return this;
+		}
+
+		public Builder withSink( AuditSink sink ) {
+			this.sink = sink;
+			return this;
+		}
+
+		/**
+		 * Adds a stage run on every record before delivery, after the
+		 * stages added before it.
+		 */
+		public Builder withStage( AuditStage stage ) {
+			this.stages.add( Objects.requireNonNull( stage, "stage" ) );
+			return this;
+		}
+
+		/**
+		 * Thresholds for degrading capture under load; defaults to
+		 * {@code OverloadPolicy.builder().build()}.
+		 */
+		public Builder withOverloadPolicy( OverloadPolicy overloadPolicy ) {
+			this.overloadPolicy = overloadPolicy;
+			return this;
+		}
+
+		public Builder withQueueCapacity( int queueCapacity ) {
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		public Builder withBatchSize( int batchSize ) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder withMaxBatchDelay( Duration maxBatchDelay ) {
+			this.maxBatchDelay = maxBatchDelay;
+			return this;
+		}
+
+		public Builder withShutdownTimeout( Duration shutdownTimeout ) {
+			this.shutdownTimeout = shutdownTimeout;
+			return this;
+		}
+
+		public AuditDispatcher build() {
+			if ( queueCapacity < 1 || batchSize < 1 ) {
+				throw new IllegalArgumentException( "Queue capacity and batch size must be positive" );
+			}
+			var policy = overloadPolicy != null ? overloadPolicy : OverloadPolicy.builder().build();
+			return new AuditDispatcher( name, sink, stages, policy, queueCapacity, batchSize, maxBatchDelay,
+					shutdownTimeout );
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package br.com.potio.core.sink;
+
+import java.io.Serializable;
+
+import br.com.potio.core.dto.BodyContent;
+import br.com.potio.core.dto.RequestDTO;
+import br.com.potio.core.dto.ResponseDTO;
+
+public class AuditRecord implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final RequestDTO request;
+	private final ResponseDTO response;
+
+	public AuditRecord( RequestDTO request, ResponseDTO response ) {
+		this.request = request;
+		this.response = response;
+	}
+
+	public RequestDTO getRequest() {
+		return request;
+	}
+
+	public ResponseDTO getResponse() {
+		return response;
+	}
+
+	/**
+	 * Keeps the captured bodies readable after delivery.
+	 */
+	public AuditRecord detach() {
+		BodyContent body;
+		if ( request != null && ( body = request.getBodyContent() ) != null ) {
+			body.detach();
+		}
+		if ( response != null && ( body = response.getBodyContent() ) != null ) {
+			body.detach();
+		}
+		return this;
+	}
+
+	/**
+	 * Returns pooled capture slabs; called by the dispatcher once the sink is
+	 * done with the record.
+	 */
+	public void release() {
+		BodyContent body;
+		if ( request != null && ( body = request.getBodyContent() ) != null ) {
+			body.release();
+		}
+		if ( response != null && ( body = response.getBodyContent() ) != null ) {
+			body.release();
+		}
+	}
+
+}
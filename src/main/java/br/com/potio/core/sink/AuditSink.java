@@ -0,0 +1,18 @@
+package br.com.potio.core.sink;
+
+import java.util.List;
+
+/**
+ * Destination of audited exchanges. Batches are handed over by the
+ * {@link AuditDispatcher} consumer, never by a request thread, and their
+ * captured bodies are only valid until {@link #deliver(List)} returns.
+ */
+@FunctionalInterface
+public interface AuditSink {
+
+	void deliver( List< AuditRecord > batch ) throws Exception;
+
+	default void close() throws Exception {
+	}
+
+}
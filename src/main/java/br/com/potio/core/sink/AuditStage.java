@@ -0,0 +1,25 @@
+package br.com.potio.core.sink;
+
+/**
+ * Transformation applied by the {@link AuditDispatcher} consumer to each
+ * record before its batch reaches the {@link AuditSink}, like redaction. Runs
+ * off the request threads, in the order the stages were added.
+ */
+@FunctionalInterface
+public interface AuditStage {
+
+	/**
+	 * @return the record to deliver, usually {@code record} itself, or
+	 *         {@code null} to leave it out of the batch
+	 */
+	AuditRecord apply( AuditRecord record ) throws Exception;
+
+	/**
+	 * Called when a record this stage let through was not delivered, so
+	 * state kept on its behalf can be undone before the next batch; may be
+	 * called twice for a record. Nothing by default.
+	 */
+	default void undelivered( AuditRecord record ) {
+	}
+
+}
@@ -0,0 +1,18 @@
+package br.com.potio.core.sink;
+
+/**
+ * How much of an exchange is captured, from everything down to a counter
+ * increment, as decided by the {@link OverloadPolicy}.
+ */
+public enum CaptureLevel {
+
+	/** Headers, metadata and bodies. */
+	FULL,
+
+	/** Headers and metadata, bodies are not copied. */
+	METADATA_ONLY,
+
+	/** Nothing is captured, the exchange is only counted. */
+	COUNTERS_ONLY;
+
+}
@@ -0,0 +1,113 @@
+package br.com.potio.core.sink;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the sink callbacks of a batch concurrently, with at most
+ * {@code maxConcurrency} of them in flight. On Java 21 and later each
+ * callback gets a virtual thread, so blocking sinks such as JDBC or file
+ * writes scale without sizing a pool; on Java 17 a platform pool of
+ * {@code maxConcurrency} threads is used.
+ *
+ * {@link #runAll(List)} returns once every callback of the batch finished,
+ * which keeps the dispatcher's back-pressure and sink latency accurate.
+ */
+public final class DeliveryExecutor implements AutoCloseable {
+
+	private static final Logger logger = Logger.getLogger( DeliveryExecutor.class.getName() );
+	private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds( 5 );
+
+	private final ExecutorService executor;
+	private final Semaphore permits;
+	private final int maxConcurrency;
+
+	private DeliveryExecutor( ExecutorService executor, int maxConcurrency ) {
+		this.executor = executor;
+		this.permits = new Semaphore( maxConcurrency );
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	public static DeliveryExecutor create( String name, int maxConcurrency ) {
+		if ( maxConcurrency < 1 ) {
+			throw new IllegalArgumentException( "Concurrency must be positive" );
+		}
+		return new DeliveryExecutor( DeliveryThreads.newExecutor( name, maxConcurrency ), maxConcurrency );
+	}
+
+	/**
+	 * Whether callbacks run on virtual threads.
+	 */
+	public static boolean isVirtual() {
+		return DeliveryThreads.VIRTUAL;
+	}
+
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	/**
+	 * Runs every task, blocking while {@code maxConcurrency} are in flight,
+	 * and waits for all of them. Tasks are expected to handle their own
+	 * failures; anything they throw is logged.
+	 */
+	public void runAll( List< ? extends Runnable > tasks ) throws InterruptedException {
+		if ( tasks.size() == 1 ) {
+			// not worth a hand-off
+			DeliveryExecutor.runLogged( tasks.get( 0 ) );
+			return;
+		}
+		var pending = new CountDownLatch( tasks.size() );
+		for ( Runnable task : tasks ) {
+			this.permits.acquire();
+			try {
+				this.executor.execute( () -> {
+					try {
+						DeliveryExecutor.runLogged( task );
+					} finally {
+						this.permits.release();
+						pending.countDown();
+					}
+				} );
+			} catch ( RejectedExecutionException e ) {
+				// closed meanwhile, deliver on the caller
+				this.permits.release();
+				try {
+					DeliveryExecutor.runLogged( task );
+				} finally {
+					pending.countDown();
+				}
+			}
+		}
+		pending.await();
+	}
+
+	private static void runLogged( Runnable task ) {
+		try {
+			task.run();
+		} catch ( RuntimeException e ) {
+			DeliveryExecutor.logger.log( Level.SEVERE, "Error while delivering audit record", e );
+		}
+	}
+
+	@Override
+	public void close() {
+		this.executor.shutdown();
+		try {
+			if ( !this.executor.awaitTermination( SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS ) ) {
+				this.executor.shutdownNow();
+			}
+		} catch ( InterruptedException e ) {
+			this.executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
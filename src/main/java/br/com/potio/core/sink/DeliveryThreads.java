@@ -0,0 +1,37 @@
+package br.com.potio.core.sink;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads running sink callbacks. This is the Java 17 variant, a bounded pool
+ * of platform threads; the jar carries a Java 21 variant under
+ * {@code META-INF/versions/21} that starts a virtual thread per callback.
+ */
+final class DeliveryThreads {
+
+	static final boolean VIRTUAL = false;
+
+	private DeliveryThreads() {
+	}
+
+	/**
+	 * @param maxConcurrency callbacks running at once, enforced by the caller;
+	 *                       sizes the pool here
+	 */
+	static ExecutorService newExecutor( String name, int maxConcurrency ) {
+		var counter = new AtomicInteger();
+		var pool = new ThreadPoolExecutor( maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), task -> {
+					var thread = new Thread( task, "audit-delivery-" + name + "-" + counter.incrementAndGet() );
+					thread.setDaemon( true );
+					return thread;
+				} );
+		pool.allowCoreThreadTimeOut( true );
+		return pool;
+	}
+
+}
@@ -0,0 +1,175 @@
+package br.com.potio.core.sink;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tiered load shedding for the audit hand-off. The {@link AuditDispatcher}
+ * consumer reports queue depth and sink latency after every batch, the
+ * latency being the batch delivery time divided by its records, so that
+ * thresholds do not depend on the batch size. Crossing a threshold degrades
+ * capture right away, while going back up takes the metrics falling below a
+ * fraction of the thresholds, one level at a time.
+ *
+ * Request threads only read the current level, plus a stall check when a
+ * batch delivery has been running for longer than the counters-only latency
+ * of all its records.
+ */
+public class OverloadPolicy {
+
+	private static final double DEFAULT_METADATA_ONLY_DEPTH = 0.5;
+	private static final double DEFAULT_COUNTERS_ONLY_DEPTH = 0.9;
+	private static final Duration DEFAULT_METADATA_ONLY_LATENCY = Duration.ofMillis( 50 );
+	private static final Duration DEFAULT_COUNTERS_ONLY_LATENCY = Duration.ofMillis( 250 );
+	private static final double DEFAULT_RECOVERY_FACTOR = 0.5;
+	/** weight of the newest latency sample in the moving average */
+	private static final double LATENCY_SMOOTHING = 0.3;
+
+	private final double metadataOnlyDepth;
+	private final double countersOnlyDepth;
+	private final long metadataOnlyLatencyNanos;
+	private final long countersOnlyLatencyNanos;
+	private final double recoveryFactor;
+	private final LongAdder[] admitted = new LongAdder[ CaptureLevel.values().length ];
+	private volatile CaptureLevel level = CaptureLevel.FULL;
+	private volatile long deliveryStartedNanos;
+	private volatile long stallNanos;
+	private volatile long latencyNanos;
+
+	OverloadPolicy( double metadataOnlyDepth, double countersOnlyDepth, Duration metadataOnlyLatency,
+			Duration countersOnlyLatency, double recoveryFactor ) {
+		this.metadataOnlyDepth = metadataOnlyDepth;
+		this.countersOnlyDepth = countersOnlyDepth;
+		this.metadataOnlyLatencyNanos = metadataOnlyLatency.toNanos();
+		this.countersOnlyLatencyNanos = countersOnlyLatency.toNanos();
+		this.recoveryFactor = recoveryFactor;
+		for ( int i = 0; i < this.admitted.length; i++ ) {
+			this.admitted[ i ] = new LongAdder();
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Level for a new exchange, counted as admitted at that level.
+	 */
+	public CaptureLevel admit() {
+		var current = this.currentLevel();
+		this.admitted[ current.ordinal() ].increment();
+		return current;
+	}
+
+	public CaptureLevel currentLevel() {
+		var current = this.level;
+		long started = this.deliveryStartedNanos;
+		// a sink stuck in one delivery cannot report, so check on it here
+		if ( started != 0 && current != CaptureLevel.COUNTERS_ONLY
+				&& System.nanoTime() - started >= this.stallNanos ) {
+			return CaptureLevel.COUNTERS_ONLY;
+		}
+		return current;
+	}
+
+	public long getAdmittedCount( CaptureLevel level ) {
+		return this.admitted[ level.ordinal() ].sum();
+	}
+
+	/**
+	 * Smoothed delivery time per record of the recent batches.
+	 */
+	public Duration getSinkLatency() {
+		return Duration.ofNanos( this.latencyNanos );
+	}
+
+	void deliveryStarted( int records ) {
+		this.stallNanos = this.countersOnlyLatencyNanos * Math.max( 1, records );
+		this.deliveryStartedNanos = Math.max( 1, System.nanoTime() );
+	}
+
+	void deliveryFinished( int records, int depth, int capacity ) {
+		long elapsed = ( System.nanoTime() - this.deliveryStartedNanos ) / Math.max( 1, records );
+		this.deliveryStartedNanos = 0;
+		this.latencyNanos = ( long ) ( this.latencyNanos * ( 1 - LATENCY_SMOOTHING ) + elapsed * LATENCY_SMOOTHING );
+		this.update( depth, capacity );
+	}
+
+	/**
+	 * Called when the consumer found nothing to deliver; the latency seen
+	 * under load fades so that capture can resume.
+	 */
+	void idle( int depth, int capacity ) {
+		this.latencyNanos = ( long ) ( this.latencyNanos * ( 1 - LATENCY_SMOOTHING ) );
+		this.update( depth, capacity );
+	}
+
+	private void update( int depth, int capacity ) {
+		double fill = capacity == 0 ? 0 : ( double ) depth / capacity;
+		var current = this.level;
+		var degraded = this.severity( fill, this.latencyNanos, 1 );
+		if ( degraded.compareTo( current ) > 0 ) {
+			this.level = degraded;
+		} else if ( current != CaptureLevel.FULL
+				&& this.severity( fill, this.latencyNanos, this.recoveryFactor ).compareTo( current ) < 0 ) {
+			this.level = CaptureLevel.values()[ current.ordinal() - 1 ];
+		}
+	}
+
+	private CaptureLevel severity( double fill, long latency, double scale ) {
+		if ( fill >= this.countersOnlyDepth * scale || latency >= this.countersOnlyLatencyNanos * scale ) {
+			return CaptureLevel.COUNTERS_ONLY;
+		}
+		if ( fill >= this.metadataOnlyDepth * scale || latency >= this.metadataOnlyLatencyNanos * scale ) {
+			return CaptureLevel.METADATA_ONLY;
+		}
+		return CaptureLevel.FULL;
+	}
+
+	public static class Builder {
+		private double metadataOnlyDepth = DEFAULT_METADATA_ONLY_DEPTH;
+		private double countersOnlyDepth = DEFAULT_COUNTERS_ONLY_DEPTH;
+		private Duration metadataOnlyLatency = DEFAULT_METADATA_ONLY_LATENCY;
+		private Duration countersOnlyLatency = DEFAULT_COUNTERS_ONLY_LATENCY;
+		private double recoveryFactor = DEFAULT_RECOVERY_FACTOR;
+
+		/**
+		 * Queue fill ratio or sink latency per record from which bodies are
+		 * no longer captured.
+		 */
+		public Builder withMetadataOnlyAt( double queueFill, Duration sinkLatency ) {
+			this.metadataOnlyDepth = queueFill;
+			this.metadataOnlyLatency = sinkLatency;
+			return this;
+		}
+
+		/**
+		 * Queue fill ratio or sink latency per record from which exchanges
+		 * are only counted; a batch delivery stalled for that long times its
+		 * records also degrades capture.
+		 */
+		public Builder withCountersOnlyAt( double queueFill, Duration sinkLatency ) {
+			this.countersOnlyDepth = queueFill;
+			this.countersOnlyLatency = sinkLatency;
+			return this;
+		}
+
+		/**
+		 * Fraction of the thresholds the metrics must fall below before
+		 * capture goes back up a level.
+		 */
+		public Builder withRecoveryFactor( double recoveryFactor ) {
+			this.recoveryFactor = recoveryFactor;
+			return this;
+		}
+
+		public OverloadPolicy build() {
+			if ( recoveryFactor <= 0 || recoveryFactor > 1 ) {
+				throw new IllegalArgumentException( "Recovery factor must be in (0, 1]" );
+			}
+			return new OverloadPolicy( metadataOnlyDepth, countersOnlyDepth, metadataOnlyLatency,
+					countersOnlyLatency, recoveryFactor );
+		}
+	}
+
+}
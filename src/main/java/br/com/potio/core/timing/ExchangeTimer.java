@@ -0,0 +1,97 @@
+package br.com.potio.core.timing;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import br.com.potio.core.dto.ResponseDTO;
+
+/**
+ * Monotonic clock of one exchange, carried from the request to the response
+ * filter. Phases are measured with {@link System#nanoTime()}; only the start
+ * instant is taken from the wall clock.
+ */
+public class ExchangeTimer {
+
+	private final long startNanos;
+	private final long startMillis;
+	private volatile long filterInNanos;
+	private volatile long handlerNanos;
+	private volatile long completedNanos;
+
+	private ExchangeTimer( long startNanos, long startMillis ) {
+		this.startNanos = startNanos;
+		this.startMillis = startMillis;
+	}
+
+	public static ExchangeTimer start() {
+		return new ExchangeTimer( System.nanoTime(), System.currentTimeMillis() );
+	}
+
+	/**
+	 * End of the request filter: capture cost paid before the handler runs.
+	 */
+	public void markFilterIn() {
+		this.filterInNanos = System.nanoTime();
+	}
+
+	/**
+	 * Response available: the resource method on the server, the remote call
+	 * on the client.
+	 */
+	public void markHandler() {
+		this.handlerNanos = System.nanoTime();
+	}
+
+	/**
+	 * Response entity written (server) or read (client).
+	 */
+	public void markCompleted() {
+		this.completedNanos = System.nanoTime();
+	}
+
+	/**
+	 * Completion at the end of the handler, for an entity that was never
+	 * written or read.
+	 */
+	public void markCompletedAtHandler() {
+		long handler = this.handlerNanos;
+		this.completedNanos = handler != 0 ? handler : System.nanoTime();
+	}
+
+	public Date getStartDate() {
+		return new Date( this.startMillis );
+	}
+
+	public long getStartNanos() {
+		return this.startNanos;
+	}
+
+	/**
+	 * Time from start to completion, or to now when not completed yet.
+	 */
+	public long getTookNanos() {
+		long completed = this.completedNanos;
+		return ( completed != 0 ? completed : System.nanoTime() ) - this.startNanos;
+	}
+
+	public void applyTo( ResponseDTO response ) {
+		long completed = this.completedNanos != 0 ? this.completedNanos : System.nanoTime();
+		long filterIn = this.filterInNanos != 0 ? this.filterInNanos : this.startNanos;
+		long handler = this.handlerNanos != 0 ? this.handlerNanos : completed;
+		long took = completed - this.startNanos;
+		response.setTookNanos( took );
+		response.setFilterInNanos( filterIn - this.startNanos );
+		response.setHandlerNanos( handler - filterIn );
+		response.setSerializationNanos( completed - handler );
+		response.setTookSeconds( ExchangeTimer.formatSeconds( took ) );
+	}
+
+	/**
+	 * Legacy {@code tookSeconds} representation.
+	 */
+	public static String formatSeconds( long nanos ) {
+		long seconds = TimeUnit.NANOSECONDS.toSeconds( nanos );
+		return seconds < 1 ? "< 1s" : seconds + "s";
+	}
+
+}
@@ -0,0 +1,377 @@
+package br.com.potio.http_auditor;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import br.com.potio.core.compression.BodyCompressor;
+import br.com.potio.core.correlation.Correlation;
+import br.com.potio.core.correlation.CorrelationIds;
+import br.com.potio.core.dedup.BodyDeduplicator;
+import br.com.potio.core.dto.RequestDTO;
+import br.com.potio.core.dto.ResponseDTO;
+import br.com.potio.core.index.AuditIndex;
+import br.com.potio.core.metrics.AuditMetrics;
+import br.com.potio.core.redaction.Redactor;
+import br.com.potio.core.sampling.Sampler;
+import br.com.potio.core.sink.AuditDispatcher;
+import br.com.potio.core.sink.AuditRecord;
+import br.com.potio.core.sink.CaptureLevel;
+import br.com.potio.core.sink.DeliveryExecutor;
+import br.com.potio.core.sink.OverloadPolicy;
+import jakarta.annotation.PreDestroy;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Common hand-off of {@link ClientFilter} and {@link ServerFilter}: captured
+ * exchanges are enqueued on an {@link AuditDispatcher}, whose consumer hands
+ * each batch to {@link #auditRequestResponse(RequestDTO, ResponseDTO)} calls
+ * running concurrently on pooled, or from Java 21 virtual, threads, in no
+ * particular order. Override {@link #getMaxConcurrentDeliveries()} to return
+ * 1 for sequential calls on the consumer thread, in capture order.
+ */
+public abstract class AbstractAuditFilter {
+
+	private static final Logger logger = Logger.getLogger( AbstractAuditFilter.class.getName() );
+	protected static final int DEFAULT_MAX_ENTITY_SIZE = 16 * 1024;
+	protected static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+	protected static final int DEFAULT_MAX_CONCURRENT_DELIVERIES = 16;
+
+	private volatile AuditDispatcher dispatcher;
+	private volatile Sampler sampler;
+	private volatile BodyCompressor compressor;
+	private volatile AuditMetrics metrics;
+	private volatile DeliveryExecutor deliveryExecutor;
+	private volatile AuditIndex index;
+	private volatile BodyDeduplicator deduplicator;
+
+	public void auditRequestResponse( RequestDTO request, ResponseDTO response ) {
+		throw new UnsupportedOperationException( "Persist Audition Not Implemented" );
+	}
+
+	/**
+	 * Maximum number of entity bytes kept per captured body; larger bodies
+	 * still stream through untouched.
+	 */
+	protected int getMaxEntitySize() {
+		return DEFAULT_MAX_ENTITY_SIZE;
+	}
+
+	/**
+	 * Name of the dispatcher and delivery threads and of the JMX metrics: the
+	 * simple class name, or the full one for anonymous subclasses.
+	 */
+	protected String getAuditName() {
+		var name = this.getClass().getSimpleName();
+		return name.isEmpty() ? this.getClass().getName() : name;
+	}
+
+	static RequestDTO.Builder correlate( RequestDTO.Builder builder, Correlation correlation ) {
+		if ( correlation == null ) {
+			return builder;
+		}
+		return builder.withExchangeId( CorrelationIds.format( correlation.getId() ) )
+				.withParentId( correlation.getParentId() == 0 ? null
+						: CorrelationIds.format( correlation.getParentId() ) )
+				.withRootId( CorrelationIds.format( correlation.getRootId() ) );
+	}
+
+	/**
+	 * Charset declared by the entity media type, UTF-8 when absent or unknown.
+	 */
+	protected Charset charsetOf( MediaType mediaType ) {
+		var name = mediaType == null ? null : mediaType.getParameters().get( MediaType.CHARSET_PARAMETER );
+		if ( name != null ) {
+			try {
+				return Charset.forName( name );
+			} catch ( IllegalArgumentException e ) {
+				AbstractAuditFilter.logger.log( Level.FINE, "Unknown charset " + name, e );
+			}
+		}
+		return DEFAULT_CHARSET;
+	}
+
+	/**
+	 * Override to change queue capacity, batching or the sink itself.
+	 */
+	protected AuditDispatcher createDispatcher() {
+		var builder = AuditDispatcher.builder()
+				.withName( this.getAuditName() )
+				.withSink( this::deliver );
+		var index = this.createIndex();
+		if ( index != null ) {
+			builder.withStage( index );
+			this.index = index;
+		}
+		var redactor = this.createRedactor();
+		if ( redactor != null ) {
+			builder.withStage( redactor );
+		}
+		var deduplicator = this.createDeduplicator();
+		if ( deduplicator != null ) {
+			builder.withStage( deduplicator );
+			// masked bodies are only fingerprinted after redaction, by the stage
+			if ( redactor == null ) {
+				this.deduplicator = deduplicator;
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Override to mask secrets before records reach
+	 * {@link #auditRequestResponse(RequestDTO, ResponseDTO)}; nothing is
+	 * redacted by default.
+	 */
+	protected Redactor createRedactor() {
+		return null;
+	}
+
+	/**
+	 * Override to deliver repeated bodies as fingerprints; runs after the
+	 * redactor, so masked bodies still match. Nothing is deduplicated by
+	 * default.
+	 */
+	protected BodyDeduplicator createDeduplicator() {
+		return null;
+	}
+
+	/**
+	 * Override to keep recent exchanges searchable locally, see
+	 * {@link #index()}; nothing is indexed by default.
+	 */
+	protected AuditIndex createIndex() {
+		return null;
+	}
+
+	/**
+	 * Metadata of the recently captured exchanges, or {@code null} when
+	 * {@link #createIndex()} is not overridden.
+	 */
+	public AuditIndex index() {
+		this.dispatcher();
+		return this.index;
+	}
+
+	/**
+	 * Calls of {@link #auditRequestResponse(RequestDTO, ResponseDTO)} running
+	 * at once, on virtual threads from Java 21 on; 1 keeps them sequential on
+	 * the dispatcher thread, in capture order.
+	 */
+	protected int getMaxConcurrentDeliveries() {
+		return DEFAULT_MAX_CONCURRENT_DELIVERIES;
+	}
+
+	/**
+	 * Delivers the batch; records whose bodies were left out as repetitions
+	 * are delivered after the others, so a sink has seen the full body of a
+	 * fingerprint by the time it gets a record referencing it.
+	 */
+	protected void deliver( List< AuditRecord > batch ) {
+		if ( this.getMaxConcurrentDeliveries() <= 1 ) {
+			batch.forEach( this::auditRecord );
+			return;
+		}
+		List< Runnable > tasks = new ArrayList<>( batch.size() );
+		List< Runnable > repetitions = null;
+		for ( AuditRecord record : batch ) {
+			if ( AbstractAuditFilter.repeatsBody( record ) ) {
+				if ( repetitions == null ) {
+					repetitions = new ArrayList<>();
+				}
+				repetitions.add( () -> this.auditRecord( record ) );
+			} else {
+				tasks.add( () -> this.auditRecord( record ) );
+			}
+		}
+		try {
+			this.deliveryExecutor().runAll( tasks );
+			if ( repetitions != null ) {
+				this.deliveryExecutor().runAll( repetitions );
+			}
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static boolean repeatsBody( AuditRecord record ) {
+		var request = record.getRequest();
+		var response = record.getResponse();
+		return request != null && request.getBodyFingerprint() != null && request.getBodyContent() == null
+				|| response != null && response.getBodyFingerprint() != null && response.getBodyContent() == null;
+	}
+
+	/**
+	 * Override to return {@code true} when
+	 * {@link #auditRequestResponse(RequestDTO, ResponseDTO)} hands the DTOs
+	 * to code that reads the raw bodies after it returns, like another queue;
+	 * the bodies are then copied out of the capture pool first. By default
+	 * they are only valid during the call, though text already read with
+	 * {@code getBody()} stays available; a later read fails, logging a
+	 * warning the first time, and so does serializing a body whose text was
+	 * never read.
+	 */
+	protected boolean retainsBodies() {
+		return false;
+	}
+
+	private void auditRecord( AuditRecord record ) {
+		try {
+			if ( this.retainsBodies() ) {
+				record.detach();
+			}
+			this.auditRequestResponse( record.getRequest(), record.getResponse() );
+		} catch ( RuntimeException e ) {
+			AbstractAuditFilter.logger.log( Level.SEVERE, "Error while auditing request", e );
+			// e.g. a body first delivered here must not be referenced by fingerprint
+			this.dispatcher().reportUndelivered( record );
+		}
+	}
+
+	private DeliveryExecutor deliveryExecutor() {
+		var current = this.deliveryExecutor;
+		if ( current == null ) {
+			synchronized ( this ) {
+				current = this.deliveryExecutor;
+				if ( current == null ) {
+					current = DeliveryExecutor.create( this.getAuditName(),
+							this.getMaxConcurrentDeliveries() );
+					this.deliveryExecutor = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	protected AuditDispatcher dispatcher() {
+		var current = this.dispatcher;
+		if ( current == null ) {
+			synchronized ( this ) {
+				current = this.dispatcher;
+				if ( current == null ) {
+					current = this.createDispatcher();
+					this.metrics().bind( current );
+					this.dispatcher = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Override to skip capturing part of the traffic; evaluated before
+	 * anything of the exchange is copied.
+	 */
+	protected Sampler createSampler() {
+		return Sampler.captureAll();
+	}
+
+	protected Sampler sampler() {
+		var current = this.sampler;
+		if ( current == null ) {
+			synchronized ( this ) {
+				current = this.sampler;
+				if ( current == null ) {
+					current = this.createSampler();
+					this.metrics().bind( current );
+					this.sampler = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Override to keep captured bodies deflated while they wait in the
+	 * queue; runs on the request thread right before the hand-off.
+	 */
+	protected BodyCompressor createCompressor() {
+		return BodyCompressor.none();
+	}
+
+	protected BodyCompressor compressor() {
+		var current = this.compressor;
+		if ( current == null ) {
+			synchronized ( this ) {
+				current = this.compressor;
+				if ( current == null ) {
+					current = this.createCompressor();
+					this.compressor = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Capture level for a new exchange, degraded by the dispatcher's
+	 * {@link OverloadPolicy} while delivery falls behind.
+	 */
+	protected CaptureLevel admit() {
+		return this.dispatcher().getOverloadPolicy().admit();
+	}
+
+	/**
+	 * Override to tune or disable the JMX registration of the metrics.
+	 */
+	protected AuditMetrics createMetrics() {
+		return AuditMetrics.builder()
+				.withName( this.getAuditName() )
+				.build();
+	}
+
+	/**
+	 * RED metrics of the audited traffic and health of the audit pipeline.
+	 */
+	public AuditMetrics metrics() {
+		var current = this.metrics;
+		if ( current == null ) {
+			synchronized ( this ) {
+				current = this.metrics;
+				if ( current == null ) {
+					current = this.createMetrics();
+					this.metrics = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	protected boolean dispatch( RequestDTO request, ResponseDTO response ) {
+		var metrics = this.metrics();
+		metrics.recordBody( request.getBodyContent() );
+		metrics.recordBody( response.getBodyContent() );
+		var current = this.dispatcher();
+		var currentDeduplicator = this.deduplicator;
+		if ( currentDeduplicator != null ) {
+			// hashed raw, so the dispatcher need not inflate compressed bodies
+			currentDeduplicator.fingerprint( request, response );
+		}
+		this.compressor().compress( request, response );
+		return current.submit( new AuditRecord( request, response ) );
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		var current = this.dispatcher;
+		if ( current != null ) {
+			current.close();
+		}
+		var currentDeliveryExecutor = this.deliveryExecutor;
+		if ( currentDeliveryExecutor != null ) {
+			currentDeliveryExecutor.close();
+		}
+		var currentCompressor = this.compressor;
+		if ( currentCompressor != null ) {
+			currentCompressor.close();
+		}
+		var currentMetrics = this.metrics;
+		if ( currentMetrics != null ) {
+			currentMetrics.close();
+		}
+	}
+
+}
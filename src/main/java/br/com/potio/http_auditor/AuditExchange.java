@@ -0,0 +1,165 @@
+package br.com.potio.http_auditor;
+
+import java.lang.ref.Cleaner;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import br.com.potio.core.capture.CaptureBuffer;
+import br.com.potio.core.correlation.Correlation;
+import br.com.potio.core.dto.BodyContent;
+import br.com.potio.core.dto.RequestDTO;
+import br.com.potio.core.dto.ResponseDTO;
+import br.com.potio.core.sink.CaptureLevel;
+import br.com.potio.core.timing.ExchangeTimer;
+
+/**
+ * Live state of one audited exchange, carried between the request and the
+ * response side of a filter as a context property.
+ */
+class AuditExchange {
+
+	static final String PROPERTY = AuditExchange.class.getName();
+
+	/**
+	 * Completes exchanges whose entity is never written or read, once the
+	 * object tracking them becomes unreachable.
+	 */
+	static final Cleaner CLEANER = Cleaner.create();
+
+	private final ExchangeTimer timer;
+	private final CaptureLevel level;
+	private final CapturePolicy policy;
+	private Correlation correlation;
+	private String routeTemplate;
+	private RequestDTO request;
+	private CaptureBuffer requestCapture;
+	private BodyContent requestBody;
+	private String requestBodyTypeName;
+	private ResponseDTO response;
+	private final AtomicBoolean finished = new AtomicBoolean();
+	private volatile Cleaner.Cleanable abandonment;
+
+	AuditExchange( ExchangeTimer timer, CaptureLevel level, CapturePolicy policy ) {
+		this.timer = timer;
+		this.level = level;
+		this.policy = policy;
+	}
+
+	ExchangeTimer getTimer() {
+		return timer;
+	}
+
+	boolean capturesRecord() {
+		return level != CaptureLevel.COUNTERS_ONLY;
+	}
+
+	boolean capturesRequestBody() {
+		return level == CaptureLevel.FULL && policy.capturesRequestBody();
+	}
+
+	boolean capturesResponseBody() {
+		return level == CaptureLevel.FULL && policy.capturesResponseBody();
+	}
+
+	CapturePolicy getPolicy() {
+		return policy;
+	}
+
+	Correlation getCorrelation() {
+		return correlation;
+	}
+
+	void setCorrelation( Correlation correlation ) {
+		this.correlation = correlation;
+	}
+
+	String getRouteTemplate() {
+		return routeTemplate;
+	}
+
+	void setRouteTemplate( String routeTemplate ) {
+		this.routeTemplate = routeTemplate;
+	}
+
+	RequestDTO getRequest() {
+		return request;
+	}
+
+	void setRequest( RequestDTO request ) {
+		this.request = request;
+	}
+
+	CaptureBuffer getRequestCapture() {
+		return requestCapture;
+	}
+
+	void setRequestCapture( CaptureBuffer requestCapture ) {
+		this.requestCapture = requestCapture;
+	}
+
+	/**
+	 * Moves the captured slab into the request body; later calls keep the
+	 * first result.
+	 */
+	void completeRequestCapture( Charset charset ) {
+		if ( this.requestCapture != null ) {
+			this.requestBody = BodyContent.adopt( this.requestCapture, charset );
+			this.requestCapture = null;
+		}
+	}
+
+	BodyContent getRequestBody() {
+		return requestBody;
+	}
+
+	String getRequestBodyTypeName() {
+		return requestBodyTypeName;
+	}
+
+	void setRequestBodyTypeName( String requestBodyTypeName ) {
+		this.requestBodyTypeName = requestBodyTypeName;
+	}
+
+	/**
+	 * @return whether this call finished the exchange, so it is dispatched
+	 *         once whichever path gets there first
+	 */
+	boolean finish() {
+		return this.finished.compareAndSet( false, true );
+	}
+
+	/**
+	 * Completes the exchange with {@code action}, unless already finished,
+	 * once {@code tracker} becomes unreachable.
+	 */
+	void onAbandoned( Object tracker, Runnable action ) {
+		this.abandonment = CLEANER.register( tracker, () -> {
+			if ( this.finish() ) {
+				action.run();
+			}
+		} );
+	}
+
+	/**
+	 * Drops the abandonment action of a finished exchange.
+	 */
+	void clearAbandoned() {
+		var current = this.abandonment;
+		if ( current != null ) {
+			current.clean();
+		}
+	}
+
+	/**
+	 * Response waiting for its entity to be written, set when the record is
+	 * finished by a writer interceptor rather than by the response filter.
+	 */
+	ResponseDTO getResponse() {
+		return response;
+	}
+
+	void setResponse( ResponseDTO response ) {
+		this.response = response;
+	}
+
+}
@@ -0,0 +1,67 @@
+package br.com.potio.http_auditor;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.FeatureContext;
+
+/**
+ * Binds a {@link ServerFilter} only to the resource methods that are
+ * audited, with their {@link CapturePolicy} and route template resolved at
+ * deployment. Methods disabled with {@code @Audited( false )}, or left
+ * unannotated when {@link #auditsUnannotated()} is {@code false}, get no
+ * filter at all.
+ *
+ * Register the feature instead of the filter, so exchanges are not audited
+ * twice. The runtime does not manage the filter it creates, so
+ * {@link #shutdown()} must run when the application stops, either as the
+ * feature's {@code @PreDestroy} callback or called explicitly.
+ */
+public abstract class AuditFeature implements DynamicFeature {
+
+	private ServerFilter filter;
+
+	/**
+	 * The filter shared by every bound method; called once.
+	 */
+	protected abstract ServerFilter createFilter();
+
+	/**
+	 * Whether methods without {@link Audited} on them or their class are
+	 * audited with {@link CapturePolicy#DEFAULT}.
+	 */
+	protected boolean auditsUnannotated() {
+		return true;
+	}
+
+	@Override
+	public void configure( ResourceInfo resourceInfo, FeatureContext context ) {
+		var resourceClass = resourceInfo.getResourceClass();
+		var resourceMethod = resourceInfo.getResourceMethod();
+		var policy = CapturePolicy.of( resourceClass, resourceMethod );
+		if ( !policy.isEnabled() || policy == CapturePolicy.DEFAULT && !this.auditsUnannotated() ) {
+			return;
+		}
+		context.register( new BoundServerFilter( this.filter(), policy,
+				RouteTemplates.of( resourceClass, resourceMethod ) ) );
+	}
+
+	/**
+	 * Delivers what the shared filter still holds and releases its threads
+	 * and JMX registration.
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+		if ( this.filter != null ) {
+			this.filter.shutdown();
+		}
+	}
+
+	private synchronized ServerFilter filter() {
+		if ( this.filter == null ) {
+			this.filter = this.createFilter();
+		}
+		return this.filter;
+	}
+
+}
@@ -0,0 +1,39 @@
+package br.com.potio.http_auditor;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * What the audit filters capture for a resource class or method, or for a
+ * Rest Client interface or method; the method annotation wins over the
+ * class one. Resolved once per method into a {@link CapturePolicy}.
+ */
+@Documented
+@Retention( RetentionPolicy.RUNTIME )
+@Target( { ElementType.TYPE, ElementType.METHOD } )
+public @interface Audited {
+
+	/**
+	 * {@code false} leaves the endpoint out of auditing altogether.
+	 */
+	boolean value() default true;
+
+	boolean requestBody() default true;
+
+	boolean responseBody() default true;
+
+	/**
+	 * Maximum number of body bytes kept, {@code -1} for the filter's
+	 * {@code getMaxEntitySize()}.
+	 */
+	int maxBodySize() default -1;
+
+	/**
+	 * Names of the headers to keep, case-insensitive; empty keeps them all.
+	 */
+	String[] headers() default {};
+
+}
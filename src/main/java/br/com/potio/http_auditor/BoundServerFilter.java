@@ -0,0 +1,44 @@
+package br.com.potio.http_auditor;
+
+import java.io.IOException;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Binding of a shared {@link ServerFilter} to one resource method, carrying
+ * what {@link AuditFeature} resolved for it at deployment.
+ */
+class BoundServerFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+	private final ServerFilter filter;
+	private final CapturePolicy policy;
+	private final String routeTemplate;
+
+	BoundServerFilter( ServerFilter filter, CapturePolicy policy, String routeTemplate ) {
+		this.filter = filter;
+		this.policy = policy;
+		this.routeTemplate = routeTemplate;
+	}
+
+	@Override
+	public void filter( ContainerRequestContext requestContext ) throws IOException {
+		this.filter.filter( requestContext, this.policy, this.routeTemplate );
+	}
+
+	@Override
+	public void filter( ContainerRequestContext requestContext, ContainerResponseContext responseContext )
+			throws IOException {
+		this.filter.filter( requestContext, responseContext );
+	}
+
+	@Override
+	public void aroundWriteTo( WriterInterceptorContext context ) throws IOException {
+		this.filter.aroundWriteTo( context );
+	}
+
+}
@@ -0,0 +1,144 @@
+package br.com.potio.http_auditor;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import br.com.potio.core.dto.CompactHeaders;
+
+/**
+ * Capture settings of one endpoint, precomputed from its {@link Audited}
+ * annotation so requests only read fields.
+ */
+public final class CapturePolicy {
+
+	/**
+	 * Everything captured, bodies up to the filter's limit.
+	 */
+	public static final CapturePolicy DEFAULT = new CapturePolicy( true, true, true, -1, null );
+
+	// per matched class, since subclasses sharing an inherited method may be annotated differently
+	private static final ClassValue< Map< Method, CapturePolicy > > POLICIES = new ClassValue<>() {
+		@Override
+		protected Map< Method, CapturePolicy > computeValue( Class< ? > type ) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private final boolean enabled;
+	private final boolean requestBody;
+	private final boolean responseBody;
+	private final int maxBodySize;
+	private final Set< String > headers;
+
+	private CapturePolicy( boolean enabled, boolean requestBody, boolean responseBody, int maxBodySize,
+			Set< String > headers ) {
+		this.enabled = enabled;
+		this.requestBody = requestBody;
+		this.responseBody = responseBody;
+		this.maxBodySize = maxBodySize;
+		this.headers = headers;
+	}
+
+	public static CapturePolicy of( Audited audited ) {
+		Set< String > headers = null;
+		if ( audited.headers().length > 0 ) {
+			headers = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+			headers.addAll( Arrays.asList( audited.headers() ) );
+		}
+		return new CapturePolicy( audited.value(), audited.requestBody(), audited.responseBody(),
+				audited.maxBodySize(), headers );
+	}
+
+	/**
+	 * Policy of a resource or Rest Client method, resolved on first use. An
+	 * annotation on the method, or on the method it implements or overrides,
+	 * beats one on the class or the interfaces it implements.
+	 *
+	 * @param type class the method was matched on, {@code null} for its
+	 *             declaring class
+	 * @return {@link #DEFAULT} when neither the method nor its class is
+	 *         annotated
+	 */
+	public static CapturePolicy of( Class< ? > type, Method method ) {
+		if ( method == null ) {
+			return DEFAULT;
+		}
+		var owner = type != null ? type : method.getDeclaringClass();
+		return POLICIES.get( owner ).computeIfAbsent( method, key -> CapturePolicy.resolve( owner, key ) );
+	}
+
+	static CapturePolicy of( Object invokedMethod ) {
+		return invokedMethod instanceof Method ? CapturePolicy.of( null, ( Method ) invokedMethod ) : DEFAULT;
+	}
+
+	private static CapturePolicy resolve( Class< ? > type, Method method ) {
+		var audited = method.getAnnotation( Audited.class );
+		for ( var current = type; audited == null && current != null && current != Object.class;
+				current = current.getSuperclass() ) {
+			audited = CapturePolicy.findOnMethod( current, method );
+		}
+		for ( var current = type; audited == null && current != null && current != Object.class;
+				current = current.getSuperclass() ) {
+			audited = current.getAnnotation( Audited.class );
+			for ( int i = 0; audited == null && i < current.getInterfaces().length; i++ ) {
+				audited = current.getInterfaces()[ i ].getAnnotation( Audited.class );
+			}
+		}
+		return audited == null ? DEFAULT : CapturePolicy.of( audited );
+	}
+
+	/**
+	 * Annotation of the method with the same signature declared by
+	 * {@code type} or any interface it extends or implements.
+	 */
+	private static Audited findOnMethod( Class< ? > type, Method method ) {
+		try {
+			var audited = type.getDeclaredMethod( method.getName(), method.getParameterTypes() )
+					.getAnnotation( Audited.class );
+			if ( audited != null ) {
+				return audited;
+			}
+		} catch ( NoSuchMethodException e ) {
+			// not declared here
+		}
+		for ( var contract : type.getInterfaces() ) {
+			var audited = CapturePolicy.findOnMethod( contract, method );
+			if ( audited != null ) {
+				return audited;
+			}
+		}
+		return null;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public boolean capturesRequestBody() {
+		return requestBody;
+	}
+
+	public boolean capturesResponseBody() {
+		return responseBody;
+	}
+
+	/**
+	 * @param filterDefault the filter's own limit
+	 */
+	public int getMaxBodySize( int filterDefault ) {
+		return maxBodySize < 0 ? filterDefault : maxBodySize;
+	}
+
+	/**
+	 * Copies the allowed headers.
+	 */
+	public CompactHeaders headers( Map< String, ? extends List< String > > headers ) {
+		return this.headers == null ? CompactHeaders.of( headers ) : CompactHeaders.of( headers, this.headers );
+	}
+
+}
@@ -1,152 +1,172 @@
 package br.com.potio.http_auditor;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.text.Normalizer.Form;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.time.ZoneId;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.Objects;
+import java.net.URI;
 import java.util.Optional;
-import java.util.TimeZone;
-import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
+import br.com.potio.core.capture.CaptureBuffer;
+import br.com.potio.core.capture.CaptureInputStream;
+import br.com.potio.core.capture.CaptureOutputStream;
+import br.com.potio.core.correlation.Correlation;
+import br.com.potio.core.correlation.CorrelationIds;
+import br.com.potio.core.dto.BodyContent;
 import br.com.potio.core.dto.RequestDTO;
 import br.com.potio.core.dto.ResponseDTO;
-import jakarta.json.bind.Jsonb;
-import jakarta.json.bind.JsonbBuilder;
+import br.com.potio.core.sink.CaptureLevel;
+import br.com.potio.core.timing.ExchangeTimer;
 import jakarta.ws.rs.client.ClientRequestContext;
 import jakarta.ws.rs.client.ClientRequestFilter;
 import jakarta.ws.rs.client.ClientResponseContext;
 import jakarta.ws.rs.client.ClientResponseFilter;
 import jakarta.ws.rs.core.EntityTag;
-import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Form;
 import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
 
 @Provider
-public abstract class ClientFilter implements ClientRequestFilter, ClientResponseFilter {
+public abstract class ClientFilter extends AbstractAuditFilter
+		implements ClientRequestFilter, ClientResponseFilter, WriterInterceptor {
 
-	private static final Logger logger = Logger.getLogger( ClientFilter.class.getName() );
-	private static final int MAX_ENTITY_SIZE = 16 * 1024;
-	private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
-	private static final String DATE_PATTERN = "EEE MMM d HH:mm:ss yyyy";
-	private static final ZoneId DEFAULT_ZONE_ID = ZoneId.systemDefault();
 	protected static final String HEADER_ORIGIN_ACTION = "origin-action";
 
-	public void auditRequestResponse( RequestDTO request, ResponseDTO response ) {
-		throw new UnsupportedOperationException( "Persist Audition Not Implemented" );
-	}
-
 	@Override
 	public void filter( ClientRequestContext reqContext, ClientResponseContext resContext ) {
-		try {
-			var response = this.createResponse( resContext );
-			var request = this.createRequest( reqContext );
-			Long tookSeconds = null;
-			if ( !Objects.isNull( response.getDate() )
-					&&  !Objects.isNull( request.getDate() ) ) {
-				tookSeconds = Math.abs( response.getDate().getTime() - request.getDate().getTime() );
-				tookSeconds = TimeUnit.MILLISECONDS.toSeconds( tookSeconds );
-			}
-			response.setTookSeconds( Objects.isNull( tookSeconds ) ? tookSeconds + "s" : "< 1s" );
-			this.auditRequestResponse( request, response );
-		} catch ( IOException | ParseException e) {
-			ClientFilter.logger.log( Level.SEVERE, "Error while intercepting client requests", e );
+		var exchange = ( AuditExchange ) reqContext.getProperty( AuditExchange.PROPERTY );
+		if ( exchange == null ) {
+			return;
+		}
+		reqContext.removeProperty( AuditExchange.PROPERTY );
+		var timer = exchange.getTimer();
+		timer.markHandler();
+		this.metrics().recordHost( ClientFilter.hostKey( reqContext.getUri() ), resContext.getStatus(),
+				timer.getTookNanos() );
+		if ( !exchange.capturesRecord() ) {
+			return;
+		}
+		var request = this.createRequest( reqContext, exchange );
+		var response = this.createResponse( resContext );
+		if ( !resContext.hasEntity() || !exchange.capturesResponseBody() ) {
+			this.complete( exchange, request, response );
+			return;
 		}
+		// the record is complete once the application has read the entity or closed the response
+		var charset = this.charsetOf( resContext.getMediaType() );
+		var buffer = new CaptureBuffer( exchange.getPolicy().getMaxBodySize( this.getMaxEntitySize() ) );
+		var capture = new CaptureInputStream( resContext.getEntityStream(), buffer, captured -> {
+			response.setBodyContent( BodyContent.adopt( captured, charset ) );
+			this.complete( exchange, request, response );
+			exchange.clearAbandoned();
+		} );
+		resContext.setEntityStream( capture );
+		// a response dropped unread is delivered with what was read of it once collected
+		exchange.onAbandoned( capture, () -> {
+			this.metrics().recordAbandoned();
+			response.setBodyContent( BodyContent.adopt( buffer, charset ) );
+			timer.markCompletedAtHandler();
+			timer.applyTo( response );
+			this.dispatch( request, response );
+		} );
 	}
 
-	private RequestDTO createRequest( ClientRequestContext context ) throws IOException, ParseException {
-		var uri = context.getUri();
-		Map< String, List< String > > headers = extractHeaders( context.getStringHeaders() );
-		String body = null;
-		String bodyTypeName = null;
-		Object entity = null;
-		var hasEntity = context.hasEntity()
-				&& !( ( entity = context.getEntity() ) instanceof Form );
-		if ( hasEntity ) {
-			Jsonb jsonb = JsonbBuilder.create();
-			body = jsonb.toJson(entity);
-			bodyTypeName = entity.getClass().getName();
+	private void complete( AuditExchange exchange, RequestDTO request, ResponseDTO response ) {
+		if ( !exchange.finish() ) {
+			return;
 		}
-		String requestDate = headers.get( "date" ).get( 0 );
-		var dateParser = new SimpleDateFormat( DATE_PATTERN, Locale.US );
-		dateParser.setTimeZone( TimeZone.getTimeZone( DEFAULT_ZONE_ID ) );
-		return RequestDTO.builder()
+		var timer = exchange.getTimer();
+		timer.markCompleted();
+		timer.applyTo( response );
+		this.dispatch( request, response );
+	}
+
+	private static String hostKey( URI uri ) {
+		return uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ':' + uri.getPort();
+	}
+
+	private RequestDTO createRequest( ClientRequestContext context, AuditExchange exchange ) {
+		var uri = context.getUri();
+		exchange.completeRequestCapture( this.charsetOf( context.getMediaType() ) );
+		return AbstractAuditFilter.correlate( RequestDTO.builder(), exchange.getCorrelation() )
 				.withUrl( uri.toString() )
-				.withBody( body )
-				.withBodyTypeName( bodyTypeName )
+				.withRouteTemplate( RouteTemplates.of( context.getProperty( RouteTemplates.INVOKED_METHOD_PROPERTY ) ) )
+				.withBodyContent( exchange.getRequestBody() )
+				.withBodyTypeName( exchange.getRequestBodyTypeName() )
 				.withMethodName( context.getMethod() )
-				.withDate( dateParser.parse( requestDate ) )
-				.withHeaders( headers )
+				.withDate( exchange.getTimer().getStartDate() )
+				.withHeaders( exchange.getPolicy().headers( context.getStringHeaders() ) )
 				.build();
 	}
 
-	private ResponseDTO createResponse( ClientResponseContext context ) throws IOException {
-		String body = null;
-		String entityTag = null;
-		if ( context.hasEntity() ) {
-			InputStream entityStream = context.getEntityStream();
-			var bodyBuilder = new StringBuilder();
-			context.setEntityStream( inBoundEntity( entityStream, bodyBuilder ) );
-			body = bodyBuilder.toString();
-			entityTag = Optional.ofNullable( context.getEntityTag() )
-					.map( EntityTag::getValue )
-					.orElse( null );
-		}
+	private ResponseDTO createResponse( ClientResponseContext context ) {
+		String entityTag = Optional.ofNullable( context.getEntityTag() )
+				.map( EntityTag::getValue )
+				.orElse( null );
 		return ResponseDTO.builder()
 				.withStatus( context.getStatus() )
-				.withBody( body )
 				.withEntityTag( entityTag )
 				.withDate( context.getDate() )
 				.build();
 	}
 
-	private InputStream inBoundEntity( InputStream stream, StringBuilder builder ) throws IOException {
-		if ( !stream.markSupported() ) {
-			stream = new BufferedInputStream( stream );
-		}
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-		try {
-			int nRead;
-			byte[] data = new byte[MAX_ENTITY_SIZE];
-			while ( ( nRead = stream.read ( data, 0, data.length ) ) != -1 ) {
-				buffer.write( data, 0, nRead );
-				builder.append( new String( data, 0, nRead, DEFAULT_CHARSET ) );
-			}
-			ByteArrayInputStream retorno = new ByteArrayInputStream( buffer.toByteArray() );
-			retorno.mark(0);
-			return retorno;
-		} catch ( IOException e ) {
-			e.printStackTrace();
-		}
-	
-		return new BufferedInputStream( stream );
+	/**
+	 * Whether outbound requests carry the {@link Correlation} headers, so the
+	 * called service records its exchanges as children of this call.
+	 */
+	protected boolean propagatesCorrelation() {
+		return true;
 	}
 
-	private Map< String, List< String > > extractHeaders( MultivaluedMap< String, String > headerMap ) {
-		Map< String, List< String > > headers = new HashMap<>();
-		headerMap.keySet().stream()
-				.forEach( key -> headers.put( key, headerMap.get( key ) ) );
-		return headers;
+	private void propagate( ClientRequestContext requestContext, Correlation correlation ) {
+		if ( correlation != null && this.propagatesCorrelation() ) {
+			var headers = requestContext.getHeaders();
+			headers.putSingle( Correlation.PARENT_HEADER, CorrelationIds.format( correlation.getId() ) );
+			headers.putSingle( Correlation.ROOT_HEADER, CorrelationIds.format( correlation.getRootId() ) );
+		}
 	}
 
 	@Override
 	public void filter( ClientRequestContext requestContext ) throws IOException {
-		var simpleDateFormat = new SimpleDateFormat( DATE_PATTERN, Locale.US );
-		simpleDateFormat.setTimeZone( TimeZone.getTimeZone( DEFAULT_ZONE_ID ) );
-		requestContext.getHeaders().add( "date", simpleDateFormat.format( new Date() ) );
+		var policy = CapturePolicy.of( requestContext.getProperty( RouteTemplates.INVOKED_METHOD_PROPERTY ) );
+		if ( !policy.isEnabled() ) {
+			this.propagate( requestContext, Correlation.current() );
+			return;
+		}
+		var timer = ExchangeTimer.start();
+		var uri = requestContext.getUri();
+		// sampled out exchanges still count in the host metrics
+		var level = this.sampler().sample( requestContext.getMethod(), uri.getHost(), uri.getPath(),
+				requestContext::getHeaderString ) ? this.admit() : CaptureLevel.COUNTERS_ONLY;
+		var exchange = new AuditExchange( timer, level, policy );
+		if ( exchange.capturesRecord() ) {
+			var correlation = Correlation.next();
+			exchange.setCorrelation( correlation );
+			this.propagate( requestContext, correlation );
+		} else {
+			// not recorded, the called service links to the exchange being handled
+			this.propagate( requestContext, Correlation.current() );
+		}
+		Object entity = null;
+		var hasEntity = exchange.capturesRequestBody() && requestContext.hasEntity()
+				&& !( ( entity = requestContext.getEntity() ) instanceof Form );
+		if ( hasEntity ) {
+			// the body is taken from the bytes the runtime writes, see aroundWriteTo
+			var capture = new CaptureOutputStream( requestContext.getEntityStream(),
+					new CaptureBuffer( policy.getMaxBodySize( this.getMaxEntitySize() ) ) );
+			requestContext.setEntityStream( capture );
+			exchange.setRequestCapture( capture.getBuffer() );
+			exchange.setRequestBodyTypeName( entity.getClass().getName() );
+		}
+		requestContext.setProperty( AuditExchange.PROPERTY, exchange );
+		exchange.getTimer().markFilterIn();
+	}
+
+	@Override
+	public void aroundWriteTo( WriterInterceptorContext context ) throws IOException {
+		context.proceed();
+		var exchange = ( AuditExchange ) context.getProperty( AuditExchange.PROPERTY );
+		if ( exchange != null ) {
+			exchange.completeRequestCapture( this.charsetOf( context.getMediaType() ) );
+		}
 	}
 
 }
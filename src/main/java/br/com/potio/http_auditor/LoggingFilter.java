@@ -1,7 +1,6 @@
 package br.com.potio.http_auditor;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -9,14 +8,17 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
+import br.com.potio.core.capture.BufferPool;
+import br.com.potio.core.capture.CaptureBuffer;
+import br.com.potio.core.correlation.CorrelationIds;
+import br.com.potio.core.logging.AsyncFileLogOutput;
+import br.com.potio.core.logging.LogOutput;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.client.ClientRequestContext;
 import jakarta.ws.rs.client.ClientRequestFilter;
@@ -54,30 +56,68 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 	private static final String LOGGING_ID_PROPERTY = LoggingFilter.class
 			.getName() + ".id";
 
-	private static final Comparator< Map.Entry< String, List< String > > > COMPARATOR = (
-			o1, o2 ) -> o1.getKey().compareToIgnoreCase( o2.getKey() );
+	private static final ThreadLocal< StringBuilder > BUILDER = ThreadLocal
+			.withInitial( () -> new StringBuilder( 1024 ) );
+
+	private static final ThreadLocal< String[] > HEADER_NAMES = ThreadLocal
+			.withInitial( () -> new String[ 32 ] );
+
+	private static final int MAX_RETAINED_BUILDER_CAPACITY = 64 * 1024;
 
 	private static final int DEFAULT_MAX_ENTITY_SIZE = 8 * 1024;
 
 	private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
 
-	private final AtomicLong atomicId = new AtomicLong( 0 );
-
 	private final int maxEntitySize;
 
+	private final LogOutput output;
+
+	private final Set< String > headerAllowList;
+
 	public LoggingFilter() {
 
-		this.maxEntitySize = LoggingFilter.DEFAULT_MAX_ENTITY_SIZE;
+		this( message -> LoggingFilter.logger.info( message.toString() ) );
+	}
+
+	/**
+	 * Subclasses pick where messages go, e.g. an {@link AsyncFileLogOutput}
+	 * shared by the client and container registrations.
+	 */
+	protected LoggingFilter( final LogOutput output ) {
+
+		this( output, LoggingFilter.DEFAULT_MAX_ENTITY_SIZE );
+	}
+
+	protected LoggingFilter( final LogOutput output, final int maxEntitySize ) {
+
+		this( output, maxEntitySize, null );
+	}
+
+	/**
+	 * @param headerAllowList header names to render, case-insensitive;
+	 *                        {@code null} renders every header
+	 */
+	protected LoggingFilter( final LogOutput output, final int maxEntitySize,
+			final Collection< String > headerAllowList ) {
+
+		this.output = output;
+		this.maxEntitySize = maxEntitySize;
+		if ( headerAllowList == null ) {
+			this.headerAllowList = null;
+		} else {
+			this.headerAllowList = new TreeSet<>( String.CASE_INSENSITIVE_ORDER );
+			this.headerAllowList.addAll( headerAllowList );
+		}
 	}
 
 	private void log( final StringBuilder stringBuilder ) {
 
-		LoggingFilter.logger.info( stringBuilder.toString() );
+		this.output.write( stringBuilder );
 	}
 
 	private StringBuilder prefixId( final StringBuilder stringBuilder, final long id ) {
 
-		stringBuilder.append( id ).append( " " );
+		CorrelationIds.appendTo( stringBuilder, id ).append( " " );
 		return stringBuilder;
 	}
 
@@ -114,37 +154,65 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 		if ( headers == null || headers.isEmpty() ) {
 			return;
 		}
-		for ( final Map.Entry< String, List< String > > headerEntry : this
-				.getSortedHeaders( headers.entrySet() ) ) {
-			final List< ? > val = headerEntry.getValue();
-			final String header = headerEntry.getKey();
-
-			if ( val.size() == 1 ) {
-				this.prefixId( stringBuilder, id ).append( prefix ).append( header )
-						.append( ": " ).append( val.get( 0 ) ).append( "\n" );
-			} else {
-				final var sb = new StringBuilder();
-				var add = false;
-				for ( final Object s : val ) {
-					if ( add ) {
-						sb.append( ',' );
-					}
-					add = true;
-					sb.append( s );
+		final String[] names = this.headerNames( headers.size() );
+		final int count = this.sortHeaderNames( headers, names );
+		for ( int i = 0; i < count; i++ ) {
+			final String header = names[ i ];
+			names[ i ] = null;
+			final List< String > val = headers.get( header );
+			this.prefixId( stringBuilder, id ).append( prefix ).append( header ).append( ": " );
+			for ( int v = 0; v < val.size(); v++ ) {
+				if ( v > 0 ) {
+					stringBuilder.append( ',' );
 				}
-				this.prefixId( stringBuilder, id ).append( prefix ).append( header )
-						.append( ": " ).append( sb.toString() ).append( "\n" );
+				stringBuilder.append( val.get( v ) );
 			}
+			stringBuilder.append( '\n' );
 		}
 	}
 
-	private Set< Map.Entry< String, List< String > > > getSortedHeaders(
-			final Set< Map.Entry< String, List< String > > > headers ) {
+	private String[] headerNames( final int size ) {
 
-		final TreeSet< Map.Entry< String, List< String > > > sortedHeaders = new TreeSet<>(
-				LoggingFilter.COMPARATOR );
-		sortedHeaders.addAll( headers );
-		return sortedHeaders;
+		String[] names = LoggingFilter.HEADER_NAMES.get();
+		if ( names.length < size ) {
+			names = new String[ Math.max( size, names.length * 2 ) ];
+			LoggingFilter.HEADER_NAMES.set( names );
+		}
+		return names;
+	}
+
+	/**
+	 * Fills {@code names} with the allowed header names, sorted
+	 * case-insensitively, and returns how many there are.
+	 */
+	private int sortHeaderNames( final MultivaluedMap< String, String > headers,
+			final String[] names ) {
+
+		int count = 0;
+		for ( final String name : headers.keySet() ) {
+			if ( this.headerAllowList != null && !this.headerAllowList.contains( name ) ) {
+				continue;
+			}
+			// insertion sort, header maps are small
+			int j = count++;
+			while ( j > 0 && String.CASE_INSENSITIVE_ORDER.compare( names[ j - 1 ], name ) > 0 ) {
+				names[ j ] = names[ j - 1 ];
+				j--;
+			}
+			names[ j ] = name;
+		}
+		return count;
+	}
+
+	private StringBuilder threadBuilder() {
+
+		StringBuilder builder = LoggingFilter.BUILDER.get();
+		if ( builder.capacity() > LoggingFilter.MAX_RETAINED_BUILDER_CAPACITY ) {
+			builder = new StringBuilder( 1024 );
+			LoggingFilter.BUILDER.set( builder );
+		}
+		builder.setLength( 0 );
+		return builder;
 	}
 
 	private InputStream logInboundEntity( final StringBuilder stringBuilder,
@@ -153,12 +221,17 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 			stream = new BufferedInputStream( stream );
 		}
 		stream.mark( this.maxEntitySize + 1 );
-		final var entity = new byte[ this.maxEntitySize + 1 ];
-		final int entitySize = stream.read( entity );
-		stringBuilder.append( new String( entity, 0,
-				Math.min( entitySize, this.maxEntitySize ), charset ) );
-		if ( entitySize > this.maxEntitySize ) {
-			stringBuilder.append( "...more..." );
+		final var pool = BufferPool.shared();
+		final var entity = pool.acquire( this.maxEntitySize + 1 );
+		try {
+			final int entitySize = stream.read( entity, 0, this.maxEntitySize + 1 );
+			stringBuilder.append( new String( entity, 0,
+					Math.max( 0, Math.min( entitySize, this.maxEntitySize ) ), charset ) );
+			if ( entitySize > this.maxEntitySize ) {
+				stringBuilder.append( "...more..." );
+			}
+		} finally {
+			pool.release( entity );
 		}
 		stringBuilder.append( '\n' );
 		stream.reset();
@@ -169,10 +242,10 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 	public void filter( final ClientRequestContext context )
 			throws IOException {
 
-		final long id = this.atomicId.incrementAndGet();
+		final long id = CorrelationIds.next();
 		context.setProperty( LoggingFilter.LOGGING_ID_PROPERTY, id );
 
-		final var b = new StringBuilder();
+		final var b = this.threadBuilder();
 
 		this.printRequestLine( b, "Sending client request", id,
 				context.getMethod(), context.getUri() );
@@ -181,7 +254,8 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 
 		if ( context.hasEntity() ) {
 			try {
-				final OutputStream stream = new LoggingFilter.LoggingStream( b,
+				// logged once the entity is written, maybe on another thread
+				final OutputStream stream = new LoggingFilter.LoggingStream( new StringBuilder( b ),
 						context.getEntityStream() );
 				context.setEntityStream( stream );
 				context.setProperty( LoggingFilter.ENTITY_LOGGER_PROPERTY, stream );
@@ -201,9 +275,9 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 		final Object requestId = requestContext
 				.getProperty( LoggingFilter.LOGGING_ID_PROPERTY );
 		final long id = requestId != null ? ( Long ) requestId
-				: this.atomicId.incrementAndGet();
+				: CorrelationIds.next();
 
-		final var b = new StringBuilder();
+		final var b = this.threadBuilder();
 
 		this.printResponseLine( b, "Client response received", id,
 				responseContext.getStatus() );
@@ -223,10 +297,10 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 	public void filter( final ContainerRequestContext context )
 			throws IOException {
 
-		final long id = this.atomicId.incrementAndGet();
+		final long id = CorrelationIds.next();
 		context.setProperty( LoggingFilter.LOGGING_ID_PROPERTY, id );
 
-		final var b = new StringBuilder();
+		final var b = this.threadBuilder();
 
 		this.printRequestLine( b, "Server has received a request", id,
 				context.getMethod(), context.getUriInfo().getRequestUri() );
@@ -250,9 +324,9 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 		final Object requestId = requestContext
 				.getProperty( LoggingFilter.LOGGING_ID_PROPERTY );
 		final long id = requestId != null ? ( Long ) requestId
-				: this.atomicId.incrementAndGet();
+				: CorrelationIds.next();
 
-		final var b = new StringBuilder();
+		final var b = this.threadBuilder();
 
 		this.printResponseLine( b, "Server responded with a response", id,
 				responseContext.getStatus() );
@@ -260,7 +334,8 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 				responseContext.getStringHeaders() );
 
 		if ( responseContext.hasEntity() ) {
-			final OutputStream stream = new LoggingFilter.LoggingStream( b,
+			// logged once the entity is written, maybe on another thread
+			final OutputStream stream = new LoggingFilter.LoggingStream( new StringBuilder( b ),
 					responseContext.getEntityStream() );
 			responseContext.setEntityStream( stream );
 			requestContext.setProperty( LoggingFilter.ENTITY_LOGGER_PROPERTY,
@@ -287,7 +362,7 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 
 		private final StringBuilder stringBuilder;
 
-		private final ByteArrayOutputStream byteArrayStream = new ByteArrayOutputStream();
+		private final CaptureBuffer captureBuffer = new CaptureBuffer( LoggingFilter.this.maxEntitySize );
 
 		LoggingStream( final StringBuilder stringBuilder, final OutputStream inner ) {
 
@@ -297,15 +372,12 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 		}
 
 		StringBuilder getStringBuilder( final Charset charset ) {
-			final byte[] entity = this.byteArrayStream.toByteArray();
-
-			this.stringBuilder.append( new String( entity, 0,
-					Math.min( entity.length, LoggingFilter.this.maxEntitySize ),
-					charset ) );
-			if ( entity.length > LoggingFilter.this.maxEntitySize ) {
+			this.stringBuilder.append( this.captureBuffer.toString( charset ) );
+			if ( this.captureBuffer.isTruncated() ) {
 				this.stringBuilder.append( "...more..." );
 			}
 			this.stringBuilder.append( '\n' );
+			this.captureBuffer.release();
 
 			return this.stringBuilder;
 		}
@@ -313,17 +385,13 @@ public class LoggingFilter implements ContainerRequestFilter, ClientRequestFilte
 		@Override
 		public void write( final int byteCode ) throws IOException {
 
-			if ( this.byteArrayStream.size() <= LoggingFilter.this.maxEntitySize ) {
-				this.byteArrayStream.write( byteCode );
-			}
+			this.captureBuffer.write( byteCode );
 			this.out.write( byteCode );
 		}
 
 		@Override
 		public void write( byte[] arrBytesToWrite, int startOffset, int numBytesToWrite ) throws IOException {
-			if ( this.byteArrayStream.size() <= LoggingFilter.this.maxEntitySize ) {
-				byteArrayStream.write( arrBytesToWrite, startOffset, numBytesToWrite );
-			}
+			this.captureBuffer.write( arrBytesToWrite, startOffset, numBytesToWrite );
 			this.out.write( arrBytesToWrite, startOffset, numBytesToWrite );
 		}
 
@@ -0,0 +1,160 @@
+package br.com.potio.http_auditor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.ws.rs.Path;
+
+/**
+ * Route templates such as {@code /orders/{id}/items}, built from the
+ * {@link Path} annotations of a resource method and its class. Each method is
+ * resolved once per resource class, since subclasses inheriting the method
+ * may declare different paths; the same template instance is then shared by
+ * every request to it.
+ */
+final class RouteTemplates {
+
+	/**
+	 * Client request property holding the invoked interface method, set by
+	 * MicroProfile Rest Client implementations.
+	 */
+	static final String INVOKED_METHOD_PROPERTY = "org.eclipse.microprofile.rest.client.invokedMethod";
+
+	// methods without any @Path, since the map takes no nulls
+	private static final String NONE = new String();
+	private static final ClassValue< Map< Method, String > > TEMPLATES = new ClassValue<>() {
+		@Override
+		protected Map< Method, String > computeValue( Class< ? > type ) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private RouteTemplates() {
+	}
+
+	/**
+	 * @param resourceClass class the method was matched on, which may be a
+	 *                      subclass of its declaring class
+	 * @return the template relative to the application path, or {@code null}
+	 *         when neither the class nor the method declare a path
+	 */
+	static String of( Class< ? > resourceClass, Method method ) {
+		if ( method == null ) {
+			return null;
+		}
+		var type = resourceClass != null ? resourceClass : method.getDeclaringClass();
+		var template = TEMPLATES.get( type ).computeIfAbsent( method, key -> RouteTemplates.resolve( type, key ) );
+		return template == NONE ? null : template;
+	}
+
+	static String of( Object invokedMethod ) {
+		return invokedMethod instanceof Method ? RouteTemplates.of( null, ( Method ) invokedMethod ) : null;
+	}
+
+	private static String resolve( Class< ? > resourceClass, Method method ) {
+		var classPath = RouteTemplates.findPath( resourceClass );
+		var methodPath = RouteTemplates.findPath( resourceClass, method );
+		if ( classPath == null && methodPath == null ) {
+			return NONE;
+		}
+		var template = new StringBuilder();
+		RouteTemplates.appendPath( template, classPath );
+		RouteTemplates.appendPath( template, methodPath );
+		if ( template.length() == 0 ) {
+			template.append( '/' );
+		}
+		return template.toString().intern();
+	}
+
+	private static Path findPath( Class< ? > type ) {
+		// proxies and subclasses of a resource keep the annotation on a supertype
+		for ( var current = type; current != null && current != Object.class; current = current.getSuperclass() ) {
+			var path = current.getAnnotation( Path.class );
+			if ( path != null ) {
+				return path;
+			}
+			for ( var contract : current.getInterfaces() ) {
+				path = contract.getAnnotation( Path.class );
+				if ( path != null ) {
+					return path;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * {@code @Path} of the method or, for implementations of an annotated
+	 * interface or overrides, of the method with the same signature on a
+	 * supertype, where JAX-RS looks for it too.
+	 */
+	private static Path findPath( Class< ? > type, Method method ) {
+		var path = method.getAnnotation( Path.class );
+		for ( var current = type; path == null && current != null && current != Object.class;
+				current = current.getSuperclass() ) {
+			path = RouteTemplates.findPathOnMethod( current, method );
+		}
+		return path;
+	}
+
+	private static Path findPathOnMethod( Class< ? > type, Method method ) {
+		try {
+			var path = type.getDeclaredMethod( method.getName(), method.getParameterTypes() )
+					.getAnnotation( Path.class );
+			if ( path != null ) {
+				return path;
+			}
+		} catch ( NoSuchMethodException e ) {
+			// not declared here
+		}
+		for ( var contract : type.getInterfaces() ) {
+			var path = RouteTemplates.findPathOnMethod( contract, method );
+			if ( path != null ) {
+				return path;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Appends each segment of a path value after a single slash, dropping
+	 * parameter regexes: {@code {id: \d+}} becomes {@code {id}}.
+	 */
+	private static void appendPath( StringBuilder template, Path path ) {
+		if ( path == null ) {
+			return;
+		}
+		var value = path.value();
+		boolean segmentStart = true;
+		boolean regex = false;
+		int depth = 0;
+		for ( int i = 0; i < value.length(); i++ ) {
+			char c = value.charAt( i );
+			if ( depth == 0 ) {
+				if ( c == '/' ) {
+					segmentStart = true;
+					continue;
+				}
+				if ( segmentStart ) {
+					template.append( '/' );
+					segmentStart = false;
+				}
+				if ( c == '{' ) {
+					depth = 1;
+					regex = false;
+				}
+				template.append( c );
+			} else if ( c == '}' && --depth == 0 ) {
+				template.append( c );
+			} else if ( c == '{' ) {
+				depth++;
+			} else if ( c == ':' && depth == 1 ) {
+				regex = true;
+			} else if ( !regex && c != ' ' ) {
+				template.append( c );
+			}
+		}
+	}
+
+}
@@ -1,143 +1,215 @@
 package br.com.potio.http_auditor;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
-import java.text.Normalizer.Form;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.lang.reflect.Method;
 import java.time.ZoneId;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.TimeUnit;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import br.com.potio.core.capture.CaptureBuffer;
+import br.com.potio.core.capture.CaptureInputStream;
+import br.com.potio.core.capture.CaptureOutputStream;
+import br.com.potio.core.correlation.Correlation;
+import br.com.potio.core.dto.BodyContent;
 import br.com.potio.core.dto.RequestDTO;
 import br.com.potio.core.dto.ResponseDTO;
-import jakarta.enterprise.inject.spi.CDI;
-import jakarta.json.bind.Jsonb;
+import br.com.potio.core.routing.RouteKeys;
+import br.com.potio.core.sink.CaptureLevel;
+import br.com.potio.core.timing.ExchangeTimer;
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.container.ContainerResponseContext;
 import jakarta.ws.rs.container.ContainerResponseFilter;
-import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Form;
 import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
 
 @Provider
-public abstract class ServerFilter implements ContainerRequestFilter, ContainerResponseFilter {
+public abstract class ServerFilter extends AbstractAuditFilter
+		implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
 
 	private static final Logger logger = Logger.getLogger( ServerFilter.class.getName() );
-	private static final Jsonb jsonb = CDI.current().select( Jsonb.class ).get();
-	private static final String HEADER_ENTITY = "audition-entity";
-	private static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
-	private static final String DATE_PATTERN = "EEE MMM d HH:mm:ss yyyy";
 	protected static final ZoneId DEFAULT_ZONE_ID = ZoneId.systemDefault();
+	private static final String CORRELATION_PROPERTY = Correlation.class.getName();
+	private static final String WRITE_TRACKER_PROPERTY = ServerFilter.class.getName() + ".writeTracker";
 
-	public void auditRequestResponse( RequestDTO request, ResponseDTO response ) {
-		throw new UnsupportedOperationException( "Persist Audition Not Implemented" );
-	}
+	@Context
+	private ResourceInfo resourceInfo;
 
+	/**
+	 * Entry point when registered as a provider: the policy and the route
+	 * template are looked up for the matched method, once per method.
+	 */
 	@Override
 	public void filter( ContainerRequestContext requestContext ) throws IOException {
-		try {
-			var request = this.createRequest( requestContext );
-			requestContext.getHeaders().add( HEADER_ENTITY, jsonb.toJson( request ) );
-		} catch ( IOException | ParseException e ) {
-			ServerFilter.logger.log( Level.SEVERE, "Error while intercepting client requests", e );
+		Class< ? > resourceClass = null;
+		Method resourceMethod = null;
+		if ( this.resourceInfo != null ) {
+			try {
+				resourceClass = this.resourceInfo.getResourceClass();
+				resourceMethod = this.resourceInfo.getResourceMethod();
+			} catch ( RuntimeException e ) {
+				// proxies may fail outside of a matched request
+				ServerFilter.logger.log( Level.FINE, "Resource method not available", e );
+			}
+		}
+		this.filter( requestContext, CapturePolicy.of( resourceClass, resourceMethod ),
+				RouteTemplates.of( resourceClass, resourceMethod ) );
+	}
+
+	/**
+	 * Entry point of {@link AuditFeature} bindings, resolved at deployment.
+	 */
+	void filter( ContainerRequestContext requestContext, CapturePolicy policy, String routeTemplate )
+			throws IOException {
+		// current for client calls made while handling the request, also replaces what a pooled thread kept
+		var correlation = Correlation.fromHeaders( requestContext.getHeaderString( Correlation.PARENT_HEADER ),
+				requestContext.getHeaderString( Correlation.ROOT_HEADER ) );
+		Correlation.setCurrent( correlation );
+		requestContext.setProperty( CORRELATION_PROPERTY, correlation );
+		if ( !policy.isEnabled() ) {
+			return;
+		}
+		var timer = ExchangeTimer.start();
+		var uri = requestContext.getUriInfo().getRequestUri();
+		// sampled out exchanges still count in the route metrics
+		var level = this.sampler().sample( requestContext.getMethod(), uri.getHost(), uri.getPath(),
+				requestContext::getHeaderString ) ? this.admit() : CaptureLevel.COUNTERS_ONLY;
+		var exchange = new AuditExchange( timer, level, policy );
+		exchange.setCorrelation( correlation );
+		exchange.setRouteTemplate( routeTemplate );
+		if ( exchange.capturesRecord() ) {
+			exchange.setRequest( this.createRequest( requestContext, exchange ) );
+		}
+		if ( exchange.capturesRequestBody() && requestContext.hasEntity() ) {
+			var capture = new CaptureInputStream( requestContext.getEntityStream(),
+					new CaptureBuffer( policy.getMaxBodySize( this.getMaxEntitySize() ) ) );
+			requestContext.setEntityStream( capture );
+			exchange.setRequestCapture( capture.getBuffer() );
 		}
+		requestContext.setProperty( AuditExchange.PROPERTY, exchange );
+		exchange.getTimer().markFilterIn();
 	}
 
 	@Override
 	public void filter( ContainerRequestContext reqContext, ContainerResponseContext resContext ) throws IOException {
-		try {
-			Map< String, List< String > > headersRequest = this.extractHeaders( reqContext.getHeaders() );
-			if ( !headersRequest.containsKey( HEADER_ENTITY ) ) {
-				return;
-			}
-			String auditionEntityJson = reqContext.getHeaders().get( HEADER_ENTITY ).get( 0 );
-			var request = jsonb.fromJson( auditionEntityJson, RequestDTO.class );
-			var response = this.createResponse( resContext );
+		var correlation = reqContext.getProperty( CORRELATION_PROPERTY );
+		if ( correlation != null ) {
+			reqContext.removeProperty( CORRELATION_PROPERTY );
+			Correlation.clear( ( Correlation ) correlation );
+		}
+		var exchange = ( AuditExchange ) reqContext.getProperty( AuditExchange.PROPERTY );
+		if ( exchange == null ) {
+			return;
+		}
+		reqContext.removeProperty( AuditExchange.PROPERTY );
+		var timer = exchange.getTimer();
+		timer.markHandler();
+		this.metrics().recordRoute( RouteKeys.of( reqContext.getMethod(), exchange.getRouteTemplate(),
+				reqContext.getUriInfo().getRequestUri().getRawPath() ), resContext.getStatus(),
+				timer.getTookNanos() );
+		if ( !exchange.capturesRecord() ) {
+			return;
+		}
+		var request = exchange.getRequest();
+		// whatever the resource method consumed of the entity
+		exchange.completeRequestCapture( this.charsetOf( reqContext.getMediaType() ) );
+		request.setBodyContent( exchange.getRequestBody() );
+		var response = this.createResponse( resContext );
+		// HEAD responses keep their entity but it is never written
+		if ( exchange.capturesResponseBody() && resContext.hasEntity()
+				&& !HttpMethod.HEAD.equals( reqContext.getMethod() ) ) {
+			// finished once the entity is written, maybe on another thread, see aroundWriteTo
+			exchange.setResponse( response );
+			reqContext.setProperty( AuditExchange.PROPERTY, exchange );
+			// when a later filter drops the entity or no writer runs, completed without body once the request is gone
+			var tracker = new Object();
+			reqContext.setProperty( WRITE_TRACKER_PROPERTY, tracker );
+			exchange.onAbandoned( tracker, () -> this.abandon( exchange ) );
+			return;
+		}
+		this.complete( exchange, response );
+	}
 
-			Long tookSeconds = null;
-			if ( !Objects.isNull( response.getDate() ) && !Objects.isNull( request.getDate() ) ) {
-				tookSeconds = Math.abs( response.getDate().getTime() - request.getDate().getTime() );
-				tookSeconds = TimeUnit.MILLISECONDS.toSeconds( tookSeconds );
+	/**
+	 * Tees the bytes the message body writer produces, whatever the entity
+	 * type, up to {@link #getMaxEntitySize()}; larger entities stream through
+	 * untouched. Interceptors with a lower priority, like compression, wrap
+	 * this one, so the body is captured before them.
+	 */
+	@Override
+	public void aroundWriteTo( WriterInterceptorContext context ) throws IOException {
+		var exchange = ( AuditExchange ) context.getProperty( AuditExchange.PROPERTY );
+		if ( exchange == null || exchange.getResponse() == null ) {
+			context.proceed();
+			return;
+		}
+		context.removeProperty( AuditExchange.PROPERTY );
+		context.removeProperty( WRITE_TRACKER_PROPERTY );
+		CaptureOutputStream capture = null;
+		if ( !( context.getEntity() instanceof Form ) ) {
+			capture = new CaptureOutputStream( context.getOutputStream(),
+					new CaptureBuffer( exchange.getPolicy().getMaxBodySize( this.getMaxEntitySize() ) ) );
+			context.setOutputStream( capture );
+		}
+		try {
+			context.proceed();
+		} finally {
+			// also when the client went away, with what was written so far
+			var response = exchange.getResponse();
+			if ( capture != null ) {
+				response.setBodyContent( BodyContent.adopt( capture.getBuffer(),
+						this.charsetOf( context.getMediaType() ) ) );
 			}
-			response.setTookSeconds( Objects.isNull( tookSeconds ) ? tookSeconds + "s" : "< 1s" );
-
-			this.auditRequestResponse( request, response );
-		} catch ( IOException | ParseException e ) {
-			ServerFilter.logger.log( Level.SEVERE, "Error while intercepting client requests", e );
+			this.complete( exchange, response );
+			exchange.clearAbandoned();
 		}
 	}
 
-	private Map< String, List< String > > extractHeaders( MultivaluedMap< String, String > headerMap ) {
-		Map< String, List< String > > headers = new HashMap<>();
-		headerMap.keySet().stream()
-				.forEach( key -> headers.put( key, headerMap.get( key ) ) );
-		return headers;
+	private void abandon( AuditExchange exchange ) {
+		this.metrics().recordAbandoned();
+		var timer = exchange.getTimer();
+		timer.markCompletedAtHandler();
+		timer.applyTo( exchange.getResponse() );
+		this.dispatch( exchange.getRequest(), exchange.getResponse() );
 	}
 
-	private RequestDTO createRequest( ContainerRequestContext context ) throws IOException, ParseException {
-		Map< String, List< String > > headers = this.extractHeaders( context.getHeaders() );
-		var uri = context.getUriInfo().getRequestUri();
-		InputStream is = context.getEntityStream();
-		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-		byte[] chunk = new byte[ 8192 ];
-		int bytesRead;
-
-		while ( ( bytesRead = is.read( chunk ) ) != -1 ) {
-			buffer.write( chunk, 0, bytesRead );
+	private void complete( AuditExchange exchange, ResponseDTO response ) {
+		if ( !exchange.finish() ) {
+			return;
 		}
+		var timer = exchange.getTimer();
+		timer.markCompleted();
+		timer.applyTo( response );
+		this.dispatch( exchange.getRequest(), response );
+	}
 
-		byte[] data = buffer.toByteArray();
-
-		ByteArrayInputStream newInputStream = new ByteArrayInputStream( data );
-
-		context.setEntityStream( newInputStream );
-
-		String requestBody = new String( data, DEFAULT_CHARSET );
-		return RequestDTO.builder()
+	private RequestDTO createRequest( ContainerRequestContext context, AuditExchange exchange ) {
+		var uri = context.getUriInfo().getRequestUri();
+		return AbstractAuditFilter.correlate( RequestDTO.builder(), exchange.getCorrelation() )
 				.withUrl( uri.toString() )
-				.withBody( requestBody )
+				.withRouteTemplate( exchange.getRouteTemplate() )
 				.withMethodName( context.getMethod() )
-				.withHeaders( headers )
-				.withDate( new Date() )
+				.withHeaders( exchange.getPolicy().headers( context.getHeaders() ) )
+				.withDate( exchange.getTimer().getStartDate() )
 				.build();
 	}
 
-	private ResponseDTO createResponse( ContainerResponseContext context )
-			throws IOException, ParseException {
-		String body = null;
-		Object entity = null;
-		var hasEntity = context.hasEntity()
-				&& !( ( entity = context.getEntity() ) instanceof Form );
-		if ( hasEntity && entity instanceof String ) {
-			body = ( String ) entity;
-		} else if ( hasEntity && entity instanceof InputStream ) {
-			try ( InputStream inputStream = ( InputStream ) entity ;) {
-				byte[] bytes = inputStream.readAllBytes();
-				body = new String( bytes, StandardCharsets.UTF_8 );
-			} catch ( IOException e ) {
-				ServerFilter.logger.log( Level.SEVERE, "Erro converting request body", e );
-			}
-		}
-		var simpleDateFormat = new SimpleDateFormat( DATE_PATTERN, Locale.US );
-		String formattedDate = simpleDateFormat.format( new Date() );
-		Date responseDate = simpleDateFormat.parse( formattedDate );
+	private ResponseDTO createResponse( ContainerResponseContext context ) {
+		String entityTag = Optional.ofNullable( context.getEntityTag() )
+				.map( EntityTag::getValue )
+				.orElse( null );
 		return ResponseDTO.builder()
 				.withStatus( context.getStatus() )
-				.withBody( body )
-				.withDate( responseDate )
+				.withEntityTag( entityTag )
+				.withDate( new Date() )
 				.build();
 	}
 
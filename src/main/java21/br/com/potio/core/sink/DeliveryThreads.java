@@ -0,0 +1,27 @@
+package br.com.potio.core.sink;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads running sink callbacks. This is the Java 21 variant: one virtual
+ * thread per callback, so blocking sinks park instead of holding a platform
+ * thread.
+ */
+final class DeliveryThreads {
+
+	static final boolean VIRTUAL = true;
+
+	private DeliveryThreads() {
+	}
+
+	/**
+	 * @param maxConcurrency callbacks running at once, enforced by the caller
+	 */
+	static ExecutorService newExecutor( String name, int maxConcurrency ) {
+		return Executors.newThreadPerTaskExecutor( Thread.ofVirtual()
+				.name( "audit-delivery-" + name + "-", 1 )
+				.factory() );
+	}
+
+}